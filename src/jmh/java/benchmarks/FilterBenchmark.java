@@ -0,0 +1,88 @@
+package benchmarks;
+
+import backend.resource.Model;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import filter.Parser;
+import filter.expression.FilterExpression;
+import filter.expression.Qualifier;
+import org.openjdk.jmh.annotations.*;
+import prefs.Preferences;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures filtering all issues of a repository against a panel's filter, as
+ * GUIController.filterAndSortPanel does, by compiling it into a predicate once.
+ * Filter expressions used to be interpreted for each issue; that is measured by
+ * running this benchmark on a tree from before they were compiled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final String REPO = "owner/repo";
+
+    @Param({"10000"})
+    private int issues;
+
+    @Param({"label:type. milestone:v is:open title:issue", "label:type.label1 milestone:v is:open"})
+    private String filter;
+
+    private MultiModel model;
+    private List<TurboIssue> allIssues;
+    private FilterExpression expression;
+
+    @Setup
+    public void setup() {
+        allIssues = new ArrayList<>();
+        for (int i = 1; i <= issues; i++) {
+            TurboIssue issue = new TurboIssue(REPO, i, "Issue " + i);
+            issue.setDescription("Description of issue " + i);
+            issue.setOpen(i % 3 != 0);
+            issue.setLabels(Arrays.asList("type.label" + i % 10, "priority.p" + i % 3));
+            issue.setMilestone(i % 10 + 1);
+            allIssues.add(issue);
+        }
+        List<TurboLabel> labels = new ArrayList<>();
+        List<TurboMilestone> milestones = new ArrayList<>();
+        List<TurboUser> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            labels.add(new TurboLabel(REPO, "type.label" + i));
+            milestones.add(new TurboMilestone(REPO, i + 1, "V0." + i));
+            users.add(new TurboUser(REPO, "user" + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            labels.add(new TurboLabel(REPO, "priority.p" + i));
+        }
+
+        model = new MultiModel(new Preferences(true));
+        model.setDefaultRepo(REPO);
+        model.queuePendingRepository(REPO);
+        model.addPending(new Model(REPO, allIssues, labels, milestones, users));
+        expression = Parser.parse(filter);
+    }
+
+    @Benchmark
+    public int compiled() {
+        Predicate<TurboIssue> predicate = Qualifier.compileFilter(model, expression);
+        int count = 0;
+        for (TurboIssue issue : allIssues) {
+            if (predicate.test(issue)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading several large repositories from the store, and the heap they take up once loaded.
+ * Issues are stored without descriptions, which are rarely shared, so that the rest of each issue is
+ * measured.
+ *
+ * Run with `gradle jmh`, which reports allocation per load (gc.alloc.rate.norm). The footprint of the
+ * last repositories loaded, measured with JOL, is printed per issue once the benchmark is done.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HeapBenchmark {
+
+    private static final String REPO = "benchmark/benchmark";
+
+    @Param({"5000"})
+    private int issues;
+
+    @Param({"4"})
+    private int repos;
+
+    private RepoStore store;
+    private List<String> repoIds;
+    private List<Model> loaded;
+
+    @Setup
+    public void setup() {
+        RepoStore.enableTestDirectory();
+        store = new JSONStore();
+        repoIds = new ArrayList<>();
+        for (int i = 0; i < repos; i++) {
+            String repoId = REPO + i;
+            Model model = LargeModel.create(repoId, issues);
+            model.getIssues().forEach(issue -> issue.setDescription(""));
+            store.saveRepository(repoId, new SerializableModel(model));
+            repoIds.add(repoId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        long footprint = GraphLayout.parseInstance(loaded.toArray()).totalSize();
+        System.out.printf("%n%d repositories of %d issues without descriptions take up %d bytes per issue%n",
+            repos, issues, footprint / (repos * issues));
+        repoIds.forEach(LargeModel::deleteStored);
+    }
+
+    @Benchmark
+    public List<Model> load() throws InterruptedException, ExecutionException {
+        List<Model> models = new ArrayList<>();
+        for (String repoId : repoIds) {
+            models.add(store.loadRepository(repoId).get());
+        }
+        loaded = models;
+        return models;
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import backend.resource.Model;
+import backend.resource.MultiModel;
+import backend.resource.TextIndex;
+import backend.resource.TurboIssue;
+import filter.Parser;
+import filter.expression.FilterExpression;
+import filter.expression.Qualifier;
+import org.openjdk.jmh.annotations.*;
+import prefs.Preferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures filtering a synthetic corpus of issues with text qualifiers, whose descriptions
+ * are about 4 KB each, by compiling the filter with the text index. Searching every issue
+ * is measured by running this benchmark on a tree from before the text index was added.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class KeywordFilterBenchmark {
+
+    private static final String REPO = "owner/repo";
+    private static final int VOCABULARY = 5000;
+    private static final int WORDS_PER_DESCRIPTION = 600;
+
+    @Param({"50000"})
+    private int issues;
+
+    @Param({"keyword:frobnicate", "title:issue 4217", "keyword:stack trace"})
+    private String filter;
+
+    private MultiModel model;
+    private List<TurboIssue> allIssues;
+    private FilterExpression expression;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        allIssues = new ArrayList<>();
+        for (int i = 1; i <= issues; i++) {
+            TurboIssue issue = new TurboIssue(REPO, i, "Issue " + i + " " + vocabulary[random.nextInt(VOCABULARY)]);
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < WORDS_PER_DESCRIPTION; j++) {
+                // Skew towards common words, as in natural language
+                int word = (int) (VOCABULARY * Math.pow(random.nextDouble(), 3));
+                description.append(vocabulary[word]).append(j % 12 == 11 ? ". " : " ");
+            }
+            if (i % 1000 == 0) description.append("Does not frobnicate. ");
+            if (i % 100 == 0) description.append("Stack trace attached.");
+            issue.setDescription(description.toString());
+            allIssues.add(issue);
+        }
+
+        model = new MultiModel(new Preferences(true));
+        model.setDefaultRepo(REPO);
+        model.queuePendingRepository(REPO);
+        Model repo = new Model(REPO, allIssues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        model.addPending(repo);
+        model.getModelById(REPO).get().getTextIndex();
+        expression = Parser.parse(filter);
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(8);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    @Benchmark
+    public int indexed() {
+        Predicate<TurboIssue> predicate = Qualifier.compileFilter(model, expression);
+        int count = 0;
+        for (TurboIssue issue : allIssues) {
+            if (predicate.test(issue)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The cost of building the text index, which is paid once, the first time a text
+     * qualifier is used on a repository without a stored index.
+     */
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public TextIndex buildIndex() {
+        return TextIndex.of(allIssues);
+    }
+}
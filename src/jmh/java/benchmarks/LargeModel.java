@@ -0,0 +1,87 @@
+package benchmarks;
+
+import backend.UpdateSignature;
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds repositories with issues of the size and variety of those of a large project,
+ * for the benchmarks of the repository stores.
+ */
+final class LargeModel {
+
+    private static final String[] WORDS = {"the", "issue", "fails", "when", "panel", "filter", "repository",
+        "shows", "label", "milestone", "should", "update", "after", "refresh", "error", "window", "open", "closed",
+        "user"};
+
+    private LargeModel() {
+    }
+
+    /**
+     * @return a repository with the given number of issues, the same each time it is built
+     */
+    static Model create(String repoId, int issueCount) {
+        Random random = new Random(0);
+
+        List<TurboUser> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(new TurboUser(repoId, "user" + i, "User " + i));
+        }
+        List<TurboLabel> labels = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            labels.add(new TurboLabel(repoId, "c0c0c0", "group" + i % 5 + ".label" + i));
+        }
+        List<TurboMilestone> milestones = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            milestones.add(new TurboMilestone(repoId, i, "V" + i));
+        }
+
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= issueCount; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int j = random.nextInt(300); j >= 0; j--) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            TurboIssue issue = new TurboIssue(repoId, i, "Issue " + i + " " + WORDS[random.nextInt(WORDS.length)],
+                "user" + random.nextInt(users.size()), LocalDateTime.of(2015, 1, 1, 0, 0).plusMinutes(i), false);
+            issue.setDescription(description.toString());
+            issue.setCommentCount(random.nextInt(20));
+            issue.setOpen(random.nextBoolean());
+            issue.setAssignee("user" + random.nextInt(users.size()));
+            List<String> issueLabels = new ArrayList<>();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                issueLabels.add(labels.get(random.nextInt(labels.size())).getActualName());
+            }
+            issue.setLabels(issueLabels);
+            issue.setMilestone(1 + random.nextInt(milestones.size()));
+            issues.add(issue);
+        }
+        return new Model(repoId, issues, labels, milestones, users,
+            new UpdateSignature("\"issues\"", "\"labels\"", "\"milestones\"", "\"users\"", new Date()));
+    }
+
+    /**
+     * Deletes the files a store keeps for the given repository, such as previous generations and journals.
+     */
+    static void deleteStored(String repoId) {
+        String prefix = repoId.replace("/", "-") + ".";
+        File[] files = RepoStore.getRepoFile(repoId, "json").getParentFile()
+            .listFiles((dir, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import backend.resource.Model;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.*;
+import prefs.Preferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work done reading the issues of all open repositories when a
+ * ModelUpdatedEvent is handled, as GUIController.modelUpdated does.
+ *
+ * Run with `gradle jmh`, which reports allocation per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ModelUpdatedEventBenchmark {
+
+    private static final int REPOS = 10;
+
+    @Param({"1000"})
+    private int issuesPerRepo;
+
+    private List<Model> models;
+    private MultiModel multiModel;
+
+    @Setup
+    public void setup() {
+        models = new ArrayList<>();
+        multiModel = new MultiModel(new Preferences(true));
+        for (int i = 0; i < REPOS; i++) {
+            Model model = createModel("owner/repo" + i);
+            models.add(model);
+            multiModel.queuePendingRepository(model.getRepoId());
+            multiModel.addPending(model);
+        }
+    }
+
+    private Model createModel(String repoId) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= issuesPerRepo; i++) {
+            issues.add(new TurboIssue(repoId, i, "Issue " + i));
+        }
+        List<TurboLabel> labels = new ArrayList<>();
+        List<TurboMilestone> milestones = new ArrayList<>();
+        List<TurboUser> users = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            labels.add(new TurboLabel(repoId, "type.label" + i));
+            milestones.add(new TurboMilestone(repoId, i, "V0." + i));
+            users.add(new TurboUser(repoId, "user" + i));
+        }
+        return new Model(repoId, issues, labels, milestones, users);
+    }
+
+    /**
+     * The previous behaviour: each model's issues are copied, concatenated,
+     * then copied again into an observable list.
+     */
+    @Benchmark
+    public ObservableList<TurboIssue> copyingRead() {
+        multiModel.replace(models);
+        List<TurboIssue> result = new ArrayList<>();
+        multiModel.toModels().forEach(m -> result.addAll(new ArrayList<>(m.getIssues())));
+        return FXCollections.observableArrayList(result);
+    }
+
+    /**
+     * Issues are concatenated once into an immutable list, which is wrapped.
+     */
+    @Benchmark
+    public ObservableList<TurboIssue> snapshotRead() {
+        multiModel.replace(models);
+        return FXCollections.observableList(multiModel.getIssues());
+    }
+}
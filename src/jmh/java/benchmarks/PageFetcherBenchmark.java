@@ -0,0 +1,96 @@
+package benchmarks;
+
+import backend.github.GitHubRepo;
+import backend.resource.TurboLabel;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures downloading the labels of a repository spread over many pages from a local stub
+ * server which answers each request after a delay, as GitHub does, requesting one page at a
+ * time and several at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageFetcherBenchmark {
+
+    private static final String REPO = "owner/repo";
+    private static final int PER_PAGE = 100;
+
+    @Param({"20"})
+    private int pages;
+
+    @Param({"50"})
+    private int latency;
+
+    @Param({"1", "4", "8"})
+    private int maxConcurrentRequests;
+
+    private HttpServer server;
+    private GitHubRepo repo;
+
+    @Setup
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::respond);
+        server.start();
+        GitHubClientExtended client = new GitHubClientExtended("localhost", server.getAddress().getPort(), "http");
+        repo = new GitHubRepo(client, maxConcurrentRequests);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        Matcher matcher = Pattern.compile("(?:^|&)page=(\\d+)").matcher(exchange.getRequestURI().getQuery());
+        int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+
+        List<String> labels = new ArrayList<>();
+        for (int i = (page - 1) * PER_PAGE + 1; i <= page * PER_PAGE; i++) {
+            labels.add(String.format("{\"name\":\"label%d\",\"color\":\"ffffff\"}", i));
+        }
+        byte[] body = ("[" + String.join(",", labels) + "]").getBytes(StandardCharsets.UTF_8);
+
+        String uri = "http://localhost:" + server.getAddress().getPort() + path + "?page=";
+        if (page < pages) {
+            exchange.getResponseHeaders().add("Link",
+                String.format("<%s%d>; rel=\"next\", <%s%d>; rel=\"last\"", uri, page + 1, uri, pages));
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @Benchmark
+    public List<TurboLabel> getLabels() {
+        return repo.getLabels(REPO);
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import backend.binary.BinaryStore;
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading several large repositories from the store, waiting for each before loading the
+ * next, and loading them all at once, as when HubTurbo starts with several repositories open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelLoadBenchmark {
+
+    private static final String REPO = "benchmark/benchmark";
+
+    @Param({"5000"})
+    private int issues;
+
+    @Param({"4"})
+    private int repos;
+
+    private RepoStore store;
+    private List<String> repoIds;
+
+    @Setup
+    public void setup() throws InterruptedException, ExecutionException {
+        RepoStore.enableTestDirectory();
+        store = new BinaryStore();
+        repoIds = new ArrayList<>();
+        for (int i = 0; i < repos; i++) {
+            String repoId = REPO + i;
+            store.saveRepository(repoId, new SerializableModel(LargeModel.create(repoId, issues)));
+            repoIds.add(repoId);
+        }
+        for (String repoId : repoIds) {
+            store.loadRepository(repoId).get();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        repoIds.forEach(LargeModel::deleteStored);
+    }
+
+    @Benchmark
+    public List<Model> sequential() throws InterruptedException, ExecutionException {
+        List<Model> models = new ArrayList<>();
+        for (String repoId : repoIds) {
+            models.add(store.loadRepository(repoId).get());
+        }
+        return models;
+    }
+
+    @Benchmark
+    public List<Model> parallel() throws InterruptedException, ExecutionException {
+        List<CompletableFuture<Model>> loads = new ArrayList<>();
+        for (String repoId : repoIds) {
+            loads.add(store.loadRepository(repoId));
+        }
+        List<Model> models = new ArrayList<>();
+        for (CompletableFuture<Model> load : loads) {
+            models.add(load.get());
+        }
+        return models;
+    }
+}
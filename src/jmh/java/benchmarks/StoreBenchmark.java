@@ -0,0 +1,82 @@
+package benchmarks;
+
+import backend.binary.BinaryStore;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving and loading a large repository in each store format, and as JSON with each
+ * compression. The size of the stored file is printed once it has been saved.
+ *
+ * A store runs the tasks of a repository in order, so a save is timed by the load after it:
+ * the time taken to save is that of saveAndLoad less that of load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreBenchmark {
+
+    private static final String REPO = "benchmark/benchmark";
+
+    @Param({"5000"})
+    private int issues;
+
+    @Param({"json", "json-fast", "json-gzip", "binary"})
+    private String format;
+
+    private RepoStore store;
+    private SerializableModel model;
+
+    @Setup
+    public void setup() throws InterruptedException, ExecutionException {
+        RepoStore.enableTestDirectory();
+        store = createStore(format);
+        model = new SerializableModel(LargeModel.create(REPO, issues));
+        store.saveRepository(REPO, model);
+        store.loadRepository(REPO).get();
+        System.out.printf("%n%d issues stored as %s in %d bytes%n",
+            issues, format, RepoStore.getRepoFile(REPO, extension(format)).length());
+    }
+
+    private static RepoStore createStore(String format) {
+        switch (format) {
+        case "binary":
+            return new BinaryStore();
+        case "json-fast":
+            return new JSONStore(RepoStore.Compression.FAST);
+        case "json-gzip":
+            return new JSONStore(RepoStore.Compression.GZIP);
+        default:
+            return new JSONStore(RepoStore.Compression.NONE);
+        }
+    }
+
+    private static String extension(String format) {
+        return format.equals("binary") ? "bin" : "json";
+    }
+
+    @TearDown
+    public void tearDown() {
+        LargeModel.deleteStored(REPO);
+    }
+
+    @Benchmark
+    public Model load() throws InterruptedException, ExecutionException {
+        return store.loadRepository(REPO).get();
+    }
+
+    @Benchmark
+    public Model saveAndLoad() throws InterruptedException, ExecutionException {
+        store.saveRepository(REPO, model);
+        return store.loadRepository(REPO).get();
+    }
+}
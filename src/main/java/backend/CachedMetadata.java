@@ -0,0 +1,57 @@
+package backend;
+
+import backend.resource.serialization.SerializableMetadata;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * The metadata of an issue as it was downloaded, kept so that it need not be downloaded again.
+ * Records the ETags its events and comments had, and when the issue had last been updated.
+ */
+public class CachedMetadata {
+    private final IssueMetadata metadata;
+    private final String eventsETag;
+    private final String commentsETag;
+    private final LocalDateTime updatedAt;
+
+    /**
+     * @param eventsETag May be null if unknown, as may commentsETag.
+     * @param updatedAt When the issue had last been updated as of the download.
+     */
+    public CachedMetadata(IssueMetadata metadata, String eventsETag, String commentsETag, LocalDateTime updatedAt) {
+        this.metadata = metadata;
+        this.eventsETag = eventsETag;
+        this.commentsETag = commentsETag;
+        this.updatedAt = updatedAt;
+    }
+
+    public CachedMetadata(SerializableMetadata metadata) {
+        this(new IssueMetadata(metadata.events, metadata.comments),
+            metadata.eventsETag, metadata.commentsETag, metadata.updatedAt);
+    }
+
+    /**
+     * @return whether the issue has not been updated since the metadata was downloaded. Even if it has not,
+     * the metadata may have changed (e.g. if a comment was edited), so it should still be revalidated.
+     */
+    public boolean isCurrent(LocalDateTime issueUpdatedAt) {
+        return updatedAt.equals(issueUpdatedAt);
+    }
+
+    public IssueMetadata getMetadata() {
+        return metadata;
+    }
+
+    public Optional<String> getEventsETag() {
+        return Optional.ofNullable(eventsETag);
+    }
+
+    public Optional<String> getCommentsETag() {
+        return Optional.ofNullable(commentsETag);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
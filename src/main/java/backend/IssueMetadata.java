@@ -9,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class IssueMetadata {
+
+    // Shared by the issues whose metadata has not been downloaded, as metadata is immutable
+    public static final IssueMetadata EMPTY = new IssueMetadata();
+
     private final List<TurboIssueEvent> events;
     private final List<Comment> comments;
     private final LocalDateTime nonSelfUpdatedAt;
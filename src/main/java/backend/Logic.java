@@ -1,6 +1,7 @@
 package backend;
 
 import backend.resource.Model;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
 import backend.resource.TurboIssue;
 import github.TurboIssueEvent;
@@ -17,10 +18,7 @@ import util.events.testevents.ClearLogicModelEventHandler;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -37,12 +35,13 @@ public class Logic {
     private RepoIO repoIO;
     public LoginController loginController;
 
-    public Logic(UIManager uiManager, Preferences prefs, boolean isTestMode, boolean enableTestJSON) {
+    public Logic(UIManager uiManager, Preferences prefs, boolean isTestMode, boolean enableTestJSON,
+                 RepoIO.StoreFormat storeFormat) {
         this.uiManager = uiManager;
         this.prefs = prefs;
         this.models = new MultiModel(prefs);
 
-        repoIO = new RepoIO(isTestMode, enableTestJSON);
+        repoIO = new RepoIO(isTestMode, enableTestJSON, storeFormat);
         loginController = new LoginController(this);
 
         // Only relevant to testing, need a different event type to avoid race condition
@@ -81,11 +80,13 @@ public class Logic {
         logger.info(message);
         UI.status.displayMessage(message);
 
+        // Repositories still being downloaded are brought up to date once they are
         Futures.sequence(models.toModels().stream()
+            .filter(model -> !models.isRepositoryPending(model.getRepoId()))
             .map(repoIO::updateModel)
             .collect(Collectors.toList()))
                 .thenApply(models::replace)
-                .thenRun(this::updateUI)
+                .thenAccept(this::updateUI)
                 .thenCompose(n -> getRateLimitResetTime())
                 .thenApply(this::updateRemainingRate)
                 .exceptionally(Futures::log);
@@ -115,7 +116,7 @@ public class Logic {
             } else {
                 logger.info("Opening " + repoId);
                 UI.status.displayMessage("Opening " + repoId);
-                return repoIO.openRepository(repoId)
+                return repoIO.openRepository(repoId, this::showPartialRepository)
                         .thenApply(models::addPending)
                         .thenRun(this::updateUI)
                         .thenRun(() -> UI.events.triggerEvent(new RepoOpenedEvent(repoId)))
@@ -127,6 +128,10 @@ public class Logic {
         });
     }
 
+    /**
+     * Downloads the metadata of the given issues, showing it a few issues at a time as it arrives.
+     * Cancelling the result abandons the issues whose metadata has not been downloaded yet.
+     */
     public CompletableFuture<Boolean> getIssueMetadata(String repoId, List<Integer> issues) {
         String message = "Getting metadata for " + repoId + "...";
         logger.info("Getting metadata for issues " + issues);
@@ -134,18 +139,30 @@ public class Logic {
 
         String currentUser = prefs.getLastLoginUsername();
 
-        return repoIO.getIssueMetadata(repoId, issues).thenApply(this::processNonSelfUpdate)
+        // The stored metadata of issues which have been updated since is downloaded again
+        Map<Integer, LocalDateTime> updatedAt = new HashMap<>();
+        Optional.ofNullable(models.get(repoId)).ifPresent(model -> issues.forEach(id ->
+            model.getIssueById(id).ifPresent(issue -> updatedAt.put(id, issue.getUpdatedAt()))));
+
+        CompletableFuture<Map<Integer, IssueMetadata>> download = repoIO.getIssueMetadata(repoId, updatedAt,
+            metadata -> models.insertMetadata(repoId, processNonSelfUpdate(metadata), currentUser)
+                .ifPresent(changes -> uiManager.updateMetadata(models, Collections.singletonList(changes))));
+        CompletableFuture<Boolean> result = download
             .thenApply(metadata -> {
                 String updatedMessage = "Received metadata from " + repoId + "!";
                 UI.status.displayMessage(updatedMessage);
-                models.insertMetadata(repoId, metadata, currentUser);
                 return metadata;
             })
-            .thenApply(Futures.tap(this::updateUIAndShow))
             .thenCompose(n -> getRateLimitResetTime())
             .thenApply(this::updateRemainingRate)
             .thenApply(rateLimits -> true)
             .exceptionally(withResult(false));
+        result.whenComplete((success, failure) -> {
+            if (result.isCancelled()) {
+                download.cancel(false);
+            }
+        });
+        return result;
     }
 
     // Adds update times to the metadata map
@@ -216,6 +233,30 @@ public class Logic {
         uiManager.update(models, false);
     }
 
+    /**
+     * Carries the changes made by a refresh to the GUI. If nothing has changed, the GUI is not updated.
+     */
+    private void updateUI(List<ModelDelta> changes) {
+        if (changes.stream().noneMatch(ModelDelta::hasChanges)) {
+            logger.info("No changes to any repository");
+            return;
+        }
+        uiManager.update(models, changes);
+    }
+
+    /**
+     * Shows a repository which is still being downloaded with the issues downloaded so far. Once its first
+     * issues are shown, only the issues downloaded since are carried to the GUI.
+     */
+    private void showPartialRepository(Model partialModel) {
+        Optional<ModelDelta> changes = models.addPartial(partialModel);
+        if (changes.isPresent()) {
+            updateUI(Collections.singletonList(changes.get()));
+        } else {
+            updateUI();
+        }
+    }
+
     /**
      * Carries the current model in Logic to the GUI and immediately presents it to the user. Does not trigger
      * further metadata updates.
@@ -257,7 +298,7 @@ public class Logic {
 
         return repoIO.replaceIssueLabels(issue, labels).handle((resultLabels, ex) -> {
             if (ex == null) {
-                issue.setLabels(labels);
+                models.replaceIssueLabels(issue, labels);
                 updateUIAndShow();
                 return true;
             } else {
@@ -1,24 +1,26 @@
 package backend;
 
+import backend.binary.BinaryStore;
 import backend.github.GitHubSource;
 import backend.interfaces.RepoSource;
 import backend.interfaces.RepoStore;
 import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
+import backend.resource.ChangeSet;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
-import backend.resource.serialization.SerializableModel;
 import backend.stub.DummySource;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import ui.UI;
 import util.HTLog;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static util.Futures.withResult;
 
@@ -27,11 +29,28 @@ public class RepoIO {
     private static final Logger logger = HTLog.get(RepoIO.class);
 
     private final RepoSource repoSource;
-    private final JSONStore jsonStore;
+    private final RepoStore repoStore;
 
     private List<String> storedRepos;
 
+    // Repositories whose download was interrupted, and which are only stored as the pages of issues
+    // downloaded so far, until their models are next updated
+    private final Set<String> partiallyDownloadedRepos = Collections.synchronizedSet(new HashSet<>());
+
+    /**
+     * The formats repositories may be stored in.
+     */
+    public enum StoreFormat {
+        JSON, BINARY,
+        // Binary, with the changes made by updates appended to a journal
+        BINARY_JOURNAL
+    }
+
     public RepoIO(boolean isTestMode, boolean enableTestJSON) {
+        this(isTestMode, enableTestJSON, StoreFormat.JSON);
+    }
+
+    public RepoIO(boolean isTestMode, boolean enableTestJSON, StoreFormat storeFormat) {
         if (isTestMode) {
             repoSource = new DummySource();
             RepoStore.enableTestDirectory();
@@ -39,11 +58,13 @@ public class RepoIO {
             repoSource = new GitHubSource();
         }
         if (isTestMode && !enableTestJSON) {
-            jsonStore = new JSONStoreStub();
+            repoStore = new JSONStoreStub();
             storedRepos = new ArrayList<>();
         } else {
-            jsonStore = new JSONStore();
-            storedRepos = new ArrayList<>(jsonStore.getStoredRepos());
+            repoStore = storeFormat == StoreFormat.JSON
+                ? new JSONStore()
+                : new BinaryStore(storeFormat == StoreFormat.BINARY_JOURNAL);
+            storedRepos = new ArrayList<>(repoStore.getStoredRepos());
         }
     }
 
@@ -60,57 +81,147 @@ public class RepoIO {
     }
 
     public CompletableFuture<Model> openRepository(String repoId) {
+        return openRepository(repoId, partialModel -> {});
+    }
+
+    /**
+     * Opens a repository, from the store if it is stored, otherwise by downloading it.
+     *
+     * @param partialModelHandler Receives models of the repository holding the issues downloaded so far,
+     *                            while it is being downloaded.
+     */
+    public CompletableFuture<Model> openRepository(String repoId, Consumer<Model> partialModelHandler) {
         if (storedRepos.contains(repoId)) {
+            // The download is not waited for within the callback, as that would block the store,
+            // which the download uses
             return loadRepoFromStoreAsync(repoId)
-                    .exceptionally(e -> downloadRepoFromSourceBlocking(repoId));
+                    .thenApply(CompletableFuture::completedFuture)
+                    .exceptionally(e -> {
+                        logger.info(HTLog.format(repoId, "Unable to load from store; downloading instead"));
+                        return downloadRepoFromSourceAsync(repoId, partialModelHandler);
+                    })
+                    .thenCompose(model -> model);
         } else {
-            return downloadRepoFromSourceAsync(repoId);
+            return downloadRepoFromSourceAsync(repoId, partialModelHandler);
         }
     }
 
     private CompletableFuture<Model> loadRepoFromStoreAsync(String repoId) {
-        return jsonStore.loadRepository(repoId)
+        long start = System.currentTimeMillis();
+        return repoStore.loadRepository(repoId)
+                .thenApply(model -> {
+                    // Including the time spent waiting behind other tasks of the store
+                    logger.info(HTLog.format(repoId, "Loaded %d issues from store in %d ms",
+                        model.getIssues().size(), System.currentTimeMillis() - start));
+                    return model;
+                })
                 .thenCompose(this::updateModel);
     }
 
-    private CompletableFuture<Model> downloadRepoFromSourceAsync(String repoId) {
+    /**
+     * Downloads a repository, resuming after the pages of issues stored by an earlier download
+     * if it was interrupted. Each page is stored as it arrives, until the whole repository is.
+     * If the download is interrupted again, the issues downloaded so far are kept.
+     */
+    private CompletableFuture<Model> downloadRepoFromSourceAsync(String repoId,
+                                                                 Consumer<Model> partialModelHandler) {
         UI.status.displayMessage("Downloading " + repoId);
-        return repoSource.downloadRepository(repoId)
+        PartialModels partialModels = new PartialModels(repoId, partialModelHandler);
+        return repoStore.loadIssuePages(repoId)
+                .thenCompose(downloadedPages -> {
+                    partialModels.add(downloadedPages);
+                    return repoSource.downloadRepository(repoId, downloadedPages, page -> {
+                        repoStore.saveIssuePage(page);
+                        partialModels.add(Collections.singletonList(page));
+                    });
+                })
                 .thenCompose(this::updateModel)
                 .thenApply(model -> {
+                    repoStore.removeIssuePages(repoId);
                     storedRepos.add(repoId);
                     return model;
                 })
-                .exceptionally(withResult(new Model(repoId)));
-    }
-
-    private Model downloadRepoFromSourceBlocking(String repoId) {
-        try {
-            return downloadRepoFromSourceAsync(repoId).get();
-        } catch (ExecutionException | InterruptedException e) {
-            logger.info("Error while downloading " + repoId);
-            logger.error(e.getLocalizedMessage());
-
-            return new Model(repoId);
-        }
+                .exceptionally(e -> {
+                    logger.error(e.getLocalizedMessage(), e);
+                    partiallyDownloadedRepos.add(repoId);
+                    return partialModels.getModel();
+                });
     }
 
     public CompletableFuture<Model> updateModel(Model model) {
         return repoSource.updateModel(model)
             .thenApply(newModel -> {
-                UI.status.displayMessage(model.getRepoId() + " is up to date!");
-                if (!model.equals(newModel)) {
-                    jsonStore.saveRepository(newModel.getRepoId(), new SerializableModel(newModel));
+                String repoId = model.getRepoId();
+                UI.status.displayMessage(repoId + " is up to date!");
+                // The model left by an interrupted download is stored in full once it has been updated,
+                // after which the pages it was downloaded from are no longer needed
+                boolean wasPartial = partiallyDownloadedRepos.remove(repoId);
+                if (wasPartial || !model.equals(newModel)) {
+                    repoStore.saveRepositoryUpdate(model, newModel);
                 } else {
-                    logger.info(HTLog.format(model.getRepoId(),
-                        "Nothing changed; not writing to store"));
+                    logger.info(HTLog.format(repoId, "Nothing changed; not writing to store"));
+                }
+                if (wasPartial) {
+                    repoStore.removeIssuePages(repoId);
+                    if (!storedRepos.contains(repoId)) {
+                        storedRepos.add(repoId);
+                    }
                 }
                 return newModel;
-            }).exceptionally(withResult(new Model(model.getRepoId())));
+            })
+            // The model is left as it was if it could not be updated
+            .exceptionally(withResult(model));
     }
 
-    public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(String repoId, List<Integer> issues) {
-        return repoSource.downloadMetadata(repoId, issues);
+    /**
+     * Downloads the metadata of the given issues, only revalidating the metadata stored from earlier
+     * downloads, and stores the metadata which has changed. Cancelling the result abandons the issues
+     * whose metadata has not been downloaded yet.
+     *
+     * @param issues The issues, with the times they were last updated.
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(
+        String repoId, Map<Integer, LocalDateTime> issues, Consumer<Map<Integer, IssueMetadata>> metadataConsumer) {
+        CompletableFuture<Map<Integer, IssueMetadata>> response = new CompletableFuture<>();
+        repoStore.loadMetadata(repoId, issues.keySet())
+            // Without the stored metadata, all of it is downloaded afresh
+            .exceptionally(withResult(new HashMap<>()))
+            .thenAccept(stored -> {
+                if (response.isCancelled()) {
+                    return;
+                }
+                CompletableFuture<Map<Integer, CachedMetadata>> download =
+                    repoSource.downloadMetadata(repoId, issues, stored, metadata -> {
+                        Map<Integer, CachedMetadata> changed = metadata.entrySet().stream()
+                            .filter(entry -> entry.getValue() != stored.get(entry.getKey()))
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                        if (!changed.isEmpty()) {
+                            repoStore.saveMetadata(repoId, changed);
+                        }
+                        metadataConsumer.accept(toIssueMetadata(metadata));
+                    });
+                response.whenComplete((metadata, failure) -> {
+                    if (response.isCancelled()) {
+                        download.cancel(false);
+                    }
+                });
+                download.whenComplete((metadata, failure) -> {
+                    if (failure == null) {
+                        response.complete(toIssueMetadata(metadata));
+                    } else {
+                        response.completeExceptionally(failure);
+                    }
+                });
+            }).exceptionally(failure -> {
+                response.completeExceptionally(failure);
+                return null;
+            });
+        return response;
+    }
+
+    private static Map<Integer, IssueMetadata> toIssueMetadata(Map<Integer, CachedMetadata> metadata) {
+        return metadata.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getMetadata()));
     }
 
     public CompletableFuture<List<String>> replaceIssueLabels(TurboIssue issue, List<String> labels) {
@@ -121,4 +232,65 @@ public class RepoIO {
         return repoSource.getRateLimitResetTime();
     }
 
+    /**
+     * Derives models of a repository from the pages of issues downloaded so far. Each model is
+     * derived from the previous one, and models are handed over at most once per interval, so
+     * that the UI only has to take in the issues added in between.
+     */
+    private static class PartialModels {
+        private static final long INTERVAL_MILLIS = 1000;
+
+        private final String repoId;
+        private final Consumer<Model> handler;
+
+        private final Map<Integer, TurboIssue> issues = new LinkedHashMap<>();
+        private Set<Integer> added = new HashSet<>();
+        private Set<Integer> changed = new HashSet<>();
+
+        private Model latest = null;
+        private long lastHandedOver = 0;
+
+        private PartialModels(String repoId, Consumer<Model> handler) {
+            this.repoId = repoId;
+            this.handler = handler;
+        }
+
+        private synchronized void add(List<IssuePage> pages) {
+            for (IssuePage page : pages) {
+                for (TurboIssue issue : page.getIssues()) {
+                    if (issues.put(issue.getId(), issue) == null) {
+                        added.add(issue.getId());
+                    } else if (!added.contains(issue.getId())) {
+                        changed.add(issue.getId());
+                    }
+                }
+            }
+            if (!pages.isEmpty() && System.currentTimeMillis() - lastHandedOver >= INTERVAL_MILLIS) {
+                handOver();
+            }
+        }
+
+        private void handOver() {
+            lastHandedOver = System.currentTimeMillis();
+            handler.accept(getModel());
+        }
+
+        /**
+         * @return a model holding all issues added so far
+         */
+        private synchronized Model getModel() {
+            if (latest != null && added.isEmpty() && changed.isEmpty()) {
+                return latest;
+            }
+            List<TurboIssue> snapshot = new ArrayList<>(issues.values());
+            latest = latest == null
+                ? new Model(repoId, snapshot, new ArrayList<>(), new ArrayList<>(), new ArrayList<>())
+                : new Model(latest, snapshot, latest.getLabels(), latest.getMilestones(), latest.getUsers(),
+                    UpdateSignature.EMPTY, ChangeSet.of(new HashSet<>(issues.keySet()), added, changed));
+            added = new HashSet<>();
+            changed = new HashSet<>();
+            return latest;
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package backend;
 
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
 import javafx.application.Platform;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -7,6 +8,8 @@ import ui.UI;
 import util.events.ModelUpdatedEvent;
 import util.events.UpdateRateLimitsEvent;
 
+import java.util.List;
+
 public class UIManager {
 
     private final UI ui;
@@ -20,6 +23,24 @@ public class UIManager {
             ui.triggerEvent(new ModelUpdatedEvent(models, hasMetadata)));
     }
 
+    /**
+     * Triggers an event carrying only the given changes to the model, so that the
+     * UI may update just what they affect.
+     */
+    public void update(MultiModel models, List<ModelDelta> changes) {
+        Platform.runLater(() ->
+            ui.triggerEvent(new ModelUpdatedEvent(models, changes)));
+    }
+
+    /**
+     * Triggers an event carrying the issues whose metadata has arrived, so that the UI
+     * may update just the parts which show metadata.
+     */
+    public void updateMetadata(MultiModel models, List<ModelDelta> changes) {
+        Platform.runLater(() ->
+            ui.triggerEvent(new ModelUpdatedEvent(models, changes, true)));
+    }
+
     public void updateNow(MultiModel models) {
         ui.triggerEvent(new ModelUpdatedEvent(models, false));
     }
@@ -0,0 +1,75 @@
+package backend.binary;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Appends the changes made to a repository by an update to its journal, as a record
+ * of the generation of its file.
+ */
+class AppendTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(AppendTask.class);
+
+    private final Journal journal;
+    private final byte[] changes;
+
+    public AppendTask(String repoId, Journal journal, byte[] changes) {
+        super(repoId);
+        this.journal = journal;
+        this.changes = changes;
+    }
+
+    @Override
+    public void run() {
+        long generation = journal.getGeneration();
+        if (generation == NO_GENERATION) {
+            // The file the changes were made to could not be written; the next update is written in full
+            journal.invalidate();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ByteBuffer record = encodeRecord(generation, changes);
+        try (FileChannel channel = FileChannel.open(RepoStore.getRepoFile(repoId, JOURNAL_EXTENSION).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            journal.invalidate();
+            return;
+        }
+        logger.info(HTLog.format(repoId, "Appended %d bytes to binary store journal in %d ms",
+            changes.length, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * @return the record, with a checksum of its generation and changes
+     */
+    static ByteBuffer encodeRecord(long generation, byte[] changes) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + changes.length);
+        record.putInt(changes.length).putInt(0).putLong(generation).put(changes);
+        record.putInt(4, checksum(record.array(), 8, 8 + changes.length));
+        record.flip();
+        return record;
+    }
+
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
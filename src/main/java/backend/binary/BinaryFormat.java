@@ -0,0 +1,60 @@
+package backend.binary;
+
+/**
+ * The layout of repositories stored in binary, which is written and read as a stream:
+ *
+ * - A header: the magic number, the format version, the repository id, and the generation of the
+ *   file, so that stored repositories may be found without reading the rest of their files.
+ * - The update signature, then the users, labels, milestones and issues, each preceded by
+ *   their number, then the text index if it was built.
+ *
+ * Strings which recur across issues (logins, label names, colours) are written once, and referred
+ * to by their position in the order they were first written after that. Text (titles, descriptions)
+ * is written in full as UTF-8. Integers which are usually small are written in 7 bits per byte.
+ *
+ * The changes made by later updates may be appended to a journal next to the file, rather than
+ * writing it again. Each record of the journal is framed by its length and a checksum, followed by
+ * the generation of the file it applies to, then the update signature, the users, labels and
+ * milestones if they changed, the ids of the issues removed, and the issues added or changed.
+ * A record which was cut short, or applies to an earlier generation, ends the journal.
+ *
+ * Files of a version this does not know are not read; the repository is downloaded again.
+ */
+final class BinaryFormat {
+
+    static final String EXTENSION = "bin";
+    static final String JOURNAL_EXTENSION = EXTENSION + ".journal";
+    static final String TEMPORARY_EXTENSION = EXTENSION + ".tmp";
+
+    // "HTRS", for HubTurbo repository store
+    static final int MAGIC = 0x48545253;
+    static final int VERSION = 2;
+    // The first version, which had no generation, and so no journal
+    static final int VERSION_WITHOUT_JOURNAL = 1;
+
+    // The generation of files which have no journal
+    static final long NO_GENERATION = 0;
+
+    // The length and checksum of a journal record, and the generation it applies to
+    static final int RECORD_HEADER_SIZE = 4 + 4 + 8;
+
+    // Strings are written as null, a new string, or the index of an earlier string plus this
+    static final int STRING_NULL = 0;
+    static final int STRING_NEW = 1;
+    static final int STRING_REFERENCE = 2;
+
+    // Dates which are absent
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    // Bounds beyond which a file is taken to be corrupt, rather than allocating that much
+    static final int MAX_TEXT_LENGTH = 64 * 1024 * 1024;
+    static final int MAX_COUNT = 16 * 1024 * 1024;
+
+    // The magic number, the version, the repository id written as by writeUTF, and the generation
+    static final int MAX_HEADER_SIZE = 4 + 2 + 2 + 0xffff + 8;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinaryFormat() {
+    }
+}
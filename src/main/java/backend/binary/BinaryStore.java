@@ -0,0 +1,151 @@
+package backend.binary;
+
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores repositories in the compact binary format described in BinaryFormat, which is smaller and faster
+ * to read and write than JSON. Stored repositories are found by reading only the headers of their files.
+ *
+ * If journaled, the changes made by an update are appended to a journal rather than writing the whole
+ * repository again, until the journal has grown large enough that it is compacted by doing so.
+ *
+ * Repositories stored as JSON by an earlier version are loaded from there until they are next saved.
+ * Issue pages and metadata are stored as in JSONStore.
+ */
+public class BinaryStore extends JSONStore {
+
+    private static final Logger logger = HTLog.get(BinaryStore.class);
+
+    private final boolean journaled;
+    private final Map<String, Journal> journals = new HashMap<>();
+
+    public BinaryStore() {
+        this(false);
+    }
+
+    public BinaryStore(boolean journaled) {
+        this.journaled = journaled;
+    }
+
+    @Override
+    public CompletableFuture<Model> loadRepository(String repoId) {
+        CompletableFuture<Model> response = new CompletableFuture<>();
+        addTask(new ReadTask(repoId, response, getJournal(repoId), () -> loadJSONRepository(repoId, response)));
+        return response;
+    }
+
+    /**
+     * Loads a repository which has not been stored in binary yet from JSON.
+     */
+    private void loadJSONRepository(String repoId, CompletableFuture<Model> response) {
+        super.loadRepository(repoId).whenComplete((model, failure) -> {
+            if (failure == null) {
+                response.complete(model);
+            } else {
+                response.completeExceptionally(failure);
+            }
+        });
+    }
+
+    @Override
+    public void saveRepository(String repoId, SerializableModel model) {
+        Journal journal = getJournal(repoId);
+        synchronized (journal) {
+            journal.snapshotQueued(null);
+            addTask(new WriteTask(repoId, model, journal));
+        }
+    }
+
+    @Override
+    public void saveRepositoryUpdate(Model previous, Model updated) {
+        if (!journaled) {
+            super.saveRepositoryUpdate(previous, updated);
+            return;
+        }
+        String repoId = updated.getRepoId();
+        Journal journal = getJournal(repoId);
+        // Held while the task is added, so that the tasks run in the order the updates were saved in
+        synchronized (journal) {
+            if (journal.isStored(previous) && updated.getIssueChanges().isPresent()) {
+                Optional<byte[]> changes = encodeChanges(previous, updated);
+                if (changes.isPresent() && journal.hasRoomFor(changes.get().length)) {
+                    journal.appended(updated, changes.get().length);
+                    addTask(new AppendTask(repoId, journal, changes.get()));
+                    return;
+                }
+            }
+            journal.snapshotQueued(updated);
+            addTask(new WriteTask(repoId, new SerializableModel(updated), journal));
+        }
+    }
+
+    private static Optional<byte[]> encodeChanges(Model previous, Model updated) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            new ModelWriter(output).writeUpdate(previous, updated);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return Optional.empty();
+        }
+        return Optional.of(output.toByteArray());
+    }
+
+    private synchronized Journal getJournal(String repoId) {
+        return journals.computeIfAbsent(repoId, id -> new Journal());
+    }
+
+    @Override
+    public List<String> getStoredRepos() {
+        List<String> result = new ArrayList<>();
+        Set<String> jsonFiles = new HashSet<>();
+        for (File file : RepoStore.getRepoFiles(BinaryFormat.EXTENSION)) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                String repoId = new ModelReader(readHeaderBytes(channel)).readHeader();
+                if (file.getName().equalsIgnoreCase(RepoStore.getRepoFile(repoId, BinaryFormat.EXTENSION).getName())) {
+                    result.add(repoId);
+                    jsonFiles.add(RepoStore.escapeRepoName(repoId).toLowerCase());
+                }
+            } catch (IOException e) {
+                logger.error("Unable to load repository from " + file.getName() + ": " + e.getLocalizedMessage());
+            }
+        }
+        // Those stored as JSON only are still to be migrated
+        result.addAll(getStoredJSONRepos(path ->
+            !jsonFiles.contains(String.valueOf(path.getFileName()).toLowerCase())));
+        return result;
+    }
+
+    /**
+     * @return the first bytes of a file, which hold at least its header, if it has one
+     */
+    private static ByteBuffer readHeaderBytes(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(channel.size(), BinaryFormat.MAX_HEADER_SIZE));
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                break;
+            }
+        }
+        header.flip();
+        return header;
+    }
+}
@@ -0,0 +1,84 @@
+package backend.binary;
+
+import backend.resource.Model;
+
+import java.lang.ref.WeakReference;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Keeps track of the version of a repository held by its file and journal, so that the changes made
+ * by updating that version may be appended to the journal rather than writing the whole file again.
+ *
+ * Whether an update is appended is decided when it is saved; the generation of the file, which its
+ * records refer to, is known once the file is written or read. If writing fails, the next update is
+ * written in full, so that the journal never skips any changes.
+ */
+class Journal {
+
+    // The journal is compacted into the file once it would grow beyond this fraction of its size,
+    // or this many bytes for small repositories
+    private static final double MAX_JOURNAL_RATIO = 0.5;
+    private static final long MIN_JOURNAL_LIMIT = 16 * 1024;
+
+    // Weak, as it is only compared with the model an update was made from
+    private WeakReference<Model> stored = new WeakReference<>(null);
+    private long snapshotSize = 0;
+    private long journalSize = 0;
+    private long generation = NO_GENERATION;
+
+    /**
+     * @return whether the given model is the version of the repository which is stored, or will be
+     * once the tasks saving it have run
+     */
+    synchronized boolean isStored(Model model) {
+        Model current = stored.get();
+        return current != null && (current == model || current.equals(model));
+    }
+
+    /**
+     * @return whether a record of the given size may be appended without compacting the journal
+     */
+    synchronized boolean hasRoomFor(int size) {
+        return journalSize + RECORD_HEADER_SIZE + size <= Math.max(snapshotSize * MAX_JOURNAL_RATIO, MIN_JOURNAL_LIMIT);
+    }
+
+    synchronized void appended(Model model, int size) {
+        stored = new WeakReference<>(model);
+        journalSize += RECORD_HEADER_SIZE + size;
+    }
+
+    /**
+     * @param model The version of the repository to be written in full, or null if unknown.
+     */
+    synchronized void snapshotQueued(Model model) {
+        stored = new WeakReference<>(model);
+        journalSize = 0;
+    }
+
+    synchronized void snapshotWritten(long generation, long size) {
+        this.generation = generation;
+        snapshotSize = size;
+    }
+
+    synchronized void loaded(Model model, long generation, long snapshotSize, long journalSize) {
+        // Files of the version without a journal are written in full when next updated
+        stored = new WeakReference<>(generation == NO_GENERATION ? null : model);
+        this.generation = generation;
+        this.snapshotSize = snapshotSize;
+        this.journalSize = journalSize;
+    }
+
+    /**
+     * Records that the file or journal could not be written, so that nothing more is appended
+     * to the journal until the file is written in full again.
+     */
+    synchronized void invalidate() {
+        stored = new WeakReference<>(null);
+        generation = NO_GENERATION;
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,420 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TextIndex;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import util.StringPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Reads a repository, or the changes made to it by an update, in the binary format described in BinaryFormat.
+ * Recurring strings are read once, and pooled, so the resources of the model share them with those of others.
+ *
+ * The descriptions of issues are not decoded until they are first needed, so that reading does not take longer
+ * the more text a repository has. Their bytes are copied out of the input, which may be discarded once read.
+ */
+class ModelReader {
+
+    /**
+     * A repository as it is read, to which the changes in its journal may be applied
+     * before the model is built.
+     */
+    static class StoredModel {
+        private final String repoId;
+        private final long generation;
+        private UpdateSignature updateSignature;
+        private List<TurboUser> users;
+        private List<TurboLabel> labels;
+        private List<TurboMilestone> milestones;
+        private final Map<Integer, TurboIssue> issues = new LinkedHashMap<>();
+        private Optional<TextIndex> textIndex = Optional.empty();
+
+        private StoredModel(String repoId, long generation) {
+            this.repoId = repoId;
+            this.generation = generation;
+        }
+
+        String getRepoId() {
+            return repoId;
+        }
+
+        /**
+         * @return the generation of the file the repository was read from, which the records
+         * of its journal refer to
+         */
+        long getGeneration() {
+            return generation;
+        }
+
+        Model toModel() {
+            return new Model(repoId, new ArrayList<>(issues.values()), labels, milestones, users, updateSignature,
+                textIndex);
+        }
+    }
+
+    private final ByteBuffer input;
+
+    // The strings read so far, in the order they were written
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * @param input The bytes to read from its position.
+     */
+    ModelReader(ByteBuffer input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads the header of a stored repository.
+     *
+     * @return the id of the repository
+     * @throws IOException if the stream does not hold a repository of a version this can read
+     */
+    String readHeader() throws IOException {
+        try {
+            return readStoredHeader().repoId;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Header cut short", e);
+        }
+    }
+
+    private StoredModel readStoredHeader() throws IOException {
+        if (input.getInt() != MAGIC) {
+            throw new IOException("Not a stored repository");
+        }
+        int version = readUnsignedShort();
+        if (version != VERSION && version != VERSION_WITHOUT_JOURNAL) {
+            throw new IOException("Unsupported store version " + version);
+        }
+        String repoId = readUTF();
+        return new StoredModel(repoId, version == VERSION_WITHOUT_JOURNAL ? NO_GENERATION : input.getLong());
+    }
+
+    /**
+     * @throws IOException if the stream does not hold a repository of a version this can read, or it is corrupted
+     */
+    Model read() throws IOException {
+        return readStored().toModel();
+    }
+
+    /**
+     * Reads a repository, to which the changes in its journal may then be applied.
+     *
+     * @throws IOException if the stream does not hold a repository of a version this can read, or it is corrupted
+     */
+    StoredModel readStored() throws IOException {
+        try {
+            return readStoredModel();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("File cut short", e);
+        }
+    }
+
+    private StoredModel readStoredModel() throws IOException {
+        StoredModel model = readStoredHeader();
+        model.updateSignature = readUpdateSignature();
+        model.users = readUsers(model.repoId);
+        model.labels = readLabels(model.repoId);
+        model.milestones = readMilestones(model.repoId);
+        int issueCount = readSize();
+        for (int i = 0; i < issueCount; i++) {
+            TurboIssue issue = readIssue(model.repoId);
+            model.issues.putIfAbsent(issue.getId(), issue);
+        }
+        if (readBoolean()) {
+            model.textIndex = Optional.of(new TextIndex(readPostings(), readPostings()));
+        }
+        return model;
+    }
+
+    /**
+     * Applies the changes in the body of a journal record to a repository.
+     *
+     * @throws IOException if the record is corrupted, in which case the repository may be partly changed
+     */
+    void readUpdate(StoredModel model) throws IOException {
+        try {
+            readUpdateOf(model);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Record cut short", e);
+        }
+    }
+
+    private void readUpdateOf(StoredModel model) throws IOException {
+        model.updateSignature = readUpdateSignature();
+        if (readBoolean()) {
+            model.users = readUsers(model.repoId);
+        }
+        if (readBoolean()) {
+            model.labels = readLabels(model.repoId);
+        }
+        if (readBoolean()) {
+            model.milestones = readMilestones(model.repoId);
+        }
+
+        int removedCount = readSize();
+        for (int i = 0; i < removedCount; i++) {
+            model.issues.remove(input.getInt());
+        }
+        int issueCount = readSize();
+        for (int i = 0; i < issueCount; i++) {
+            // Changed issues keep their place, and added ones follow the rest
+            TurboIssue issue = readIssue(model.repoId);
+            model.issues.put(issue.getId(), issue);
+        }
+
+        if (removedCount > 0 || issueCount > 0) {
+            // Rebuilt when needed
+            model.textIndex = Optional.empty();
+        }
+    }
+
+    private List<TurboUser> readUsers(String repoId) throws IOException {
+        int userCount = readSize();
+        List<TurboUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new TurboUser(repoId, readString(), readText(), readText()));
+        }
+        return users;
+    }
+
+    private List<TurboLabel> readLabels(String repoId) throws IOException {
+        int labelCount = readSize();
+        List<TurboLabel> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            String name = readString();
+            labels.add(new TurboLabel(repoId, readString(), name));
+        }
+        return labels;
+    }
+
+    private List<TurboMilestone> readMilestones(String repoId) throws IOException {
+        int milestoneCount = readSize();
+        List<TurboMilestone> milestones = new ArrayList<>(milestoneCount);
+        for (int i = 0; i < milestoneCount; i++) {
+            TurboMilestone milestone = new TurboMilestone(repoId, input.getInt(), readString());
+            milestone.setDueDate(readDate());
+            milestone.setDescription(readText());
+            milestone.setOpen(readBoolean());
+            milestone.setOpenIssues(readCount());
+            milestone.setClosedIssues(readCount());
+            milestones.add(milestone);
+        }
+        return milestones;
+    }
+
+    private TurboIssue readIssue(String repoId) throws IOException {
+        int id = input.getInt();
+        String title = readText();
+        String creator = readString();
+        LocalDateTime createdAt = readDateTime();
+        boolean isPullRequest = readBoolean();
+        TurboIssue issue = new TurboIssue(repoId, id, title, creator, createdAt, isPullRequest);
+
+        issue.setLazyDescription(readLazyText());
+        issue.setUpdatedAt(readDateTime());
+        issue.setCommentCount(readCount());
+        issue.setOpen(readBoolean());
+        String assignee = readString();
+        if (assignee != null) {
+            issue.setAssignee(assignee);
+        }
+        int labelCount = readSize();
+        List<String> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            labels.add(readString());
+        }
+        issue.setLabels(labels);
+        if (readBoolean()) {
+            issue.setMilestone(input.getInt());
+        }
+        return issue;
+    }
+
+    private UpdateSignature readUpdateSignature() throws IOException {
+        if (readBoolean()) {
+            return UpdateSignature.EMPTY;
+        }
+        String issuesETag = readText();
+        String labelsETag = readText();
+        String milestonesETag = readText();
+        String collaboratorsETag = readText();
+        long lastCheckTime = input.getLong();
+        return new UpdateSignature(issuesETag, labelsETag, milestonesETag, collaboratorsETag,
+            lastCheckTime == NO_DATE ? null : new Date(lastCheckTime));
+    }
+
+    private Map<String, int[]> readPostings() throws IOException {
+        int wordCount = readSize();
+        Map<String, int[]> words = new HashMap<>();
+        for (int i = 0; i < wordCount; i++) {
+            String word = readString();
+            int[] ids = new int[readSize()];
+            int previous = 0;
+            for (int j = 0; j < ids.length; j++) {
+                previous += readCount();
+                ids[j] = previous;
+            }
+            words.put(word, ids);
+        }
+        return words;
+    }
+
+    private String readString() throws IOException {
+        int code = readCount();
+        if (code == STRING_NULL) {
+            return null;
+        } else if (code == STRING_NEW) {
+            String string = StringPool.intern(readBytes(readCount()));
+            strings.add(string);
+            return string;
+        } else if (code - STRING_REFERENCE < strings.size()) {
+            return strings.get(code - STRING_REFERENCE);
+        } else {
+            throw new IOException("Reference to unknown string " + (code - STRING_REFERENCE));
+        }
+    }
+
+    private String readText() throws IOException {
+        int length = readCount();
+        return length == 0 ? null : readBytes(length - 1);
+    }
+
+    /**
+     * Reads the bytes of text, which is decoded when it is first needed. The bytes are copied, so that
+     * the input is not kept for as long as the text is not decoded.
+     */
+    private Supplier<String> readLazyText() throws IOException {
+        int length = readCount();
+        if (length == 0) {
+            return () -> null;
+        }
+        byte[] text = new byte[length - 1];
+        slice(length - 1).get(text);
+        return () -> new String(text, StandardCharsets.UTF_8);
+    }
+
+    private String readBytes(int length) throws IOException {
+        return decode(slice(length));
+    }
+
+    /**
+     * @return the next bytes, which are skipped over
+     */
+    private ByteBuffer slice(int length) throws IOException {
+        if (length > MAX_TEXT_LENGTH || length > input.remaining()) {
+            throw new IOException("String of " + length + " bytes");
+        }
+        ByteBuffer bytes = input.slice();
+        bytes.limit(length);
+        input.position(input.position() + length);
+        return bytes;
+    }
+
+    private static String decode(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+                StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a string as written by DataOutput.writeUTF.
+     */
+    private String readUTF() throws IOException {
+        int length = readUnsignedShort();
+        if (length > input.remaining()) {
+            throw new IOException("String of " + length + " bytes");
+        }
+        byte[] bytes = new byte[2 + length];
+        bytes[0] = (byte) (length >> 8);
+        bytes[1] = (byte) length;
+        input.get(bytes, 2, length);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+
+    private int readUnsignedShort() {
+        return input.getShort() & 0xffff;
+    }
+
+    private boolean readBoolean() {
+        return input.get() != 0;
+    }
+
+    private LocalDateTime readDateTime() throws IOException {
+        long seconds = input.getLong();
+        if (seconds == NO_DATE) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofEpochSecond(seconds, readCount(), ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Optional<LocalDate> readDate() throws IOException {
+        long day = input.getLong();
+        try {
+            return day == NO_DATE ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(day));
+        } catch (DateTimeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads a non-negative integer written in 7 bits per byte.
+     */
+    private int readCount() throws IOException {
+        int count = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.get() & 0xff;
+            count |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (count < 0) {
+                    throw new IOException("Negative count");
+                }
+                return count;
+            }
+        }
+        throw new IOException("Malformed count");
+    }
+
+    /**
+     * Reads the number of elements which follow.
+     */
+    private int readSize() throws IOException {
+        int size = readCount();
+        if (size > MAX_COUNT) {
+            throw new IOException("Size out of range: " + size);
+        }
+        return size;
+    }
+}
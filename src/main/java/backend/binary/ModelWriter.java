@@ -0,0 +1,286 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableIssue;
+import backend.resource.serialization.SerializableLabel;
+import backend.resource.serialization.SerializableMilestone;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableTextIndex;
+import backend.resource.serialization.SerializableUser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Writes a repository, or the changes made to it by an update, in the binary format described in BinaryFormat.
+ */
+class ModelWriter {
+
+    private final DataOutputStream output;
+
+    // The index of each string written so far
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    /**
+     * @param output The stream to write to, which is buffered by the writer and not closed.
+     */
+    ModelWriter(OutputStream output) {
+        this.output = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+    }
+
+    /**
+     * @param generation Identifies this version of the file, which the records of its journal refer to.
+     * @return the number of bytes written
+     */
+    int write(SerializableModel model, long generation) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeUTF(model.repoId);
+        output.writeLong(generation);
+
+        writeUpdateSignature(model.updateSignature);
+        writeUsers(model.users);
+        writeLabels(model.labels);
+        writeMilestones(model.milestones);
+        writeCount(model.issues.size());
+        for (SerializableIssue issue : model.issues) {
+            writeIssue(issue);
+        }
+        writeTextIndex(model.textIndex);
+
+        output.flush();
+        return output.size();
+    }
+
+    /**
+     * Writes the changes made to a model by an update, as the body of a journal record.
+     *
+     * @param previous The model before the update.
+     * @param updated The model produced by the update, with the issue changes it made.
+     * @return the number of bytes written
+     */
+    int writeUpdate(Model previous, Model updated) throws IOException {
+        assert updated.getIssueChanges().isPresent();
+
+        writeUpdateSignature(updated.getUpdateSignature());
+
+        boolean usersChanged = !previous.getUsers().equals(updated.getUsers());
+        output.writeBoolean(usersChanged);
+        if (usersChanged) {
+            writeUsers(updated.getUsers().stream().map(SerializableUser::new).collect(Collectors.toList()));
+        }
+        boolean labelsChanged = !previous.getLabels().equals(updated.getLabels());
+        output.writeBoolean(labelsChanged);
+        if (labelsChanged) {
+            writeLabels(updated.getLabels().stream().map(SerializableLabel::new).collect(Collectors.toList()));
+        }
+        boolean milestonesChanged = !previous.getMilestones().equals(updated.getMilestones());
+        output.writeBoolean(milestonesChanged);
+        if (milestonesChanged) {
+            writeMilestones(updated.getMilestones().stream()
+                .map(SerializableMilestone::new).collect(Collectors.toList()));
+        }
+
+        Set<Integer> removed = updated.getIssueChanges().get().getRemoved();
+        writeCount(removed.size());
+        for (int id : removed) {
+            output.writeInt(id);
+        }
+
+        // Written in the order they appear in, so that the issues are in the same order when read
+        Set<Integer> added = updated.getIssueChanges().get().getAdded();
+        Set<Integer> changed = updated.getIssueChanges().get().getChanged();
+        List<TurboIssue> issues = new ArrayList<>();
+        if (!added.isEmpty() || !changed.isEmpty()) {
+            for (TurboIssue issue : updated.getIssues()) {
+                if (added.contains(issue.getId()) || changed.contains(issue.getId())) {
+                    issues.add(issue);
+                }
+            }
+        }
+        writeCount(issues.size());
+        for (TurboIssue issue : issues) {
+            writeIssue(new SerializableIssue(issue));
+        }
+
+        output.flush();
+        return output.size();
+    }
+
+    private void writeUsers(List<SerializableUser> users) throws IOException {
+        writeCount(users.size());
+        for (SerializableUser user : users) {
+            writeString(user.getLoginName());
+            writeText(user.getRealName());
+            writeText(user.getAvatarURL());
+        }
+    }
+
+    private void writeLabels(List<SerializableLabel> labels) throws IOException {
+        writeCount(labels.size());
+        for (SerializableLabel label : labels) {
+            writeString(label.getActualName());
+            writeString(label.getColour());
+        }
+    }
+
+    private void writeMilestones(List<SerializableMilestone> milestones) throws IOException {
+        writeCount(milestones.size());
+        for (SerializableMilestone milestone : milestones) {
+            output.writeInt(milestone.getId());
+            writeString(milestone.getTitle());
+            writeDate(milestone.getDueDate());
+            writeText(milestone.getDescription());
+            output.writeBoolean(milestone.isOpen());
+            writeCount(milestone.getOpenIssues());
+            writeCount(milestone.getClosedIssues());
+        }
+    }
+
+    private void writeIssue(SerializableIssue issue) throws IOException {
+        output.writeInt(issue.getId());
+        writeText(issue.getTitle());
+        writeString(issue.getCreator());
+        writeDateTime(issue.getCreatedAt());
+        output.writeBoolean(issue.isPullRequest());
+        writeText(issue.getDescription());
+        writeDateTime(issue.getUpdatedAt());
+        writeCount(issue.getCommentCount());
+        output.writeBoolean(issue.isOpen());
+        writeString(issue.getAssignee().orElse(null));
+        writeCount(issue.getLabels().size());
+        for (String label : issue.getLabels()) {
+            writeString(label);
+        }
+        output.writeBoolean(issue.getMilestone().isPresent());
+        if (issue.getMilestone().isPresent()) {
+            output.writeInt(issue.getMilestone().get());
+        }
+    }
+
+    private void writeUpdateSignature(UpdateSignature signature) throws IOException {
+        output.writeBoolean(signature == null || signature.isEmpty());
+        if (signature == null || signature.isEmpty()) {
+            return;
+        }
+        writeText(signature.issuesETag);
+        writeText(signature.labelsETag);
+        writeText(signature.milestonesETag);
+        writeText(signature.collaboratorsETag);
+        output.writeLong(signature.lastCheckTime == null ? NO_DATE : signature.lastCheckTime.getTime());
+    }
+
+    private void writeTextIndex(SerializableTextIndex index) throws IOException {
+        Map<String, int[]> titleWords;
+        Map<String, int[]> bodyWords;
+        try {
+            titleWords = index == null ? null : index.getTitleWords();
+            bodyWords = index == null ? null : index.getBodyWords();
+        } catch (IllegalArgumentException e) {
+            // Rebuilt when needed
+            titleWords = null;
+            bodyWords = null;
+        }
+        output.writeBoolean(titleWords != null);
+        if (titleWords != null) {
+            writePostings(titleWords);
+            writePostings(bodyWords);
+        }
+    }
+
+    /**
+     * Writes the issue ids of each word as the gaps between them.
+     */
+    private void writePostings(Map<String, int[]> words) throws IOException {
+        writeCount(words.size());
+        for (Map.Entry<String, int[]> entry : words.entrySet()) {
+            writeString(entry.getKey());
+            int[] ids = entry.getValue();
+            writeCount(ids.length);
+            int previous = 0;
+            for (int id : ids) {
+                writeCount(id - previous);
+                previous = id;
+            }
+        }
+    }
+
+    /**
+     * Writes a string which is likely to recur, only once.
+     */
+    private void writeString(String string) throws IOException {
+        if (string == null) {
+            writeCount(STRING_NULL);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeCount(STRING_REFERENCE + index);
+            return;
+        }
+        strings.put(string, strings.size());
+        writeCount(STRING_NEW);
+        writeBytes(string);
+    }
+
+    /**
+     * Writes a string which is unlikely to recur, in full, or null.
+     */
+    private void writeText(String text) throws IOException {
+        if (text == null) {
+            writeCount(0);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeCount(bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private void writeBytes(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeCount(bytes.length);
+        output.write(bytes);
+    }
+
+    private void writeDateTime(LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            output.writeLong(NO_DATE);
+            return;
+        }
+        output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        writeCount(dateTime.getNano());
+    }
+
+    private void writeDate(Optional<LocalDate> date) throws IOException {
+        output.writeLong(date != null && date.isPresent() ? date.get().toEpochDay() : NO_DATE);
+    }
+
+    /**
+     * Writes a non-negative integer in 7 bits per byte, least significant first.
+     */
+    private void writeCount(int count) throws IOException {
+        assert count >= 0;
+        while ((count & ~0x7f) != 0) {
+            output.write((count & 0x7f) | 0x80);
+            count >>>= 7;
+        }
+        output.write(count);
+    }
+}
@@ -0,0 +1,150 @@
+package backend.binary;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Reads a repository from its file, then applies the records of its journal to it.
+ *
+ * The file is read into the heap rather than mapped, as a mapping keeps the file open until it is collected,
+ * and on Windows a file which is open cannot be replaced when the repository is next saved.
+ */
+class ReadTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadTask.class);
+
+    public final CompletableFuture<Model> response;
+    private final Journal journal;
+    private final Runnable ifNotStored;
+
+    /**
+     * @param ifNotStored Run instead if the repository is not stored in binary.
+     */
+    public ReadTask(String repoId, CompletableFuture<Model> response, Journal journal, Runnable ifNotStored) {
+        super(repoId);
+        this.response = response;
+        this.journal = journal;
+        this.ifNotStored = ifNotStored;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void run() {
+        File file = RepoStore.getRepoFile(repoId, EXTENSION);
+        if (!file.exists()) {
+            ifNotStored.run();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ModelReader.StoredModel stored = readStoredOrPrevious(file);
+            int records = 0;
+            long journalSize = 0;
+            File journalFile = RepoStore.getRepoFile(repoId, JOURNAL_EXTENSION);
+            if (journalFile.exists()) {
+                ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+                records = replay(stored, bytes);
+                journalSize = bytes.position();
+                if (bytes.hasRemaining()) {
+                    truncate(journalFile, journalSize);
+                }
+            }
+
+            Model model = stored.toModel();
+            journal.loaded(model, stored.getGeneration(), file.length(), journalSize);
+            logger.info(HTLog.format(repoId, "Loaded %d issues and %d journal records from binary store in %d ms",
+                model.getIssues().size(), records, System.currentTimeMillis() - start));
+            response.complete(model);
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to load from binary store: %s", e.getLocalizedMessage()));
+            response.completeExceptionally(new BinaryLoadException());
+        }
+    }
+
+    /**
+     * Reads a repository from its file. If the file is corrupted, the version it replaced is restored and
+     * read instead; the records of the journal apply to the corrupted version, so they are then ignored.
+     */
+    private ModelReader.StoredModel readStoredOrPrevious(File file) throws IOException {
+        try {
+            return readStored(file);
+        } catch (IOException e) {
+            File previous = RepoStore.getPreviousGeneration(file);
+            if (!previous.exists()) {
+                throw e;
+            }
+            logger.warn(HTLog.format(repoId, "Restoring the previous version of the binary store: %s",
+                e.getLocalizedMessage()));
+            ModelReader.StoredModel stored = readStored(previous);
+            RepoStore.restorePreviousGeneration(file);
+            return stored;
+        }
+    }
+
+    private ModelReader.StoredModel readStored(File file) throws IOException {
+        ModelReader.StoredModel stored = new ModelReader(ByteBuffer.wrap(Files.readAllBytes(file.toPath())))
+            .readStored();
+        if (!stored.getRepoId().equals(repoId)) {
+            throw new IOException("File holds " + stored.getRepoId());
+        }
+        return stored;
+    }
+
+    /**
+     * Applies the records of a journal to a repository, up to the first which is incomplete, does not match
+     * its checksum, or applies to another generation of the file, as it was not written in full.
+     *
+     * @param bytes The journal, positioned after the records applied.
+     * @return the number of records applied
+     * @throws IOException if a complete record could not be applied
+     */
+    private int replay(ModelReader.StoredModel model, ByteBuffer bytes) throws IOException {
+        int records = 0;
+        while (bytes.remaining() >= RECORD_HEADER_SIZE) {
+            int start = bytes.position();
+            int length = bytes.getInt(start);
+            int checksum = bytes.getInt(start + 4);
+            long generation = bytes.getLong(start + 8);
+            if (length < 0 || length > bytes.remaining() - RECORD_HEADER_SIZE
+                || checksum != AppendTask.checksum(bytes.array(), start + 8, 8 + length)
+                || generation != model.getGeneration()) {
+                break;
+            }
+            ByteBuffer record = bytes.duplicate();
+            record.position(start + RECORD_HEADER_SIZE).limit(start + RECORD_HEADER_SIZE + length);
+            new ModelReader(record.slice()).readUpdate(model);
+            bytes.position(start + RECORD_HEADER_SIZE + length);
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Removes the records which were not applied, so that later records are appended after those which were.
+     */
+    private void truncate(File journalFile, long size) throws IOException {
+        logger.warn(HTLog.format(repoId, "Discarding %d bytes of binary store journal",
+            journalFile.length() - size));
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+}
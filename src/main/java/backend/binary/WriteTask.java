@@ -0,0 +1,73 @@
+package backend.binary;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static backend.binary.BinaryFormat.*;
+
+/**
+ * Writes a repository in full, replacing its file and journal.
+ *
+ * The repository is written to a temporary file which then replaces the file, so that the previous
+ * version is left as it was if writing fails. The version replaced is kept, in case the new one is
+ * found to be corrupted.
+ */
+class WriteTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WriteTask.class);
+
+    public final SerializableModel toSave;
+    private final Journal journal;
+
+    public WriteTask(String repoId, SerializableModel toSave, Journal journal) {
+        super(repoId);
+        this.toSave = toSave;
+        this.journal = journal;
+    }
+
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        File temporary = RepoStore.getRepoFile(repoId, TEMPORARY_EXTENSION);
+        long generation = newGeneration();
+        int size;
+        try {
+            try (FileOutputStream output = new FileOutputStream(temporary)) {
+                size = new ModelWriter(output).write(toSave, generation);
+                output.getFD().sync();
+            }
+            File file = RepoStore.getRepoFile(repoId, EXTENSION);
+            RepoStore.keepPreviousGeneration(file);
+            Files.move(temporary.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // The records of the journal refer to the previous generation, so they would be ignored anyway
+            Files.deleteIfExists(RepoStore.getRepoFile(repoId, JOURNAL_EXTENSION).toPath());
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            journal.invalidate();
+            temporary.delete();
+            return;
+        }
+        journal.snapshotWritten(generation, size);
+        logger.info(HTLog.format(repoId, "Written %d bytes to binary store in %d ms",
+            size, System.currentTimeMillis() - start));
+    }
+
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == NO_GENERATION);
+        return generation;
+    }
+}
@@ -2,6 +2,7 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import github.RequestScheduler;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.io.IOException;
@@ -20,4 +21,9 @@ public class CheckRateLimitTask extends GitHubRepoTask<ImmutablePair<Integer, Lo
             response.completeExceptionally(e);
         }
     }
+
+    @Override
+    public RequestScheduler.Priority getPriority() {
+        return RequestScheduler.Priority.INTERACTIVE;
+    }
 }
@@ -1,47 +1,161 @@
 package backend.github;
 
-import backend.IssueMetadata;
+import backend.CachedMetadata;
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
-import github.TurboIssueEvent;
+import github.RequestScheduler;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.egit.github.core.Comment;
 import util.HTLog;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetadata>> {
+/**
+ * Downloads the metadata of issues through a MetadataFetcher, handing it over a few issues at a time
+ * as it arrives. Cancelling the response abandons the issues which have not been fetched yet.
+ *
+ * The task returns once the metadata has been requested; it is handed over from the threads it
+ * arrives on, so that no thread waits for it.
+ */
+public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, CachedMetadata>> {
 
     private static final Logger logger = HTLog.get(DownloadMetadataTask.class);
 
+    // The minimum interval between handing over metadata, in milliseconds
+    private static final long HANDOVER_INTERVAL = 500;
+
+    // Hands over metadata which has waited for the interval to pass
+    private static final ScheduledExecutorService handoverTimer =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metadata handover");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     private final String repoId;
-    private final List<Integer> issueIds;
+    private final Map<Integer, LocalDateTime> issues;
+    private final Map<Integer, CachedMetadata> storedMetadata;
+    private final MetadataFetcher fetcher;
+    private final Consumer<Map<Integer, CachedMetadata>> metadataConsumer;
+
+    // The issues still being fetched, the metadata fetched so far, and that not handed over yet,
+    // guarded by the task itself
+    private final Set<Integer> pending = new HashSet<>();
+    private final Map<Integer, CachedMetadata> result = new HashMap<>();
+    private Map<Integer, CachedMetadata> batch = new HashMap<>();
+    private long lastHandover = 0;
+    private boolean handoverScheduled = false;
 
-    public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId,
-                                List<Integer> issueIds) {
+    /**
+     * @param issues The issues whose metadata to download, with the times they were last updated.
+     * @param storedMetadata The metadata of the issues stored from earlier downloads.
+     */
+    public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId, Map<Integer, LocalDateTime> issues,
+                                Map<Integer, CachedMetadata> storedMetadata, MetadataFetcher fetcher,
+                                Consumer<Map<Integer, CachedMetadata>> metadataConsumer) {
         super(taskRunner, repo);
         this.repoId = repoId;
-        this.issueIds = issueIds;
+        this.issues = issues;
+        this.storedMetadata = storedMetadata;
+        this.fetcher = fetcher;
+        this.metadataConsumer = metadataConsumer;
     }
 
     @Override
     public void run() {
-        Map<Integer, IssueMetadata> result = new HashMap<>();
-
-        issueIds.forEach(id -> {
-            List<TurboIssueEvent> events = repo.getEvents(repoId, id);
-            List<Comment> comments = repo.getComments(repoId, id);
-            IssueMetadata metadata = new IssueMetadata(events, comments);
-            result.put(id, metadata);
+        if (issues.isEmpty()) {
+            response.complete(result);
+            return;
+        }
+        synchronized (this) {
+            pending.addAll(issues.keySet());
+            lastHandover = System.currentTimeMillis();
+        }
+        response.whenComplete((metadata, failure) -> {
+            if (response.isCancelled()) {
+                releasePending();
+            }
         });
+        issues.forEach((id, updatedAt) ->
+            fetcher.fetch(repo, repoId, id, updatedAt, Optional.ofNullable(storedMetadata.get(id)))
+                .whenComplete((metadata, failure) -> arrived(id, metadata)));
+    }
+
+    @Override
+    public RequestScheduler.Priority getPriority() {
+        return RequestScheduler.Priority.METADATA_PREFETCH;
+    }
+
+    /**
+     * @param metadata The metadata of the issue, or null if it could not be fetched.
+     */
+    private void arrived(int issueId, CachedMetadata metadata) {
+        boolean done;
+        synchronized (this) {
+            if (!pending.remove(issueId) || response.isDone()) {
+                return;
+            }
+            if (metadata != null) {
+                result.put(issueId, metadata);
+                batch.put(issueId, metadata);
+            }
+            done = pending.isEmpty();
+            long sinceHandover = System.currentTimeMillis() - lastHandover;
+            if (done || sinceHandover >= HANDOVER_INTERVAL) {
+                handOver();
+            } else if (!batch.isEmpty() && !handoverScheduled) {
+                handoverScheduled = true;
+                handoverTimer.schedule(this::scheduledHandOver, HANDOVER_INTERVAL - sinceHandover,
+                    TimeUnit.MILLISECONDS);
+            }
+        }
+        if (done) {
+            logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
+                .map(entry -> "(" + entry.getValue().getMetadata().summarise() + ") for #" + entry.getKey())
+                .collect(Collectors.joining(", "))));
+            response.complete(result);
+        }
+    }
 
-        logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
-            .map(entry -> "(" + entry.getValue().summarise() + ") for #" + entry.getKey())
-            .collect(Collectors.joining(", "))));
+    private synchronized void scheduledHandOver() {
+        handoverScheduled = false;
+        if (!response.isDone()) {
+            handOver();
+        }
+    }
+
+    /**
+     * Hands over the metadata which has arrived since the last handover, if there is any.
+     * The consumer is called with the task locked, so that handovers happen one at a time.
+     */
+    private synchronized void handOver() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        metadataConsumer.accept(batch);
+        batch = new HashMap<>();
+        lastHandover = System.currentTimeMillis();
+    }
 
-        response.complete(result);
+    /**
+     * Releases the issues still being fetched outside of the lock, as the fetcher completes them under its own.
+     */
+    private void releasePending() {
+        Set<Integer> released;
+        synchronized (this) {
+            released = new HashSet<>(pending);
+            pending.clear();
+        }
+        logger.info(HTLog.format(repoId, "Metadata download cancelled with %d issues left", released.size()));
+        released.forEach(id -> fetcher.release(repoId, id));
     }
 }
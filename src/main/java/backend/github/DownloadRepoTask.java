@@ -6,27 +6,59 @@ import backend.interfaces.TaskRunner;
 import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
+import util.exceptions.DownloadInterruptedException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class DownloadRepoTask extends GitHubRepoTask<Model> {
 
     private static final Logger logger = HTLog.get(DownloadRepoTask.class);
 
     private final String repoId;
+    private final List<IssuePage> downloadedPages;
+    private final Consumer<IssuePage> pageConsumer;
 
-    public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId) {
+    /**
+     * @param downloadedPages The first pages of issues, kept from an earlier download which was
+     *                        interrupted. The download resumes from the page after them.
+     * @param pageConsumer Receives each page of issues as it is downloaded.
+     */
+    public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId,
+                            List<IssuePage> downloadedPages, Consumer<IssuePage> pageConsumer) {
         super(taskRunner, repo);
         this.repoId = repoId;
+        this.downloadedPages = downloadedPages;
+        this.pageConsumer = pageConsumer;
     }
 
     @Override
     public void run() {
-        List<TurboIssue> issues = repo.getIssues(repoId);
+        // An issue which appears on more than one page is taken from the latest
+        Map<Integer, TurboIssue> issues = new LinkedHashMap<>();
+        downloadedPages.forEach(page -> page.getIssues().forEach(issue -> issues.put(issue.getId(), issue)));
+        if (!downloadedPages.isEmpty()) {
+            logger.info(HTLog.format(repoId, "Resuming download after %d issue(s)", issues.size()));
+        }
+
+        boolean isComplete = repo.getIssues(repoId, downloadedPages.size() + 1, page -> {
+            page.getIssues().forEach(issue -> issues.put(issue.getId(), issue));
+            pageConsumer.accept(page);
+        });
+        if (!isComplete) {
+            response.completeExceptionally(
+                new DownloadInterruptedException("Download of " + repoId + " was interrupted"));
+            return;
+        }
+
         List<TurboLabel> labels = repo.getLabels(repoId);
         List<TurboMilestone> milestones = repo.getMilestones(repoId);
         List<TurboUser> users = repo.getCollaborators(repoId);
-        Model result = new Model(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
+        Model result = new Model(repoId, new ArrayList<>(issues.values()), labels, milestones, users,
+            UpdateSignature.EMPTY);
         logger.info(HTLog.format(repoId, "Downloaded " + result.summarise()));
         response.complete(result);
     }
@@ -2,13 +2,16 @@ package backend.github;
 
 import backend.UserCredentials;
 import backend.interfaces.Repo;
+import backend.resource.IssuePage;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
 import backend.resource.TurboUser;
+import com.google.gson.reflect.TypeToken;
 import github.GitHubClientExtended;
 import github.IssueServiceExtended;
 import github.LabelServiceFixed;
+import github.PageFetcher;
 import github.TurboIssueEvent;
 import github.update.*;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -17,33 +20,46 @@ import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
+import org.eclipse.egit.github.core.Milestone;
 import org.eclipse.egit.github.core.RepositoryId;
+import org.eclipse.egit.github.core.User;
 import org.eclipse.egit.github.core.client.*;
-import org.eclipse.egit.github.core.service.CollaboratorService;
 import org.eclipse.egit.github.core.service.IssueService;
-import org.eclipse.egit.github.core.service.MilestoneService;
 import ui.UI;
 import util.HTLog;
 import util.events.UpdateProgressEvent;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
-import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 public class GitHubRepo implements Repo {
 
     private static final Logger logger = HTLog.get(GitHubRepo.class);
 
-    private final GitHubClientExtended client = new GitHubClientExtended();
-    private final IssueServiceExtended issueService = new IssueServiceExtended(client);
-    private final CollaboratorService collaboratorService = new CollaboratorService(client);
-    private final LabelServiceFixed labelService = new LabelServiceFixed(client);
-    private final MilestoneService milestoneService = new MilestoneService(client);
+    // The maximum number of pages of a resource requested at once
+    private static final int MAX_CONCURRENT_PAGE_REQUESTS = 8;
+
+    private final GitHubClientExtended client;
+    private final IssueServiceExtended issueService;
+    private final LabelServiceFixed labelService;
+    private final PageFetcher pageFetcher;
 
     public GitHubRepo() {
+        this(new GitHubClientExtended(), MAX_CONCURRENT_PAGE_REQUESTS);
+    }
+
+    public GitHubRepo(GitHubClientExtended client, int maxConcurrentPageRequests) {
+        this.client = client;
+        this.issueService = new IssueServiceExtended(client);
+        this.labelService = new LabelServiceFixed(client);
+        this.pageFetcher = new PageFetcher(client, maxConcurrentPageRequests);
     }
 
     @Override
@@ -103,10 +119,30 @@ public class GitHubRepo implements Repo {
             updateService.getUpdatedETag());
     }
 
+    /**
+     * Creates a function giving an iterator over the pages of a resource of a repository,
+     * starting from a given page.
+     *
+     * @param segment The URI segment of the resource.
+     * @param arrayType The type of a page of the resource.
+     */
+    private <V> IntFunction<PageIterator<V>> pages(String repoId, String segment, Map<String, String> params,
+                                                   Type type, Type arrayType) {
+        return start -> {
+            PagedRequest<V> request = new PagedRequest<>(start, PagedRequest.PAGE_SIZE);
+            request.setUri(SEGMENT_REPOS + "/" + repoId + segment);
+            request.setParams(params);
+            request.setType(type);
+            request.setArrayType(arrayType);
+            return new PageIterator<>(request, client);
+        };
+    }
+
     @Override
     public List<TurboLabel> getLabels(String repoId) {
         try {
-            return labelService.getLabels(RepositoryId.createFromId(repoId)).stream()
+            return pageFetcher.fetchAll(this.<Label>pages(repoId, SEGMENT_LABELS, new HashMap<>(),
+                new TypeToken<Label>() {}.getType(), new TypeToken<ArrayList<Label>>() {}.getType())).stream()
                 .map(l -> new TurboLabel(repoId, l))
                 .collect(Collectors.toList());
         } catch (IOException e) {
@@ -118,7 +154,10 @@ public class GitHubRepo implements Repo {
     @Override
     public List<TurboMilestone> getMilestones(String repoId) {
         try {
-            return milestoneService.getMilestones(RepositoryId.createFromId(repoId), "all").stream()
+            Map<String, String> params = new HashMap<>();
+            params.put(IssueService.FILTER_STATE, "all");
+            return pageFetcher.fetchAll(this.<Milestone>pages(repoId, SEGMENT_MILESTONES, params,
+                new TypeToken<Milestone>() {}.getType(), new TypeToken<ArrayList<Milestone>>() {}.getType())).stream()
                 .map(m -> new TurboMilestone(repoId, m))
                 .collect(Collectors.toList());
         } catch (IOException e) {
@@ -130,7 +169,8 @@ public class GitHubRepo implements Repo {
     @Override
     public List<TurboUser> getCollaborators(String repoId) {
         try {
-            return collaboratorService.getCollaborators(RepositoryId.createFromId(repoId)).stream()
+            return pageFetcher.fetchAll(this.<User>pages(repoId, SEGMENT_COLLABORATORS, new HashMap<>(),
+                new TypeToken<User>() {}.getType(), new TypeToken<ArrayList<User>>() {}.getType())).stream()
                 .map(u -> new TurboUser(repoId, u))
                 .collect(Collectors.toList());
         } catch (RequestException e) {
@@ -148,51 +188,47 @@ public class GitHubRepo implements Repo {
 
     @Override
     public List<TurboIssue> getIssues(String repoId) {
+        List<TurboIssue> issues = new ArrayList<>();
+        getIssues(repoId, 1, page -> issues.addAll(page.getIssues()));
+        return issues;
+    }
+
+    @Override
+    public boolean getIssues(String repoId, int firstPage, Consumer<IssuePage> pageConsumer) {
         Map<String, String> filters = new HashMap<>();
         filters.put(IssueService.FIELD_FILTER, "all");
         filters.put(IssueService.FILTER_STATE, "all");
-        return getAll(issueService.pageIssues(RepositoryId.createFromId(repoId), filters), repoId).stream()
-            .map(i -> new TurboIssue(repoId, i))
-            .collect(Collectors.toList());
-    }
+        filters.put(IssueService.FIELD_SORT, IssueService.SORT_CREATED);
+        filters.put(IssueService.FIELD_DIRECTION, IssueService.DIRECTION_ASCENDING);
+        RepositoryId repository = RepositoryId.createFromId(repoId);
 
-    private List<Issue> getAll(PageIterator<Issue> iterator, String repoId) {
-        List<Issue> elements = new ArrayList<>();
-
-        // Assume there is at least one page
-        int knownLastPage = 1;
+        // Issues on the pages before the first are counted as loaded
+        int[] loaded = {(firstPage - 1) * PagedRequest.PAGE_SIZE};
 
         try {
-            while (iterator.hasNext()) {
-                Collection<Issue> additions = iterator.next();
-                elements.addAll(additions);
-
-                // Compute progress
-
-                // iterator.getLastPage() only has a value after iterator.next() is called,
-                // so it's used directly in this loop. It returns the 1-based index of the last
-                // page, except when we are actually on the last page, in which case it returns -1.
-                // This portion deals with all these quirks.
-
-                knownLastPage = Math.max(knownLastPage, iterator.getLastPage());
-                int totalIssueCount = knownLastPage * PagedRequest.PAGE_SIZE;
-                // Total is approximate: always >= the actual amount
-                assert totalIssueCount >= elements.size();
-
-                float progress = ((float) elements.size() / (float) totalIssueCount);
-                UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
-                logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)",
-                    elements.size(), progress * 100));
-            }
+            pageFetcher.<Issue>fetch(
+                start -> issueService.pageIssues(repository, filters, start, PagedRequest.PAGE_SIZE),
+                firstPage, (page, lastPage, issues) -> {
+                    pageConsumer.accept(new IssuePage(repoId, page, issues.stream()
+                        .map(i -> new TurboIssue(repoId, i))
+                        .collect(Collectors.toList())));
+                    loaded[0] += issues.size();
+
+                    int totalIssueCount = lastPage * PagedRequest.PAGE_SIZE;
+                    // Total is approximate: always >= the actual amount
+                    assert totalIssueCount >= loaded[0];
+
+                    float progress = ((float) loaded[0] / (float) totalIssueCount);
+                    UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
+                    logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)",
+                        loaded[0], progress * 100));
+                });
             UI.events.triggerEvent(new UpdateProgressEvent(repoId));
-        } catch (NoSuchPageException pageException) {
-            try {
-                throw pageException.getCause();
-            } catch (IOException e) {
-                HTLog.error(logger, e);
-            }
+            return true;
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return false;
         }
-        return elements;
     }
 
     public List<TurboIssueEvent> getEvents(String repoId, int issueId) {
@@ -214,6 +250,29 @@ public class GitHubRepo implements Repo {
         }
     }
 
+    @Override
+    public Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId,
+                                                                                  String eTag) {
+        try {
+            return issueService.getUpdatedIssueEvents(RepositoryId.createFromId(repoId), issueId, eTag)
+                .map(response -> new ImmutablePair<>(response.getTurboIssueEvents(), response.getETag()));
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                            String eTag) {
+        try {
+            return issueService.getUpdatedComments(RepositoryId.createFromId(repoId), issueId, eTag);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException {
         return labelService.setLabels(
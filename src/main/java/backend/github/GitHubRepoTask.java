@@ -3,6 +3,8 @@ package backend.github;
 import backend.interfaces.Repo;
 import backend.interfaces.RepoTask;
 import backend.interfaces.TaskRunner;
+import backend.resource.ChangeSet;
+import backend.resource.TurboIssue;
 
 import java.util.Date;
 import java.util.List;
@@ -30,4 +32,16 @@ public abstract class GitHubRepoTask<R> extends RepoTask<R> {
             this.lastCheckTime = null;
         }
     }
+
+    /**
+     * The result of updating issues, which also describes what the update changed.
+     */
+    public static class IssuesResult extends Result<TurboIssue> {
+        public final ChangeSet<Integer> changes;
+
+        public IssuesResult(List<TurboIssue> items, ChangeSet<Integer> changes, String eTag, Date lastCheckTime) {
+            super(items, eTag, lastCheckTime);
+            this.changes = changes;
+        }
+    }
 }
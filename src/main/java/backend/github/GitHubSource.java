@@ -1,24 +1,31 @@
 package backend.github;
 
-import backend.IssueMetadata;
+import backend.CachedMetadata;
 import backend.UserCredentials;
 import backend.interfaces.Repo;
 import backend.interfaces.RepoSource;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GitHubSource extends RepoSource {
 
     private static final Logger logger = HTLog.get(GitHubSource.class);
 
+    // The maximum number of metadata requests sent at once
+    private static final int MAX_CONCURRENT_METADATA_REQUESTS = 8;
+
     private final Repo gitHub = new GitHubRepo();
+    private final MetadataFetcher metadataFetcher = new MetadataFetcher(MAX_CONCURRENT_METADATA_REQUESTS);
 
     @Override
     public String getName() {
@@ -27,21 +34,19 @@ public class GitHubSource extends RepoSource {
 
     @Override
     public CompletableFuture<Boolean> login(UserCredentials credentials) {
-        CompletableFuture<Boolean> response = new CompletableFuture<>();
-        execute(() -> {
+        return CompletableFuture.supplyAsync(() -> {
             boolean success = gitHub.login(credentials);
             logger.info(String.format("%s to %s as %s",
                 success ? "Logged in" : "Failed to log in",
                 getName(), credentials.username));
-            response.complete(success);
-        });
-
-        return response;
+            return success;
+        }, this::execute);
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTask(this, gitHub, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, List<IssuePage> downloadedPages,
+                                                       Consumer<IssuePage> pageConsumer) {
+        return addTask(new DownloadRepoTask(this, gitHub, repoId, downloadedPages, pageConsumer)).response;
     }
 
     @Override
@@ -50,8 +55,11 @@ public class GitHubSource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<Integer> issues) {
-        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, CachedMetadata>> downloadMetadata(
+        String repoId, Map<Integer, LocalDateTime> issues, Map<Integer, CachedMetadata> storedMetadata,
+        Consumer<Map<Integer, CachedMetadata>> metadataConsumer) {
+        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues, storedMetadata, metadataFetcher,
+            metadataConsumer)).response;
     }
 
     @Override
@@ -0,0 +1,139 @@
+package backend.github;
+
+import backend.CachedMetadata;
+import backend.IssueMetadata;
+import backend.interfaces.Repo;
+import github.RequestScheduler;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches the events and comments of issues, a bounded number of requests at a time. The events
+ * of an issue are fetched separately from its comments, so the requests for successive issues overlap.
+ *
+ * Metadata stored from an earlier download is revalidated with its ETags if the issue has not been
+ * updated since, so that the events or comments are only downloaded again if they have changed.
+ *
+ * An issue whose metadata is wanted by several downloads at once is only fetched once. Its requests
+ * are abandoned if they have not been sent by the time no download wants it any more.
+ */
+public class MetadataFetcher {
+
+    private final ExecutorService pool;
+
+    // The issues being fetched, by repository and issue id
+    private final Map<ImmutablePair<String, Integer>, Request> requests = new HashMap<>();
+
+    private static class Request {
+        private final CompletableFuture<Optional<ImmutablePair<List<TurboIssueEvent>, String>>> events;
+        private final CompletableFuture<Optional<ImmutablePair<List<Comment>, String>>> comments;
+        private final CompletableFuture<CachedMetadata> result;
+        private int interested = 1;
+
+        private Request(CompletableFuture<Optional<ImmutablePair<List<TurboIssueEvent>, String>>> events,
+                        CompletableFuture<Optional<ImmutablePair<List<Comment>, String>>> comments,
+                        Optional<CachedMetadata> stored, LocalDateTime updatedAt) {
+            this.events = events;
+            this.comments = comments;
+            this.result = events.thenCombine(comments, (updatedEvents, updatedComments) ->
+                combine(updatedEvents, updatedComments, stored, updatedAt));
+        }
+    }
+
+    public MetadataFetcher(int maxConcurrentRequests) {
+        assert maxConcurrentRequests >= 1;
+        pool = Executors.newFixedThreadPool(maxConcurrentRequests, runnable -> {
+            // Metadata is fetched ahead of it being shown, so it gives way to other requests
+            Thread thread = new Thread(RequestScheduler.withPriority(RequestScheduler.Priority.METADATA_PREFETCH,
+                runnable), "Metadata fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the metadata of an issue, unless it is already being fetched. Unless the result has
+     * completed, each call must be matched by a call to release once the metadata is no longer wanted.
+     *
+     * @param updatedAt When the issue was last updated.
+     * @param stored The metadata of the issue stored from an earlier download, if any.
+     * @return the metadata of the issue, which is the stored metadata itself if it has not changed, and
+     * completes exceptionally if its requests are abandoned
+     */
+    public synchronized CompletableFuture<CachedMetadata> fetch(Repo repo, String repoId, int issueId,
+                                                                LocalDateTime updatedAt,
+                                                                Optional<CachedMetadata> stored) {
+        ImmutablePair<String, Integer> key = new ImmutablePair<>(repoId, issueId);
+        Request request = requests.get(key);
+        if (request != null) {
+            request.interested++;
+        } else {
+            Optional<CachedMetadata> current = stored.filter(metadata -> metadata.isCurrent(updatedAt));
+            String eventsETag = current.flatMap(CachedMetadata::getEventsETag).orElse(null);
+            String commentsETag = current.flatMap(CachedMetadata::getCommentsETag).orElse(null);
+
+            // An asynchronous task does nothing if its result has been cancelled before it runs
+            request = new Request(
+                CompletableFuture.supplyAsync(() -> repo.getUpdatedEvents(repoId, issueId, eventsETag), pool),
+                CompletableFuture.supplyAsync(() -> repo.getUpdatedComments(repoId, issueId, commentsETag), pool),
+                stored, updatedAt);
+            requests.put(key, request);
+            Request added = request;
+            request.result.whenComplete((metadata, failure) -> remove(key, added));
+        }
+        return request.result.thenApply(metadata -> metadata);
+    }
+
+    /**
+     * Withdraws interest in the metadata of an issue. Its requests are abandoned if no other
+     * download wants it.
+     */
+    public synchronized void release(String repoId, int issueId) {
+        ImmutablePair<String, Integer> key = new ImmutablePair<>(repoId, issueId);
+        Request request = requests.get(key);
+        if (request != null && --request.interested == 0) {
+            requests.remove(key);
+            request.events.cancel(false);
+            request.comments.cancel(false);
+            request.result.cancel(false);
+        }
+    }
+
+    /**
+     * Combines the events and comments which have changed with the stored metadata. Those which could
+     * not be retrieved are taken from the stored metadata as well, if there is any.
+     */
+    private static CachedMetadata combine(Optional<ImmutablePair<List<TurboIssueEvent>, String>> updatedEvents,
+                                          Optional<ImmutablePair<List<Comment>, String>> updatedComments,
+                                          Optional<CachedMetadata> stored, LocalDateTime updatedAt) {
+        if (!updatedEvents.isPresent() && !updatedComments.isPresent() && stored.isPresent()
+            && stored.get().isCurrent(updatedAt)) {
+            return stored.get();
+        }
+        Optional<IssueMetadata> storedMetadata = stored.map(CachedMetadata::getMetadata);
+        List<TurboIssueEvent> events = updatedEvents.map(pair -> pair.left)
+            .orElseGet(() -> storedMetadata.map(IssueMetadata::getEvents).orElseGet(ArrayList::new));
+        List<Comment> comments = updatedComments.map(pair -> pair.left)
+            .orElseGet(() -> storedMetadata.map(IssueMetadata::getComments).orElseGet(ArrayList::new));
+        String eventsETag = updatedEvents.map(pair -> pair.right)
+            .orElseGet(() -> stored.flatMap(CachedMetadata::getEventsETag).orElse(null));
+        String commentsETag = updatedComments.map(pair -> pair.right)
+            .orElseGet(() -> stored.flatMap(CachedMetadata::getCommentsETag).orElse(null));
+        return new CachedMetadata(new IssueMetadata(events, comments), eventsETag, commentsETag, updatedAt);
+    }
+
+    private synchronized void remove(ImmutablePair<String, Integer> key, Request request) {
+        requests.remove(key, request);
+    }
+}
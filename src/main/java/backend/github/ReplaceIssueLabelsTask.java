@@ -2,6 +2,7 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import github.RequestScheduler;
 import org.eclipse.egit.github.core.Label;
 
 import java.io.IOException;
@@ -33,4 +34,9 @@ public class ReplaceIssueLabelsTask extends GitHubRepoTask<List<String>> {
             response.completeExceptionally(e);
         }
     }
+
+    @Override
+    public RequestScheduler.Priority getPriority() {
+        return RequestScheduler.Priority.INTERACTIVE;
+    }
 }
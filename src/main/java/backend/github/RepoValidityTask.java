@@ -2,6 +2,7 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import github.RequestScheduler;
 
 public class RepoValidityTask extends GitHubRepoTask<Boolean> {
 
@@ -16,4 +17,9 @@ public class RepoValidityTask extends GitHubRepoTask<Boolean> {
     public void run() {
         response.complete(repo.isRepositoryValid(repoId));
     }
+
+    @Override
+    public RequestScheduler.Priority getPriority() {
+        return RequestScheduler.Priority.INTERACTIVE;
+    }
 }
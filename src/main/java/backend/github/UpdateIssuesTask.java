@@ -2,8 +2,10 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import backend.resource.ChangeSet;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
@@ -11,7 +13,7 @@ import util.HTLog;
 import java.util.Date;
 import java.util.List;
 
-public class UpdateIssuesTask extends GitHubRepoTask<GitHubRepoTask.Result<TurboIssue>> {
+public class UpdateIssuesTask extends GitHubRepoTask<GitHubRepoTask.IssuesResult> {
 
     private static final Logger logger = HTLog.get(UpdateIssuesTask.class);
 
@@ -33,10 +35,10 @@ public class UpdateIssuesTask extends GitHubRepoTask<GitHubRepoTask.Result<Turbo
         logger.info(HTLog.format(model.getRepoId(), "%s issue(s)) changed%s",
             changed.size(), changed.isEmpty() ? "" : ": " + changed));
 
-        List<TurboIssue> updated = changed.isEmpty()
-            ? existing
-            : TurboIssue.reconcile(model.getRepoId(), existing, changed);
+        ImmutablePair<List<TurboIssue>, ChangeSet<Integer>> updated = changed.isEmpty()
+            ? new ImmutablePair<>(existing, ChangeSet.unchanged(model.getIssueIds()))
+            : TurboIssue.reconcileWithChanges(model.getRepoId(), existing, changed);
 
-        response.complete(new Result<>(updated, changes.middle, changes.right));
+        response.complete(new IssuesResult(updated.left, updated.right, changes.middle, changes.right));
     }
 }
@@ -7,7 +7,7 @@ import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 public class UpdateModelTask extends GitHubRepoTask<Model> {
 
@@ -27,28 +27,35 @@ public class UpdateModelTask extends GitHubRepoTask<Model> {
         UpdateMilestonesTask milestonesTask = new UpdateMilestonesTask(taskRunner, repo, model);
         UpdateUsersTask usersTask = new UpdateUsersTask(taskRunner, repo, model);
 
-        taskRunner.execute(issuesTask);
-        taskRunner.execute(labelsTask);
-        taskRunner.execute(milestonesTask);
-        taskRunner.execute(usersTask);
-
-        try {
-            GitHubRepoTask.Result<TurboIssue> issuesResult = issuesTask.response.get();
-            GitHubRepoTask.Result<TurboLabel> labelsResult = labelsTask.response.get();
-            GitHubRepoTask.Result<TurboMilestone> milestonesResult = milestonesTask.response.get();
-            GitHubRepoTask.Result<TurboUser> usersResult = usersTask.response.get();
-
-            UpdateSignature newSignature =
-                new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
-                    milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
-
-            Model result = new Model(model.getRepoId(), issuesResult.items,
-                labelsResult.items, milestonesResult.items, usersResult.items, newSignature);
-
-            logger.info(HTLog.format(model.getRepoId(), "Updated model with " + result.summarise()));
-            response.complete(result);
-        } catch (InterruptedException | ExecutionException e) {
-            HTLog.error(logger, e);
-        }
+        taskRunner.addTask(issuesTask);
+        taskRunner.addTask(labelsTask);
+        taskRunner.addTask(milestonesTask);
+        taskRunner.addTask(usersTask);
+
+        // The model is put together once the subtasks complete, without waiting for them here
+        CompletableFuture.allOf(issuesTask.response, labelsTask.response,
+            milestonesTask.response, usersTask.response)
+            .thenApply(done -> createModel(issuesTask.response.join(), labelsTask.response.join(),
+                milestonesTask.response.join(), usersTask.response.join()))
+            .whenComplete((result, failure) -> {
+                if (failure == null) {
+                    logger.info(HTLog.format(model.getRepoId(), "Updated model with " + result.summarise()));
+                    response.complete(result);
+                } else {
+                    logger.error(failure.getLocalizedMessage(), failure);
+                    response.completeExceptionally(failure);
+                }
+            });
+    }
+
+    private Model createModel(IssuesResult issuesResult, Result<TurboLabel> labelsResult,
+                              Result<TurboMilestone> milestonesResult, Result<TurboUser> usersResult) {
+        UpdateSignature newSignature =
+            new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
+                milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
+
+        return new Model(model, issuesResult.items,
+            labelsResult.items, milestonesResult.items, usersResult.items, newSignature,
+            issuesResult.changes);
     }
 }
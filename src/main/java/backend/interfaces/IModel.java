@@ -15,6 +15,7 @@ public interface IModel extends IBaseModel {
     String getDefaultRepo();
     void setDefaultRepo(String repoId);
     Optional<Model> getModelById(String repoId);
+    List<Model> toModels();
     Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue);
     List<TurboLabel> getLabelsOfIssue(TurboIssue issue);
     List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate);
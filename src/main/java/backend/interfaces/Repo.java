@@ -1,6 +1,7 @@
 package backend.interfaces;
 
 import backend.UserCredentials;
+import backend.resource.IssuePage;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
@@ -14,12 +15,24 @@ import org.eclipse.egit.github.core.Label;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface Repo {
 
     boolean login(UserCredentials credentials);
 
     List<TurboIssue> getIssues(String repoId);
+
+    /**
+     * Downloads the issues of a repository a page at a time, oldest first, handing each page over
+     * as soon as it arrives. Issues created during the download only add to the last pages, so a
+     * download may be resumed from the page after the last one received.
+     *
+     * @return false if the download was interrupted before the last page
+     */
+    boolean getIssues(String repoId, int firstPage, Consumer<IssuePage> pageConsumer);
+
     List<TurboLabel> getLabels(String repoId);
     List<TurboMilestone> getMilestones(String repoId);
     List<TurboUser> getCollaborators(String repoId);
@@ -34,6 +47,20 @@ public interface Repo {
     List<TurboIssueEvent> getEvents(String repoId, int issueId);
     List<Comment> getComments(String repoId, int issueId);
 
+    /**
+     * @param eTag The ETag the events had, or null to get them regardless.
+     * @return the events of an issue and their ETag, or empty if they have not changed
+     * or could not be retrieved
+     */
+    Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId, String eTag);
+
+    /**
+     * @param eTag The ETag the comments had, or null to get them regardless.
+     * @return the comments on an issue and their ETag, which may be null, or empty if they
+     * have not changed or could not be retrieved
+     */
+    Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId, String eTag);
+
     boolean isRepositoryValid(String repoId);
     List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException;
     ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException;
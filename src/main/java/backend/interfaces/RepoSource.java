@@ -1,42 +1,95 @@
 package backend.interfaces;
 
-import backend.IssueMetadata;
+import backend.CachedMetadata;
 import backend.UserCredentials;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
+import github.RequestScheduler;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.InstrumentedExecutor;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public abstract class RepoSource implements TaskRunner {
 
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private static final Logger logger = HTLog.get(RepoSource.class);
 
+    // The maximum number of tasks run at once. Tasks compose their subtasks rather than wait
+    // for them, so they do not hold threads while others run
+    private static final int MAX_TASK_THREADS = 12;
+
+    private final InstrumentedExecutor executor = new InstrumentedExecutor("Repo source", MAX_TASK_THREADS);
+
+    /**
+     * Runs a task. If it fails, its response is completed with the failure.
+     */
     @Override
     public <R> RepoTask<R> addTask(RepoTask<R> task) {
-        execute(task);
+        executor.execute(task.getClass().getSimpleName(), RequestScheduler.withPriority(task.getPriority(), () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                HTLog.error(logger, e);
+                task.response.completeExceptionally(e);
+            }
+        }), task.response);
         return task;
     }
 
+    /**
+     * Runs the given runnable, which makes its requests with the priority of the caller.
+     */
     @Override
     public void execute(Runnable r) {
-        pool.execute(r);
+        executor.execute(RequestScheduler.withPriority(RequestScheduler.getPriority(), r));
+    }
+
+    /**
+     * @return the executor tasks are run on, which records how long they took
+     */
+    public InstrumentedExecutor getExecutor() {
+        return executor;
     }
 
     public abstract String getName();
 
     public abstract CompletableFuture<Boolean> login(UserCredentials credentials);
 
-    public abstract CompletableFuture<Model> downloadRepository(String repoId);
+    public CompletableFuture<Model> downloadRepository(String repoId) {
+        return downloadRepository(repoId, new ArrayList<>(), page -> {});
+    }
+
+    /**
+     * Downloads a repository, resuming after the given pages of issues if there are any.
+     * Fails with a DownloadInterruptedException if not all issues could be downloaded.
+     *
+     * @param pageConsumer Receives each page of issues as it is downloaded.
+     */
+    public abstract CompletableFuture<Model> downloadRepository(String repoId, List<IssuePage> downloadedPages,
+                                                                Consumer<IssuePage> pageConsumer);
 
     public abstract CompletableFuture<Model> updateModel(Model model);
 
-    public abstract CompletableFuture<Map<Integer, IssueMetadata>>
-        downloadMetadata(String repoId, List<Integer> issues);
+    /**
+     * Downloads the metadata of the given issues. Cancelling the result abandons the issues not
+     * fetched yet, unless another download in progress wants them too.
+     *
+     * @param issues The issues, with the times they were last updated.
+     * @param storedMetadata The metadata of the issues stored from earlier downloads, which is only
+     *                       downloaded again if it has changed.
+     * @param metadataConsumer Receives the metadata of a few issues at a time, as it is downloaded.
+     */
+    public abstract CompletableFuture<Map<Integer, CachedMetadata>>
+        downloadMetadata(String repoId, Map<Integer, LocalDateTime> issues, Map<Integer, CachedMetadata> storedMetadata,
+                         Consumer<Map<Integer, CachedMetadata>> metadataConsumer);
 
     public abstract CompletableFuture<Boolean> isRepositoryValid(String repoId);
 
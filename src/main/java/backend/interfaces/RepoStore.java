@@ -1,44 +1,485 @@
 package backend.interfaces;
 
+import backend.CachedMetadata;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.Logger;
+import util.Futures;
+import util.HTLog;
+import util.InstrumentedExecutor;
 import util.Utility;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Stores repositories, running the tasks which read and write them in the background.
+ *
+ * Tasks which only read run on a pool of a thread per core, so that repositories are loaded in parallel,
+ * and do not wait behind writes of other repositories, which run on a separate pool. The tasks of each
+ * repository still take effect in the order they were added: reads see the writes added before them,
+ * and writes are run one at a time, after the tasks added before them.
+ */
 public abstract class RepoStore {
 
+    private static final Logger logger = HTLog.get(RepoStore.class);
+
     protected static String directory = "store";
     public static final String TEST_DIRECTORY = "store/test";
-    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    private static final String METADATA_DIRECTORY = "metadata";
+
+    // The first line of stored files, before a checksum of the rest
+    private static final String CHECKSUM_HEADER = "HubTurbo-CRC32 ";
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final String PREVIOUS_EXTENSION = "prev";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Reads also wait for the disk, so there are at least this many threads for them
+    private static final int MIN_READ_THREADS = 2;
+    private static final int WRITE_THREADS = 2;
+
+    private final Executor readPool = new InstrumentedExecutor("Store reader",
+        Math.max(MIN_READ_THREADS, Runtime.getRuntime().availableProcessors()));
+    private final Executor writePool = new InstrumentedExecutor("Store writer", WRITE_THREADS);
+
+    /**
+     * The tasks of a repository which later tasks may have to wait for.
+     */
+    private static class PendingTasks {
+        private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+        private final Set<CompletableFuture<Void>> reads = new HashSet<>();
+    }
+
+    private final Map<String, PendingTasks> pendingTasks = new HashMap<>();
 
     public static String escapeRepoName(String repoName) {
         return repoName.replace("/", "-") + ".json";
     }
 
-    protected void addTask(StoreTask task) {
-        pool.execute(task);
+    protected synchronized void addTask(StoreTask task) {
+        PendingTasks pending = pendingTasks.computeIfAbsent(task.repoId, repoId -> new PendingTasks());
+        if (task.isReadOnly()) {
+            CompletableFuture<Void> read = runAfter(pending.lastWrite, readPool, task);
+            pending.reads.add(read);
+            read.thenRun(() -> taskCompleted(task.repoId, pending, read));
+        } else {
+            List<CompletableFuture<Void>> earlier = new ArrayList<>(pending.reads);
+            earlier.add(pending.lastWrite);
+            pending.reads.clear();
+            CompletableFuture<Void> write = runAfter(Futures.sequence(earlier), writePool, task);
+            pending.lastWrite = write;
+            write.thenRun(() -> taskCompleted(task.repoId, pending, write));
+        }
+    }
+
+    /**
+     * Forgets a task which has run. Once a repository has no tasks left to wait for, it is forgotten too,
+     * so that repositories which are no longer used are not kept track of.
+     */
+    private synchronized void taskCompleted(String repoId, PendingTasks pending, CompletableFuture<Void> task) {
+        pending.reads.remove(task);
+        if (pending.reads.isEmpty() && pending.lastWrite.isDone()) {
+            pendingTasks.remove(repoId, pending);
+        }
+    }
+
+    /**
+     * @return whether tasks of the given repository have been added which have not run yet
+     */
+    protected synchronized boolean hasPendingTasks(String repoId) {
+        return pendingTasks.containsKey(repoId);
+    }
+
+    /**
+     * @return a future which completes once the task has run, after the given one completes
+     */
+    private static CompletableFuture<Void> runAfter(CompletableFuture<?> earlier, Executor pool,
+                                                    StoreTask task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        earlier.whenComplete((result, failure) -> pool.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                HTLog.error(logger, e);
+            } finally {
+                done.complete(null);
+            }
+        }));
+        return done;
     }
 
     public abstract CompletableFuture<Model> loadRepository(String repoId);
     public abstract void saveRepository(String repoId, SerializableModel model);
 
+    /**
+     * Saves a repository which was updated from a version loaded from or saved to this store.
+     * Stores which can record only what the update changed may override this.
+     */
+    public void saveRepositoryUpdate(Model previous, Model updated) {
+        saveRepository(updated.getRepoId(), new SerializableModel(updated));
+    }
+
+    /**
+     * @return the ids of the repositories which are stored
+     */
+    public abstract List<String> getStoredRepos();
+
+    // The pages of issues of a repository which is being downloaded, kept so that an
+    // interrupted download may be resumed
+    public abstract CompletableFuture<List<IssuePage>> loadIssuePages(String repoId);
+    public abstract void saveIssuePage(IssuePage page);
+    public abstract void removeIssuePages(String repoId);
+
+    // The metadata of issues downloaded earlier, kept so that it need only be revalidated.
+    // Metadata which has not been used recently may be evicted, so some of the issues asked for may be missing
+    public abstract CompletableFuture<Map<Integer, CachedMetadata>>
+        loadMetadata(String repoId, Collection<Integer> issueIds);
+    public abstract void saveMetadata(String repoId, Map<Integer, CachedMetadata> metadata);
+
     private static String getRepoPath(String repoId) {
         ensureDirectoryExists();
         String newRepoName = RepoStore.escapeRepoName(repoId);
         return new File(RepoStore.directory, newRepoName).getAbsolutePath();
     }
 
+    /**
+     * @return the file holding a repository stored in a format other than JSON, which may not exist.
+     */
+    public static File getRepoFile(String repoId, String extension) {
+        ensureDirectoryExists();
+        return new File(RepoStore.directory, repoId.replace("/", "-") + "." + extension);
+    }
+
+    /**
+     * @return the files in the store directory with the given extension
+     */
+    public static List<File> getRepoFiles(String extension) {
+        ensureDirectoryExists();
+        File[] files = new File(RepoStore.directory).listFiles((dir, name) -> name.endsWith("." + extension));
+        return files == null ? new ArrayList<>() : Arrays.asList(files);
+    }
+
+    /**
+     * How stored repositories are compressed. Compressed files are gzip streams, which are read
+     * the same way whatever level they were written at, and which end with a checksum of their content.
+     */
+    public enum Compression {
+        NONE(Deflater.NO_COMPRESSION),
+        // The fastest level, at which the text of issues still takes up a fraction of its size
+        FAST(Deflater.BEST_SPEED),
+        GZIP(Deflater.DEFAULT_COMPRESSION);
+
+        private final int level;
+
+        Compression(int level) {
+            this.level = level;
+        }
+    }
+
+    /**
+     * Writes the content of a stored file as it is produced.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Parses the content of a stored file as it is read, throwing JsonParseException if it is not valid.
+     */
+    @FunctionalInterface
+    public interface ContentReader<T> {
+        T readFrom(Reader reader) throws IOException;
+    }
+
+    /**
+     * Writes a repository, compressing it as it is written, so that it is not held in memory in full.
+     * Uncompressed repositories are written as by write(String, String).
+     */
+    public static void write(String repoId, Compression compression, ContentWriter content) {
+        if (compression == Compression.NONE) {
+            StringWriter writer = new StringWriter();
+            try {
+                content.writeTo(writer);
+            } catch (IOException e) {
+                logger.error(e.getLocalizedMessage(), e);
+                return;
+            }
+            write(repoId, writer.toString());
+            return;
+        }
+
+        File file = new File(getRepoPath(repoId));
+        keepPreviousGeneration(file);
+        Utility.writeFile(file.getPath(), output -> {
+            GZIPOutputStream compressed = new GZIPOutputStream(output, BUFFER_SIZE) {
+                {
+                    def.setLevel(compression.level);
+                }
+            };
+            Writer writer = new OutputStreamWriter(compressed, StandardCharsets.UTF_8);
+            content.writeTo(writer);
+            writer.flush();
+            compressed.finish();
+        });
+    }
+
+    /**
+     * Writes a repository, keeping the version it replaces in case it is found to be corrupted.
+     * The file is replaced only once it has been written in full, and begins with a checksum of the rest.
+     */
     public static void write(String repoId, String output) {
-        Utility.writeFile(getRepoPath(repoId), output);
+        File file = new File(getRepoPath(repoId));
+        byte[] content = output.getBytes(StandardCharsets.UTF_8);
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        byte[] header = String.format("%s%0" + CHECKSUM_LENGTH + "x\n", CHECKSUM_HEADER, checksum.getValue())
+            .getBytes(StandardCharsets.UTF_8);
+
+        keepPreviousGeneration(file);
+        Utility.writeFile(file.getPath(), header, content);
+    }
+
+    public static <T> Optional<T> read(String repoId, ContentReader<T> parser) {
+        return read(new File(getRepoPath(repoId)), parser);
+    }
+
+    /**
+     * Reads a file written by write as it is parsed, decompressing it if it was compressed,
+     * and checks it against its checksum once it has been parsed.
+     * If it is corrupted, the version it replaced is restored and read instead.
+     */
+    public static <T> Optional<T> read(File file, ContentReader<T> parser) {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        Optional<T> result = parse(file, parser, true);
+        File previous = getPreviousGeneration(file);
+        if (!result.isPresent() && previous.exists()) {
+            result = parse(previous, parser, true);
+            if (result.isPresent()) {
+                logger.warn("Restoring the previous version of " + file.getName());
+                restorePreviousGeneration(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the beginning of a file written by write, as far as the parser reads. The file is not
+     * checked against its checksum, so its content should only be relied on once it has been read in full.
+     * If its beginning cannot be read, that of the version it replaced is read instead; the version is
+     * restored once the file is read in full.
+     */
+    public static <T> Optional<T> readHead(File file, ContentReader<T> parser) {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        Optional<T> result = parse(file, parser, false);
+        File previous = getPreviousGeneration(file);
+        if (!result.isPresent() && previous.exists()) {
+            result = parse(previous, parser, false);
+        }
+        return result;
+    }
+
+    /**
+     * @param verify Whether to read the file to the end and check it against its checksum once it has been parsed
+     */
+    private static <T> Optional<T> parse(File file, ContentReader<T> parser, boolean verify) {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            InputStream content;
+            OptionalLong expected = OptionalLong.empty();
+            if (isCompressed(input)) {
+                // Checked against the checksum at the end of the stream once it has been read to the end
+                content = new GZIPInputStream(input, BUFFER_SIZE);
+            } else {
+                // Files written before files had checksums have no header
+                expected = readChecksum(input);
+                content = new CheckedInputStream(input, new CRC32());
+            }
+            Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8);
+            T result = parser.readFrom(reader);
+            if (verify) {
+                char[] rest = new char[BUFFER_SIZE];
+                while (reader.read(rest) >= 0) {
+                    continue;
+                }
+                if (expected.isPresent()
+                    && ((CheckedInputStream) content).getChecksum().getValue() != expected.getAsLong()) {
+                    throw new IOException("Checksum does not match");
+                }
+            }
+            return Optional.of(result);
+        } catch (IOException | JsonParseException | NullPointerException e) {
+            logger.error(file.getName() + " is corrupted: " + e.getLocalizedMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return whether a stream, which must support mark, begins as a gzip stream does
+     */
+    private static boolean isCompressed(InputStream input) throws IOException {
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        return first >= 0 && second >= 0 && (first | (second << 8)) == GZIPInputStream.GZIP_MAGIC;
+    }
+
+    /**
+     * Reads the checksum at the beginning of a stream, which must support mark, if it begins with one.
+     *
+     * @return the checksum, in hexadecimal, then a new line
+     * @throws IOException if the checksum is malformed
+     */
+    private static OptionalLong readChecksum(InputStream input) throws IOException {
+        byte[] marker = CHECKSUM_HEADER.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[marker.length + CHECKSUM_LENGTH + 1];
+        input.mark(header.length);
+        int length = 0;
+        for (int read = 0; read >= 0 && length < header.length; length += read) {
+            read = input.read(header, length, header.length - length);
+        }
+        if (length < marker.length || !Arrays.equals(marker, Arrays.copyOf(header, marker.length))) {
+            input.reset();
+            return OptionalLong.empty();
+        }
+        if (length < header.length || header[header.length - 1] != '\n') {
+            throw new IOException("Malformed checksum");
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(
+                new String(header, marker.length, CHECKSUM_LENGTH, StandardCharsets.UTF_8), 16));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed checksum", e);
+        }
+    }
+
+    /**
+     * @return the file holding the version of a stored file which it replaced, which may not exist
+     */
+    public static File getPreviousGeneration(File file) {
+        return new File(file.getPath() + "." + PREVIOUS_EXTENSION);
+    }
+
+    /**
+     * Keeps the current version of a stored file before it is replaced, in case the next is found to be
+     * corrupted. Stored files are always replaced rather than written in place, so it is linked rather
+     * than copied where possible.
+     */
+    public static void keepPreviousGeneration(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        Path previous = getPreviousGeneration(file).toPath();
+        try {
+            Files.deleteIfExists(previous);
+            try {
+                Files.createLink(previous, file.toPath());
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(file.toPath(), previous, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces a stored file which is corrupted with the version it replaced.
+     * Synchronized, as tasks reading the same repository may find it corrupted at the same time.
+     */
+    public static synchronized void restorePreviousGeneration(File file) {
+        Path temporary = new File(file.getPath() + ".tmp").toPath();
+        try {
+            Files.copy(getPreviousGeneration(file).toPath(), temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    private static Path getPagesPath(String repoId) {
+        ensureDirectoryExists();
+        return new File(RepoStore.directory, RepoStore.escapeRepoName(repoId) + ".pages").toPath();
+    }
+
+    /**
+     * Appends a page, which must take up a single line, to the pages stored for a repository.
+     */
+    public static void appendPage(String repoId, String page) throws IOException {
+        Files.write(getPagesPath(repoId), Collections.singletonList(page), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static List<String> readPages(String repoId) throws IOException {
+        Path path = getPagesPath(repoId);
+        return Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+
+    public static void deletePages(String repoId) throws IOException {
+        Files.deleteIfExists(getPagesPath(repoId));
+    }
+
+    /**
+     * @return the directory holding the stored metadata of the issues of all repositories.
+     */
+    public static File getMetadataDirectory() {
+        return new File(RepoStore.directory, METADATA_DIRECTORY);
+    }
+
+    /**
+     * @return the file holding the stored metadata of an issue, which may not exist.
+     */
+    public static File getMetadataFile(String repoId, int issueId) {
+        File repoDirectory = new File(getMetadataDirectory(), repoId.replace("/", "-"));
+        return new File(repoDirectory, issueId + ".json");
+    }
+
+    public static void writeMetadata(File file, String metadata) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), metadata.getBytes(StandardCharsets.UTF_8));
     }
 
-    public static Optional<String> read(String repoId) {
-        return Utility.readFile(getRepoPath(repoId));
+    public static Optional<String> readMetadata(File file) throws IOException {
+        return file.exists()
+            ? Optional.of(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+            : Optional.empty();
     }
 
     protected static void ensureDirectoryExists() {
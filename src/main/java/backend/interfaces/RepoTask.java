@@ -1,5 +1,7 @@
 package backend.interfaces;
 
+import github.RequestScheduler;
+
 import java.util.concurrent.CompletableFuture;
 
 public abstract class RepoTask<R> implements Runnable {
@@ -14,4 +16,11 @@ public abstract class RepoTask<R> implements Runnable {
     }
 
     public abstract void run();
+
+    /**
+     * @return the priority of the requests the task makes
+     */
+    public RequestScheduler.Priority getPriority() {
+        return RequestScheduler.Priority.MODEL_UPDATE;
+    }
 }
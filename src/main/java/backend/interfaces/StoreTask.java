@@ -8,5 +8,13 @@ public abstract class StoreTask implements Runnable {
     }
 
     public abstract void run();
+
+    /**
+     * Tasks which only read may run alongside other such tasks of the same repository. Those which
+     * may write wait for all earlier tasks of their repository, and later tasks wait for them.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
 }
 
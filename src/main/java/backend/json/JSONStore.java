@@ -1,23 +1,24 @@
 package backend.json;
 
+import backend.CachedMetadata;
 import backend.interfaces.RepoStore;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
-import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
-import util.Utility;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.io.Files.getFileExtension;
@@ -26,6 +27,40 @@ public class JSONStore extends RepoStore {
 
     private static final Logger logger = HTLog.get(JSONStore.class);
 
+    // The number of bytes the stored metadata of issues may take up by default
+    public static final long DEFAULT_METADATA_BUDGET = 64L * 1024 * 1024;
+
+    // Repositories written uncompressed before are compressed when they are next written
+    public static final Compression DEFAULT_COMPRESSION = Compression.FAST;
+
+    private final MetadataCache metadataCache;
+    private final Compression compression;
+
+    public JSONStore() {
+        this(DEFAULT_METADATA_BUDGET);
+    }
+
+    /**
+     * @param metadataBudget The number of bytes the stored metadata of issues may take up.
+     *                       The metadata used least recently is evicted to stay within it.
+     */
+    public JSONStore(long metadataBudget) {
+        this(metadataBudget, DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression How repositories are compressed when they are written. They are read
+     *                    however they were written.
+     */
+    public JSONStore(Compression compression) {
+        this(DEFAULT_METADATA_BUDGET, compression);
+    }
+
+    public JSONStore(long metadataBudget, Compression compression) {
+        metadataCache = new MetadataCache(metadataBudget);
+        this.compression = compression;
+    }
+
     @Override
     public CompletableFuture<Model> loadRepository(String repoId) {
         CompletableFuture<Model> response = new CompletableFuture<>();
@@ -35,15 +70,55 @@ public class JSONStore extends RepoStore {
 
     @Override
     public void saveRepository(String repoId, SerializableModel model) {
-        addTask(new WriteTask(repoId, model));
+        addTask(new WriteTask(repoId, model, compression));
+    }
+
+    @Override
+    public CompletableFuture<List<IssuePage>> loadIssuePages(String repoId) {
+        CompletableFuture<List<IssuePage>> response = new CompletableFuture<>();
+        addTask(new ReadPagesTask(repoId, response));
+        return response;
     }
 
+    @Override
+    public void saveIssuePage(IssuePage page) {
+        addTask(new WritePageTask(page));
+    }
+
+    @Override
+    public void removeIssuePages(String repoId) {
+        addTask(new RemovePagesTask(repoId));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, CachedMetadata>> loadMetadata(String repoId, Collection<Integer> issueIds) {
+        CompletableFuture<Map<Integer, CachedMetadata>> response = new CompletableFuture<>();
+        addTask(new ReadMetadataTask(repoId, issueIds, metadataCache, response));
+        return response;
+    }
+
+    @Override
+    public void saveMetadata(String repoId, Map<Integer, CachedMetadata> metadata) {
+        addTask(new WriteMetadataTask(repoId, metadata, metadataCache));
+    }
+
+    @Override
     public List<String> getStoredRepos() {
+        return getStoredJSONRepos(p -> true);
+    }
+
+    /**
+     * @param include Whether to include the repository stored in a file, which is read as far as
+     *                the repository's id if so
+     * @return the ids of the repositories stored as JSON
+     */
+    protected List<String> getStoredJSONRepos(Predicate<Path> include) {
         ensureDirectoryExists();
         try {
             return Files.walk(Paths.get(RepoStore.directory), 1)
                     .filter(Files::isRegularFile)
                     .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                    .filter(include)
                     .map(JSONStore::getRepositoryIdFromJson)
                     .filter(Optional::isPresent)
                     .map(Optional::get)
@@ -55,16 +130,15 @@ public class JSONStore extends RepoStore {
     }
 
     private static Optional<String> getRepositoryIdFromJson(Path p) {
-        try {
-            String repoId = new Model(
-                    (SerializableModel) new Gson().fromJson(Utility.readFile(String.valueOf(p.toAbsolutePath())).get(),
-                            new TypeToken<SerializableModel>() {}.getType())).getRepoId();
-            if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId))) {
-                logger.info("Adding " + p.getFileName() + " to stored repository list. ");
-                return Optional.of(repoId);
-            }
-        } catch (NullPointerException | JsonParseException e) {
+        // The file is not read in full until the repository is loaded, which is when it is checked
+        Optional<String> repoId = RepoStore.readHead(p.toFile(), input -> new ModelReader(input).readRepoId());
+        if (!repoId.isPresent()) {
             logger.error("Unable to load repository from " + p.getFileName());
+            return Optional.empty();
+        }
+        if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId.get()))) {
+            logger.info("Adding " + p.getFileName() + " to stored repository list. ");
+            return repoId;
         }
         return Optional.empty();
     }
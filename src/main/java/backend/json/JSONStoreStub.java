@@ -1,7 +1,11 @@
 package backend.json;
 
+import backend.CachedMetadata;
+import backend.resource.IssuePage;
 import backend.resource.serialization.SerializableModel;
 
+import java.util.Map;
+
 /**
  * Same as JSONStore, but with the save function disabled.
  * Saves the effort of tearing down every time a test is written.
@@ -12,4 +16,13 @@ public class JSONStoreStub extends JSONStore {
 
     @Override
     public void saveRepository(String repoId, SerializableModel model) {}
+
+    @Override
+    public void saveIssuePage(IssuePage page) {}
+
+    @Override
+    public void removeIssuePages(String repoId) {}
+
+    @Override
+    public void saveMetadata(String repoId, Map<Integer, CachedMetadata> metadata) {}
 }
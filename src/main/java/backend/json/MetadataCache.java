@@ -0,0 +1,109 @@
+package backend.json;
+
+import backend.interfaces.RepoStore;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the files of stored metadata within a disk budget, evicting those used least recently.
+ * Used from store tasks, which may run at the same time for different repositories.
+ */
+class MetadataCache {
+
+    private static final Logger logger = HTLog.get(MetadataCache.class);
+
+    private final long budget;
+
+    // The sizes of the stored files, in order of use, the least recently used first.
+    // Loaded from the files' modification times the first time it is needed
+    private LinkedHashMap<File, Long> files = null;
+    private long totalSize = 0;
+
+    /**
+     * @param budget The number of bytes the stored files may take up in all.
+     */
+    MetadataCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Records that a stored file has been used, so that it is evicted after those which have not.
+     */
+    synchronized void used(File file) {
+        ensureLoaded();
+        if (files.get(file) != null) {
+            file.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Records that a file has been written, evicting the least recently used files as necessary.
+     */
+    synchronized void written(File file) {
+        ensureLoaded();
+        Long previousSize = files.remove(file);
+        if (previousSize != null) {
+            totalSize -= previousSize;
+        }
+        long size = file.length();
+        files.put(file, size);
+        totalSize += size;
+        evict();
+    }
+
+    synchronized long getTotalSize() {
+        ensureLoaded();
+        return totalSize;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<File, Long>> leastRecentlyUsed = files.entrySet().iterator();
+        // The file used last is kept, even if it is over the budget by itself
+        while (totalSize > budget && files.size() > 1 && leastRecentlyUsed.hasNext()) {
+            Map.Entry<File, Long> entry = leastRecentlyUsed.next();
+            if (!entry.getKey().delete() && entry.getKey().exists()) {
+                logger.error("Unable to evict stored metadata " + entry.getKey());
+                continue;
+            }
+            totalSize -= entry.getValue();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (files != null) {
+            return;
+        }
+        files = new LinkedHashMap<>(16, 0.75f, true);
+        Path directory = RepoStore.getMetadataDirectory().toPath();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            List<File> stored = paths
+                .filter(Files::isRegularFile)
+                .map(Path::toFile)
+                .sorted(Comparator.comparingLong(File::lastModified))
+                .collect(Collectors.toList());
+            for (File file : stored) {
+                files.put(file, file.length());
+                totalSize += file.length();
+            }
+        } catch (IOException e) {
+            logger.error("Unable to open stored metadata directory");
+        }
+        evict();
+    }
+}
@@ -0,0 +1,480 @@
+package backend.json;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TextIndex;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import backend.resource.serialization.SerializableTextIndex;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads a repository stored as JSON, as written by Gson from a SerializableModel, building its resources
+ * as they are read rather than from an intermediate SerializableModel. Values which are small and occur
+ * once per repository, such as its update signature, are still read by Gson.
+ *
+ * The resources of a repository are built with its id, so the id must come before them, as Gson writes it.
+ */
+class ModelReader {
+
+    private static final String REPO_ID = "repoId";
+
+    private final Gson gson = new Gson();
+    private final JsonReader input;
+
+    ModelReader(Reader input) {
+        this.input = new JsonReader(input);
+        // As Gson reads
+        this.input.setLenient(true);
+    }
+
+    /**
+     * @throws JsonParseException if the input is not a stored repository
+     * @throws IOException if the input could not be read
+     */
+    Model read() throws IOException {
+        try {
+            return readModel();
+        } catch (IllegalStateException | NumberFormatException | DateTimeException e) {
+            // Values of the wrong type
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Reads the id of a stored repository, which is read no further than that.
+     *
+     * @throws JsonParseException if the input is not a stored repository
+     * @throws IOException if the input could not be read
+     */
+    String readRepoId() throws IOException {
+        try {
+            input.beginObject();
+            while (input.hasNext()) {
+                if (input.nextName().equals(REPO_ID)) {
+                    return nextString();
+                }
+                input.skipValue();
+            }
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+        throw new JsonSyntaxException("No repository id");
+    }
+
+    private Model readModel() throws IOException {
+        String repoId = null;
+        UpdateSignature updateSignature = null;
+        List<TurboIssue> issues = null;
+        List<TurboLabel> labels = null;
+        List<TurboMilestone> milestones = null;
+        List<TurboUser> users = null;
+        Optional<TextIndex> textIndex = Optional.empty();
+
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            if (name.equals(REPO_ID)) {
+                repoId = nextString();
+                continue;
+            }
+            if (skipNull()) {
+                continue;
+            }
+            switch (name) {
+            case "updateSignature":
+                updateSignature = gson.fromJson(input, UpdateSignature.class);
+                break;
+            case "issues":
+                issues = readIssues(requireRepoId(repoId));
+                break;
+            case "labels":
+                labels = readLabels(requireRepoId(repoId));
+                break;
+            case "milestones":
+                milestones = readMilestones(requireRepoId(repoId));
+                break;
+            case "users":
+                users = readUsers(requireRepoId(repoId));
+                break;
+            case "textIndex":
+                textIndex = readTextIndex();
+                break;
+            default:
+                input.skipValue();
+                break;
+            }
+        }
+        input.endObject();
+
+        if (repoId == null || issues == null || labels == null || milestones == null || users == null) {
+            throw new JsonSyntaxException("Incomplete repository");
+        }
+        return new Model(repoId, issues, labels, milestones, users, updateSignature, textIndex);
+    }
+
+    private static String requireRepoId(String repoId) {
+        if (repoId == null) {
+            throw new JsonSyntaxException("Resources before the repository id");
+        }
+        return repoId;
+    }
+
+    private List<TurboIssue> readIssues(String repoId) throws IOException {
+        List<TurboIssue> issues = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNext()) {
+            issues.add(readIssue(repoId));
+        }
+        input.endArray();
+        return issues;
+    }
+
+    private TurboIssue readIssue(String repoId) throws IOException {
+        int id = 0;
+        String title = null;
+        String creator = null;
+        LocalDateTime createdAt = null;
+        boolean isPullRequest = false;
+        String description = null;
+        LocalDateTime updatedAt = null;
+        int commentCount = 0;
+        boolean isOpen = false;
+        String assignee = null;
+        List<String> labels = new ArrayList<>();
+        Integer milestone = null;
+
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            if (skipNull()) {
+                continue;
+            }
+            switch (name) {
+            case "id":
+                id = input.nextInt();
+                break;
+            case "title":
+                title = input.nextString();
+                break;
+            case "creator":
+                creator = input.nextString();
+                break;
+            case "createdAt":
+                createdAt = readDateTime();
+                break;
+            case "isPullRequest":
+                isPullRequest = input.nextBoolean();
+                break;
+            case "description":
+                description = input.nextString();
+                break;
+            case "updatedAt":
+                updatedAt = readDateTime();
+                break;
+            case "commentCount":
+                commentCount = input.nextInt();
+                break;
+            case "isOpen":
+                isOpen = input.nextBoolean();
+                break;
+            case "assignee":
+                assignee = readOptionalString();
+                break;
+            case "labels":
+                labels = readStrings();
+                break;
+            case "milestone":
+                milestone = readOptionalInteger();
+                break;
+            default:
+                input.skipValue();
+                break;
+            }
+        }
+        input.endObject();
+
+        TurboIssue issue = new TurboIssue(repoId, id, title, creator, createdAt, isPullRequest);
+        issue.setDescription(description);
+        issue.setUpdatedAt(updatedAt);
+        issue.setCommentCount(commentCount);
+        issue.setOpen(isOpen);
+        if (assignee != null) {
+            issue.setAssignee(assignee);
+        }
+        issue.setLabels(labels);
+        if (milestone != null) {
+            issue.setMilestone(milestone);
+        }
+        return issue;
+    }
+
+    private List<TurboLabel> readLabels(String repoId) throws IOException {
+        List<TurboLabel> labels = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNext()) {
+            String actualName = null;
+            String colour = null;
+            input.beginObject();
+            while (input.hasNext()) {
+                String name = input.nextName();
+                if (name.equals("actualName")) {
+                    actualName = nextString();
+                } else if (name.equals("colour")) {
+                    colour = nextString();
+                } else {
+                    input.skipValue();
+                }
+            }
+            input.endObject();
+            labels.add(new TurboLabel(repoId, colour, actualName));
+        }
+        input.endArray();
+        return labels;
+    }
+
+    private List<TurboMilestone> readMilestones(String repoId) throws IOException {
+        List<TurboMilestone> milestones = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNext()) {
+            int id = 0;
+            String title = null;
+            Optional<LocalDate> dueDate = Optional.empty();
+            String description = null;
+            boolean isOpen = false;
+            int openIssues = 0;
+            int closedIssues = 0;
+
+            input.beginObject();
+            while (input.hasNext()) {
+                String name = input.nextName();
+                if (skipNull()) {
+                    continue;
+                }
+                switch (name) {
+                case "id":
+                    id = input.nextInt();
+                    break;
+                case "title":
+                    title = input.nextString();
+                    break;
+                case "dueDate":
+                    dueDate = readOptionalDate();
+                    break;
+                case "description":
+                    description = input.nextString();
+                    break;
+                case "isOpen":
+                    isOpen = input.nextBoolean();
+                    break;
+                case "openIssues":
+                    openIssues = input.nextInt();
+                    break;
+                case "closedIssues":
+                    closedIssues = input.nextInt();
+                    break;
+                default:
+                    input.skipValue();
+                    break;
+                }
+            }
+            input.endObject();
+
+            TurboMilestone milestone = new TurboMilestone(repoId, id, title);
+            milestone.setDueDate(dueDate);
+            milestone.setDescription(description);
+            milestone.setOpen(isOpen);
+            milestone.setOpenIssues(openIssues);
+            milestone.setClosedIssues(closedIssues);
+            milestones.add(milestone);
+        }
+        input.endArray();
+        return milestones;
+    }
+
+    private List<TurboUser> readUsers(String repoId) throws IOException {
+        List<TurboUser> users = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNext()) {
+            String loginName = null;
+            String realName = null;
+            String avatarURL = null;
+            input.beginObject();
+            while (input.hasNext()) {
+                switch (input.nextName()) {
+                case "loginName":
+                    loginName = nextString();
+                    break;
+                case "realName":
+                    realName = nextString();
+                    break;
+                case "avatarURL":
+                    avatarURL = nextString();
+                    break;
+                default:
+                    input.skipValue();
+                    break;
+                }
+            }
+            input.endObject();
+            users.add(new TurboUser(repoId, loginName, realName, avatarURL));
+        }
+        input.endArray();
+        return users;
+    }
+
+    private Optional<TextIndex> readTextIndex() throws IOException {
+        SerializableTextIndex index = gson.fromJson(input, SerializableTextIndex.class);
+        try {
+            return Optional.of(new TextIndex(index));
+        } catch (IllegalArgumentException e) {
+            // Rebuilt when needed
+            return Optional.empty();
+        }
+    }
+
+    private List<String> readStrings() throws IOException {
+        List<String> strings = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNext()) {
+            strings.add(nextString());
+        }
+        input.endArray();
+        return strings;
+    }
+
+    /**
+     * Reads an Optional as Gson writes it, which is an object holding its value, if any.
+     */
+    private String readOptionalString() throws IOException {
+        String value = null;
+        input.beginObject();
+        while (input.hasNext()) {
+            if (input.nextName().equals("value")) {
+                value = nextString();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return value;
+    }
+
+    private Integer readOptionalInteger() throws IOException {
+        Integer value = null;
+        input.beginObject();
+        while (input.hasNext()) {
+            if (input.nextName().equals("value") && !skipNull()) {
+                value = input.nextInt();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return value;
+    }
+
+    private Optional<LocalDate> readOptionalDate() throws IOException {
+        LocalDate value = null;
+        input.beginObject();
+        while (input.hasNext()) {
+            if (input.nextName().equals("value") && !skipNull()) {
+                value = readDate();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * Reads a LocalDateTime as Gson writes it, which is an object holding its date and its time.
+     */
+    private LocalDateTime readDateTime() throws IOException {
+        LocalDate date = null;
+        LocalTime time = null;
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            if (name.equals("date") && !skipNull()) {
+                date = readDate();
+            } else if (name.equals("time") && !skipNull()) {
+                time = readTime();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        if (date == null || time == null) {
+            throw new JsonSyntaxException("Incomplete date and time");
+        }
+        return LocalDateTime.of(date, time);
+    }
+
+    private LocalDate readDate() throws IOException {
+        int[] fields = readFields("year", "month", "day");
+        return LocalDate.of(fields[0], fields[1], fields[2]);
+    }
+
+    private LocalTime readTime() throws IOException {
+        int[] fields = readFields("hour", "minute", "second", "nano");
+        return LocalTime.of(fields[0], fields[1], fields[2], fields[3]);
+    }
+
+    /**
+     * Reads an object holding the given integer fields, which are 0 if they are absent.
+     */
+    private int[] readFields(String... names) throws IOException {
+        int[] fields = new int[names.length];
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            int i = 0;
+            while (i < names.length && !names[i].equals(name)) {
+                i++;
+            }
+            if (i < names.length && !skipNull()) {
+                fields[i] = input.nextInt();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return fields;
+    }
+
+    /**
+     * @return the next string, or null if the next value is null
+     */
+    private String nextString() throws IOException {
+        return skipNull() ? null : input.nextString();
+    }
+
+    /**
+     * @return whether the next value is null, in which case it is skipped
+     */
+    private boolean skipNull() throws IOException {
+        if (input.peek() == JsonToken.NULL) {
+            input.nextNull();
+            return true;
+        }
+        return false;
+    }
+}
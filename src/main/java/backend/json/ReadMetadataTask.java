@@ -0,0 +1,72 @@
+package backend.json;
+
+import backend.CachedMetadata;
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableMetadata;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class ReadMetadataTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadMetadataTask.class);
+
+    public final Collection<Integer> issueIds;
+    public final CompletableFuture<Map<Integer, CachedMetadata>> response;
+    private final MetadataCache cache;
+
+    public ReadMetadataTask(String repoId, Collection<Integer> issueIds, MetadataCache cache,
+                            CompletableFuture<Map<Integer, CachedMetadata>> response) {
+        super(repoId);
+        this.issueIds = issueIds;
+        this.cache = cache;
+        this.response = response;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Completes with the metadata stored for those of the issues which have any.
+     * Metadata which is corrupted or stored for another issue is ignored.
+     */
+    @Override
+    public void run() {
+        Map<Integer, CachedMetadata> result = new HashMap<>();
+        for (int issueId : issueIds) {
+            File file = RepoStore.getMetadataFile(repoId, issueId);
+            try {
+                Optional<String> input = RepoStore.readMetadata(file);
+                if (!input.isPresent()) {
+                    continue;
+                }
+                SerializableMetadata metadata = new Gson().fromJson(input.get(), SerializableMetadata.class);
+                if (metadata == null || metadata.issueId != issueId || !repoId.equals(metadata.repoId)
+                    || metadata.updatedAt == null) {
+                    logger.error(HTLog.format(repoId, "Stored metadata of #%d is corrupted", issueId));
+                    continue;
+                }
+                result.put(issueId, new CachedMetadata(metadata));
+                cache.used(file);
+            } catch (IOException | NullPointerException | JsonParseException e) {
+                logger.error(HTLog.format(repoId, "Stored metadata of #%d is corrupted", issueId));
+            }
+        }
+        if (!result.isEmpty()) {
+            logger.info(HTLog.format(repoId, "Metadata of %d issue(s) loaded from JSON store", result.size()));
+        }
+        response.complete(result);
+    }
+}
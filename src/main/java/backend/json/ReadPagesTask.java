@@ -0,0 +1,56 @@
+package backend.json;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.IssuePage;
+import backend.resource.serialization.SerializableIssuePage;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class ReadPagesTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadPagesTask.class);
+
+    public final CompletableFuture<List<IssuePage>> response;
+
+    public ReadPagesTask(String repoId, CompletableFuture<List<IssuePage>> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Completes with the consecutive pages stored from the first. The rest, from a page which
+     * is corrupted or out of place, e.g. as the application quit while writing it, are ignored.
+     */
+    @Override
+    public void run() {
+        List<IssuePage> pages = new ArrayList<>();
+        try {
+            for (String line : RepoStore.readPages(repoId)) {
+                SerializableIssuePage page = new Gson().fromJson(line, SerializableIssuePage.class);
+                if (page == null || page.number != pages.size() + 1 || !repoId.equals(page.repoId)) {
+                    break;
+                }
+                pages.add(new IssuePage(page));
+            }
+        } catch (IOException | NullPointerException | JsonParseException e) {
+            logger.error(HTLog.format(repoId, "Stored pages of issues are corrupted"));
+        }
+        if (!pages.isEmpty()) {
+            logger.info(HTLog.format(repoId, "%d page(s) of issues loaded from JSON store", pages.size()));
+        }
+        response.complete(pages);
+    }
+}
@@ -3,10 +3,6 @@ package backend.json;
 import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.Model;
-import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
-import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 import util.exceptions.JSONLoadException;
@@ -26,6 +22,11 @@ class ReadTask extends StoreTask {
         this.response = response;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public void run() {
         try {
@@ -45,24 +46,14 @@ class ReadTask extends StoreTask {
      *         retrieved from the local store or is corrupted
      */
     private Model load(String repoId) throws RepoStoreException {
-        Optional<String> input = RepoStore.read(repoId);
+        Optional<Model> model = RepoStore.read(repoId, input -> new ModelReader(input).read());
 
-        if (!input.isPresent()) {
+        if (!model.isPresent()) {
             logger.error("Unable to load " + repoId + " from JSON cache");
             throw new JSONLoadException();
-        } else {
-            logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
-
-            try {
-                SerializableModel sModel = new Gson().fromJson(input.get(),
-                        new TypeToken<SerializableModel>(){}.getType());
-
-                return new Model(sModel);
-            } catch (NullPointerException | JsonParseException e) {
-                logger.error(HTLog.format(repoId, "JSON data is corrupted"));
-                throw new JSONLoadException();
-            }
         }
+        logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
+        return model.get();
     }
 }
 
@@ -0,0 +1,26 @@
+package backend.json;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+
+class RemovePagesTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(RemovePagesTask.class);
+
+    public RemovePagesTask(String repoId) {
+        super(repoId);
+    }
+
+    @Override
+    public void run() {
+        try {
+            RepoStore.deletePages(repoId);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+        }
+    }
+}
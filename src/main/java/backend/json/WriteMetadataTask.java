@@ -0,0 +1,46 @@
+package backend.json;
+
+import backend.CachedMetadata;
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableMetadata;
+import com.google.gson.Gson;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class WriteMetadataTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WriteMetadataTask.class);
+
+    public final List<SerializableMetadata> toSave;
+    private final MetadataCache cache;
+
+    public WriteMetadataTask(String repoId, Map<Integer, CachedMetadata> metadata, MetadataCache cache) {
+        super(repoId);
+        this.toSave = metadata.entrySet().stream()
+            .map(entry -> new SerializableMetadata(repoId, entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+        this.cache = cache;
+    }
+
+    @Override
+    public void run() {
+        Gson gson = new Gson();
+        for (SerializableMetadata metadata : toSave) {
+            File file = RepoStore.getMetadataFile(repoId, metadata.issueId);
+            try {
+                RepoStore.writeMetadata(file, gson.toJson(metadata));
+                cache.written(file);
+            } catch (IOException e) {
+                HTLog.error(logger, e);
+            }
+        }
+        logger.info(HTLog.format(repoId, "Metadata of %d issue(s) written to JSON store", toSave.size()));
+    }
+}
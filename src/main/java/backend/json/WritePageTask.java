@@ -0,0 +1,34 @@
+package backend.json;
+
+import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
+import backend.resource.IssuePage;
+import backend.resource.serialization.SerializableIssuePage;
+import com.google.gson.Gson;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+
+class WritePageTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WritePageTask.class);
+
+    public final SerializableIssuePage toSave;
+
+    public WritePageTask(IssuePage page) {
+        super(page.getRepoId());
+        this.toSave = new SerializableIssuePage(page);
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Gson writes the page on a single line
+            RepoStore.appendPage(repoId, new Gson().toJson(toSave));
+            logger.info(HTLog.format(repoId, "Page %d of issues written to JSON store", toSave.number));
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+        }
+    }
+}
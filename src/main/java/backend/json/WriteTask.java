@@ -4,18 +4,23 @@ import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.serialization.SerializableModel;
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
+import java.io.IOException;
+
 class WriteTask extends StoreTask {
 
     private static final Logger logger = HTLog.get(WriteTask.class);
 
     public final SerializableModel toSave;
+    private final RepoStore.Compression compression;
 
-    public WriteTask(String repoName, SerializableModel toSave) {
+    public WriteTask(String repoName, SerializableModel toSave, RepoStore.Compression compression) {
         super(repoName);
         this.toSave = toSave;
+        this.compression = compression;
     }
 
     @Override
@@ -24,8 +29,13 @@ class WriteTask extends StoreTask {
     }
 
     private void save(String repoId, SerializableModel model) {
-        String output = new Gson().toJson(model);
-        RepoStore.write(repoId, output);
+        RepoStore.write(repoId, compression, writer -> {
+            try {
+                new Gson().toJson(model, writer);
+            } catch (JsonIOException e) {
+                throw new IOException(e);
+            }
+        });
         logger.info(HTLog.format(repoId, "Written to JSON store"));
     }
 }
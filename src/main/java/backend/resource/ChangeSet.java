@@ -0,0 +1,111 @@
+package backend.resource;
+
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Describes how a collection of resources changed during an update, by key.
+ * Keys which were added, changed, removed or left unchanged are disjoint.
+ *
+ * @param <K> the type of the resource key, e.g. the issue id
+ */
+public class ChangeSet<K> {
+
+    private final Set<K> added;
+    private final Set<K> changed;
+    private final Set<K> removed;
+    private final Set<K> unchanged;
+
+    public ChangeSet(Set<K> added, Set<K> changed, Set<K> removed, Set<K> unchanged) {
+        this.added = Collections.unmodifiableSet(added);
+        this.changed = Collections.unmodifiableSet(changed);
+        this.removed = Collections.unmodifiableSet(removed);
+        this.unchanged = Collections.unmodifiableSet(unchanged);
+    }
+
+    /**
+     * Creates a change set in which nothing was removed, and every key not added or
+     * changed is unchanged. The unchanged keys are a view, so this takes time proportional
+     * only to the number of added and changed keys.
+     *
+     * @param keys the keys present after the update
+     */
+    public static <K> ChangeSet<K> of(Set<K> keys, Set<K> added, Set<K> changed) {
+        return new ChangeSet<>(added, changed, Collections.emptySet(),
+            Sets.difference(keys, Sets.union(added, changed)));
+    }
+
+    public static <K> ChangeSet<K> unchanged(Set<K> keys) {
+        return new ChangeSet<>(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), keys);
+    }
+
+    /**
+     * Compares two versions of a list of resources by key, in time linear in their sizes.
+     * Resources with the same key are changed if they are not equal.
+     */
+    public static <K, V> ChangeSet<K> compare(List<V> before, List<V> after, Function<V, K> key) {
+        Map<K, V> previous = new HashMap<>();
+        for (V resource : before) {
+            previous.putIfAbsent(key.apply(resource), resource);
+        }
+
+        Set<K> added = new HashSet<>();
+        Set<K> changed = new HashSet<>();
+        Set<K> unchanged = new HashSet<>();
+        for (V resource : after) {
+            K k = key.apply(resource);
+            if (!previous.containsKey(k)) {
+                added.add(k);
+            } else if (!previous.get(k).equals(resource)) {
+                changed.add(k);
+            } else {
+                unchanged.add(k);
+            }
+        }
+        Set<K> removed = new HashSet<>(Sets.difference(previous.keySet(), Sets.union(changed, unchanged)));
+        return new ChangeSet<>(added, changed, removed, unchanged);
+    }
+
+    public Set<K> getAdded() {
+        return added;
+    }
+
+    public Set<K> getChanged() {
+        return changed;
+    }
+
+    public Set<K> getRemoved() {
+        return removed;
+    }
+
+    public Set<K> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return true if the resource with the given key was added, changed or removed
+     */
+    public boolean affects(K key) {
+        return added.contains(key) || changed.contains(key) || removed.contains(key);
+    }
+
+    /**
+     * @return true if any key was added, changed or removed
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added %s, %d changed %s, %d removed %s, %d unchanged",
+            added.size(), added, changed.size(), changed, removed.size(), removed, unchanged.size());
+    }
+}
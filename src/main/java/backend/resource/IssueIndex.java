@@ -0,0 +1,217 @@
+package backend.resource;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Inverted indexes over the issues of a repository, from the attributes filters most often
+ * test to the ids of the issues having them: labels, assignee, milestone, creator, state
+ * and type. Issue ids are small and dense within a repository, so id sets are bit sets.
+ *
+ * Sets are never modified once stored; changes replace them with modified copies, so an
+ * index derived from another may share most of its sets. Getters return copies, which
+ * callers may combine freely.
+ */
+public class IssueIndex {
+
+    private final Map<Integer, Entry> entries;
+    private final Map<String, BitSet> byLabel;
+    private final Map<String, BitSet> byAssignee;
+    private final Map<Integer, BitSet> byMilestone;
+    private final Map<String, BitSet> byCreator;
+    private BitSet all;
+    private BitSet open;
+    private BitSet pullRequests;
+
+    /**
+     * The attributes an issue was indexed under, kept so that the issue can be removed
+     * from the index after it has been modified in place.
+     */
+    private static class Entry {
+        private final List<String> labels;
+        private final Optional<String> assignee;
+        private final Optional<Integer> milestone;
+        private final String creator;
+        private final boolean isOpen;
+        private final boolean isPullRequest;
+
+        private Entry(TurboIssue issue) {
+            // Shared with the issue, as its labels are replaced rather than modified
+            labels = Arrays.asList(issue.getLabelArray());
+            assignee = issue.getAssignee();
+            milestone = issue.getMilestone();
+            creator = issue.getCreator();
+            isOpen = issue.isOpen();
+            isPullRequest = issue.isPullRequest();
+        }
+    }
+
+    private IssueIndex() {
+        entries = new HashMap<>();
+        byLabel = new HashMap<>();
+        byAssignee = new HashMap<>();
+        byMilestone = new HashMap<>();
+        byCreator = new HashMap<>();
+        all = new BitSet();
+        open = new BitSet();
+        pullRequests = new BitSet();
+    }
+
+    private IssueIndex(IssueIndex index) {
+        entries = new HashMap<>(index.entries);
+        byLabel = new HashMap<>(index.byLabel);
+        byAssignee = new HashMap<>(index.byAssignee);
+        byMilestone = new HashMap<>(index.byMilestone);
+        byCreator = new HashMap<>(index.byCreator);
+        all = index.all;
+        open = index.open;
+        pullRequests = index.pullRequests;
+    }
+
+    /**
+     * Builds an index over the given issues, whose ids should be distinct.
+     */
+    public static IssueIndex of(Collection<TurboIssue> issues) {
+        IssueIndex index = new IssueIndex();
+        for (TurboIssue issue : issues) {
+            if (issue.getId() < 0) continue;
+            index.entries.putIfAbsent(issue.getId(), new Entry(issue));
+        }
+        index.entries.forEach((id, entry) -> {
+            entry.labels.forEach(label -> index.byLabel.computeIfAbsent(label, k -> new BitSet()).set(id));
+            entry.assignee.ifPresent(login -> index.byAssignee.computeIfAbsent(login, k -> new BitSet()).set(id));
+            entry.milestone.ifPresent(m -> index.byMilestone.computeIfAbsent(m, k -> new BitSet()).set(id));
+            index.byCreator.computeIfAbsent(entry.creator, k -> new BitSet()).set(id);
+            index.all.set(id);
+            index.open.set(id, entry.isOpen);
+            index.pullRequests.set(id, entry.isPullRequest);
+        });
+        return index;
+    }
+
+    /**
+     * Derives the index of an updated version of the repository's issues. Only the sets
+     * containing changed issues are copied; the rest are shared with this index.
+     *
+     * @param changes The changes made to the issues since this index was built.
+     * @param updatedIssue Looks up the current version of an issue by id.
+     * @return this index if nothing changed, otherwise a new index
+     */
+    public synchronized IssueIndex update(ChangeSet<Integer> changes,
+                                          Function<Integer, TurboIssue> updatedIssue) {
+        if (!changes.hasChanges()) {
+            return this;
+        }
+        IssueIndex result = new IssueIndex(this);
+        for (Set<Integer> ids : Arrays.asList(changes.getAdded(), changes.getChanged(), changes.getRemoved())) {
+            ids.forEach(id -> result.reindex(id, updatedIssue.apply(id)));
+        }
+        return result;
+    }
+
+    /**
+     * Updates the index after an issue has been modified in place.
+     */
+    public synchronized void reindex(TurboIssue issue) {
+        reindex(issue.getId(), issue);
+    }
+
+    private void reindex(int id, TurboIssue issue) {
+        if (id < 0) return;
+
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            previous.labels.forEach(label -> modify(byLabel, label, set -> set.clear(id)));
+            previous.assignee.ifPresent(login -> modify(byAssignee, login, set -> set.clear(id)));
+            previous.milestone.ifPresent(m -> modify(byMilestone, m, set -> set.clear(id)));
+            modify(byCreator, previous.creator, set -> set.clear(id));
+        }
+        all = copyAndSet(all, id, issue != null);
+        open = copyAndSet(open, id, issue != null && issue.isOpen());
+        pullRequests = copyAndSet(pullRequests, id, issue != null && issue.isPullRequest());
+
+        if (issue != null) {
+            Entry entry = new Entry(issue);
+            entries.put(id, entry);
+            entry.labels.forEach(label -> modify(byLabel, label, set -> set.set(id)));
+            entry.assignee.ifPresent(login -> modify(byAssignee, login, set -> set.set(id)));
+            entry.milestone.ifPresent(m -> modify(byMilestone, m, set -> set.set(id)));
+            modify(byCreator, entry.creator, set -> set.set(id));
+        }
+    }
+
+    private static <K> void modify(Map<K, BitSet> sets, K key, Consumer<BitSet> change) {
+        BitSet set = sets.containsKey(key) ? (BitSet) sets.get(key).clone() : new BitSet();
+        change.accept(set);
+        if (set.isEmpty()) {
+            sets.remove(key);
+        } else {
+            sets.put(key, set);
+        }
+    }
+
+    private static BitSet copyAndSet(BitSet set, int id, boolean value) {
+        if (set.get(id) == value) {
+            return set;
+        }
+        BitSet result = (BitSet) set.clone();
+        result.set(id, value);
+        return result;
+    }
+
+    private static <K> BitSet copyOf(Map<K, BitSet> sets, K key) {
+        BitSet set = sets.get(key);
+        return set == null ? new BitSet() : (BitSet) set.clone();
+    }
+
+    public synchronized BitSet getAllIssues() {
+        return (BitSet) all.clone();
+    }
+
+    public synchronized BitSet getOpenIssues() {
+        return (BitSet) open.clone();
+    }
+
+    public synchronized BitSet getPullRequests() {
+        return (BitSet) pullRequests.clone();
+    }
+
+    /**
+     * @return the issues having the label with the given actual name
+     */
+    public synchronized BitSet getIssuesWithLabel(String labelName) {
+        return copyOf(byLabel, labelName);
+    }
+
+    public synchronized BitSet getIssuesAssignedTo(String login) {
+        return copyOf(byAssignee, login);
+    }
+
+    public synchronized BitSet getIssuesInMilestone(int milestoneId) {
+        return copyOf(byMilestone, milestoneId);
+    }
+
+    public synchronized BitSet getIssuesCreatedBy(String login) {
+        return copyOf(byCreator, login);
+    }
+
+    /**
+     * @return the actual names of the labels of the issues
+     */
+    public synchronized Set<String> getLabels() {
+        return new HashSet<>(byLabel.keySet());
+    }
+
+    public synchronized Set<String> getAssignees() {
+        return new HashSet<>(byAssignee.keySet());
+    }
+
+    public synchronized Set<Integer> getMilestones() {
+        return new HashSet<>(byMilestone.keySet());
+    }
+
+    public synchronized Set<String> getCreators() {
+        return new HashSet<>(byCreator.keySet());
+    }
+}
@@ -0,0 +1,41 @@
+package backend.resource;
+
+import backend.resource.serialization.SerializableIssuePage;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A page of a repository's issues, as downloaded. Pages are numbered from 1.
+ */
+public class IssuePage {
+
+    private final String repoId;
+    private final int number;
+    private final List<TurboIssue> issues;
+
+    public IssuePage(String repoId, int number, List<TurboIssue> issues) {
+        this.repoId = repoId;
+        this.number = number;
+        this.issues = ImmutableList.copyOf(issues);
+    }
+
+    public IssuePage(SerializableIssuePage page) {
+        this(page.repoId, page.number, page.issues.stream()
+            .map(i -> new TurboIssue(page.repoId, i))
+            .collect(Collectors.toList()));
+    }
+
+    public String getRepoId() {
+        return repoId;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public List<TurboIssue> getIssues() {
+        return issues;
+    }
+}
@@ -3,12 +3,16 @@ package backend.resource;
 import backend.UpdateSignature;
 import backend.interfaces.IBaseModel;
 import backend.resource.serialization.SerializableModel;
+import com.google.common.collect.ImmutableList;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * A snapshot of a repository. Its resource lists are immutable, and are shared with
+ * models copied or derived from it.
+ */
 @SuppressWarnings("unused")
 public class Model implements IBaseModel {
 
@@ -19,19 +23,95 @@ public class Model implements IBaseModel {
     private final List<TurboMilestone> milestones;
     private final List<TurboUser> users;
 
+    // Lookup indexes over the above, built once per instance.
+    // Where keys collide, the first resource in list order wins, as with a linear scan.
+    private final Map<Integer, TurboIssue> issuesById;
+    private final Map<String, TurboLabel> labelsByActualName;
+    private final Map<Integer, TurboMilestone> milestonesById;
+    private final Map<String, TurboMilestone> milestonesByTitle;
+    private final Map<String, TurboUser> usersByLogin;
+
+    // Issue ids by label, assignee, milestone, creator, state and type, for filtering
+    private final IssueIndex issueIndex;
+
+    // Issue ids by the words of their titles and descriptions. Built when first needed,
+    // or derived from the index of the previous model if it had one.
+    private TextIndex textIndex;
+
+    // How the issues differ from those of the model this one was updated from.
+    // Null if this model was not produced by an update.
+    private final ChangeSet<Integer> issueChanges;
+
     /**
-     * Standard constructor.
+     * Constructor for a model produced by an update, with the issue changes
+     * it made to the previous model.
      */
     public Model(String repoId, List<TurboIssue> issues,
         List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
-        UpdateSignature updateSignature) {
+        UpdateSignature updateSignature, ChangeSet<Integer> issueChanges) {
+
+        this(repoId, issues, labels, milestones, users, updateSignature, issueChanges,
+            issuesById -> IssueIndex.of(issuesById.values()));
+    }
+
+    /**
+     * Constructor for a model produced by an update of the given model, with the issue
+     * changes it made. The issue index is derived from that of the previous model.
+     */
+    public Model(Model previous, List<TurboIssue> issues,
+        List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
+        UpdateSignature updateSignature, ChangeSet<Integer> issueChanges) {
+
+        this(previous.getRepoId(), issues, labels, milestones, users, updateSignature, issueChanges,
+            issuesById -> previous.issueIndex.update(issueChanges, issuesById::get));
+        this.textIndex = previous.getTextIndexIfBuilt()
+            .map(index -> index.update(issueChanges, previous.issuesById::get, issuesById::get))
+            .orElse(null);
+    }
+
+    private Model(String repoId, List<TurboIssue> issues,
+        List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
+        UpdateSignature updateSignature, ChangeSet<Integer> issueChanges,
+        Function<Map<Integer, TurboIssue>, IssueIndex> indexer) {
 
         this.updateSignature = updateSignature;
+        this.issueChanges = issueChanges;
         this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+
+        // Lists coming from another model are already immutable and are shared rather than copied
+        this.issues = ImmutableList.copyOf(issues);
+        this.labels = ImmutableList.copyOf(labels);
+        this.milestones = ImmutableList.copyOf(milestones);
+        this.users = ImmutableList.copyOf(users);
+
+        this.issuesById = index(this.issues, TurboIssue::getId);
+        this.labelsByActualName = index(this.labels, TurboLabel::getActualName);
+        this.milestonesById = index(this.milestones, TurboMilestone::getId);
+        this.milestonesByTitle = index(this.milestones, TurboMilestone::getTitle);
+        this.usersByLogin = index(this.users, TurboUser::getLoginName);
+        this.issueIndex = indexer.apply(issuesById);
+    }
+
+    /**
+     * Standard constructor.
+     */
+    public Model(String repoId, List<TurboIssue> issues,
+        List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
+        UpdateSignature updateSignature) {
+
+        this(repoId, issues, labels, milestones, users, updateSignature, (ChangeSet<Integer>) null);
+    }
+
+    /**
+     * Constructor for a model loaded from the store, along with its text index if it was stored.
+     */
+    public Model(String repoId, List<TurboIssue> issues,
+        List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
+        UpdateSignature updateSignature, Optional<TextIndex> textIndex) {
+
+        this(repoId, issues, labels, milestones, users, updateSignature, null,
+            issuesById -> IssueIndex.of(issuesById.values()));
+        this.textIndex = textIndex.orElse(null);
     }
 
     /**
@@ -41,81 +121,121 @@ public class Model implements IBaseModel {
     public Model(String repoId, List<TurboIssue> issues,
         List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users) {
 
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
     }
 
     /**
      * Constructor for the empty model.
      */
     public Model(String repoId) {
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = new ArrayList<>();
-        this.labels = new ArrayList<>();
-        this.milestones = new ArrayList<>();
-        this.users = new ArrayList<>();
+        this(repoId, ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of());
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. As models are immutable, the resource lists are shared.
      */
     public Model(Model model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.getRepoId();
-        this.issues = new ArrayList<>(model.getIssues());
-        this.labels = new ArrayList<>(model.getLabels());
-        this.milestones = new ArrayList<>(model.getMilestones());
-        this.users = new ArrayList<>(model.getUsers());
+        this(model.getRepoId(), model.issues, model.labels, model.milestones, model.users,
+            model.updateSignature, model.issueChanges, issuesById -> model.issueIndex);
+        this.textIndex = model.getTextIndexIfBuilt().orElse(null);
     }
 
     public Model(SerializableModel model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.repoId;
-        this.issues = model.issues.stream()
-            .map(i -> new TurboIssue(model.repoId, i))
-            .collect(Collectors.toList());
-        this.labels = model.labels.stream()
-            .map(l -> new TurboLabel(model.repoId, l))
-            .collect(Collectors.toList());
-        this.milestones = model.milestones.stream()
-            .map(m -> new TurboMilestone(model.repoId, m))
-            .collect(Collectors.toList());
-        this.users = model.users.stream()
-            .map(u -> new TurboUser(model.repoId, u))
-            .collect(Collectors.toList());
+        this(model.repoId,
+            model.issues.stream()
+                .map(i -> new TurboIssue(model.repoId, i))
+                .collect(Collectors.toList()),
+            model.labels.stream()
+                .map(l -> new TurboLabel(model.repoId, l))
+                .collect(Collectors.toList()),
+            model.milestones.stream()
+                .map(m -> new TurboMilestone(model.repoId, m))
+                .collect(Collectors.toList()),
+            model.users.stream()
+                .map(u -> new TurboUser(model.repoId, u))
+                .collect(Collectors.toList()),
+            model.updateSignature);
+        if (model.textIndex != null) {
+            try {
+                this.textIndex = new TextIndex(model.textIndex);
+            } catch (IllegalArgumentException e) {
+                // Rebuilt when needed
+                this.textIndex = null;
+            }
+        }
+    }
+
+    private static <K, V> Map<K, V> index(List<V> resources, Function<V, K> key) {
+        Map<K, V> result = new HashMap<>();
+        for (V resource : resources) {
+            result.putIfAbsent(key.apply(resource), resource);
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     public String getRepoId() {
         return repoId;
     }
 
+    public Set<Integer> getIssueIds() {
+        return issuesById.keySet();
+    }
+
+    /**
+     * @return the issues added or changed by the update which produced this model,
+     * or empty if it was not produced by an update
+     */
+    public Optional<ChangeSet<Integer>> getIssueChanges() {
+        return Optional.ofNullable(issueChanges);
+    }
+
+    /**
+     * Issues modified in place must be reindexed.
+     */
+    public IssueIndex getIssueIndex() {
+        return issueIndex;
+    }
+
+    /**
+     * Builds the index of the words in issue titles and descriptions if this has not been done.
+     */
+    public synchronized TextIndex getTextIndex() {
+        if (textIndex == null) {
+            textIndex = TextIndex.of(issuesById.values());
+        }
+        return textIndex;
+    }
+
+    public synchronized Optional<TextIndex> getTextIndexIfBuilt() {
+        return Optional.ofNullable(textIndex);
+    }
+
     public UpdateSignature getUpdateSignature() {
         return updateSignature;
     }
 
+    /**
+     * The resource getters return immutable views, so reads do not copy.
+     * Copy the result before modifying it.
+     */
     @Override
     public List<TurboIssue> getIssues() {
-        return new ArrayList<>(issues);
+        return issues;
     }
 
     @Override
     public List<TurboLabel> getLabels() {
-        return new ArrayList<>(labels);
+        return labels;
     }
 
     @Override
     public List<TurboMilestone> getMilestones() {
-        return new ArrayList<>(milestones);
+        return milestones;
     }
 
     @Override
     public List<TurboUser> getUsers() {
-        return new ArrayList<>(users);
+        return users;
     }
 
     private void ______OPERATIONS_____() {
@@ -123,52 +243,34 @@ public class Model implements IBaseModel {
 
     public Optional<TurboIssue> getIssueById(int issueId) {
         assert issueId >= 1 : "Invalid issue id " + issueId;
-        for (TurboIssue issue : getIssues()) {
-            if (issue.getId() == issueId) {
-                return Optional.of(issue);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(issuesById.get(issueId));
+    }
+
+    /**
+     * @return true if this very issue, rather than another version of it, is in this model
+     */
+    public boolean containsIssue(TurboIssue issue) {
+        return issuesById.get(issue.getId()) == issue;
     }
 
     public Optional<TurboLabel> getLabelByActualName(String labelName) {
         assert labelName != null && !labelName.isEmpty() : "Invalid label name " + labelName;
-        for (TurboLabel label : getLabels()) {
-            if (label.getActualName().equals(labelName)) {
-                return Optional.of(label);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(labelsByActualName.get(labelName));
     }
 
     public Optional<TurboUser> getUserByLogin(String login) {
         assert login != null && !login.isEmpty() : "Invalid user name " + login;
-        for (TurboUser user : getUsers()) {
-            if (user.getLoginName().equals(login)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(usersByLogin.get(login));
     }
 
     public Optional<TurboMilestone> getMilestoneByTitle(String title) {
         assert title != null && !title.isEmpty() : "Invalid milestone title " + title;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getTitle().equals(title)) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesByTitle.get(title));
     }
 
     public Optional<TurboMilestone> getMilestoneById(int id) {
         assert id >= 1 : "Invalid milestone id " + id;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getId() == id) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesById.get(id));
     }
 
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
@@ -180,10 +282,14 @@ public class Model implements IBaseModel {
     }
 
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
-        return issue.getLabels().stream()
-            .map(this::getLabelByActualName)
-            .filter(Optional::isPresent).map(Optional::get)
-            .collect(Collectors.toList());
+        List<TurboLabel> result = new ArrayList<>(issue.getLabels().size());
+        for (String labelName : issue.getLabels()) {
+            TurboLabel label = labelsByActualName.get(labelName);
+            if (label != null) {
+                result.add(label);
+            }
+        }
+        return result;
     }
 
     private void ______BOILERPLATE______() {
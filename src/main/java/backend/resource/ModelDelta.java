@@ -0,0 +1,75 @@
+package backend.resource;
+
+/**
+ * The changes made to the model of a repository by an update, by resource key:
+ * issue id, label name, milestone id and user login.
+ */
+public class ModelDelta {
+
+    private final String repoId;
+    private final ChangeSet<Integer> issues;
+    private final ChangeSet<String> labels;
+    private final ChangeSet<Integer> milestones;
+    private final ChangeSet<String> users;
+
+    public ModelDelta(String repoId, ChangeSet<Integer> issues, ChangeSet<String> labels,
+                      ChangeSet<Integer> milestones, ChangeSet<String> users) {
+        this.repoId = repoId;
+        this.issues = issues;
+        this.labels = labels;
+        this.milestones = milestones;
+        this.users = users;
+    }
+
+    /**
+     * Computes the delta between two versions of a repository's model. The issue changes
+     * recorded by the update which produced the newer model are used if present.
+     */
+    public static ModelDelta between(Model before, Model after) {
+        assert before.getRepoId().equals(after.getRepoId());
+        return new ModelDelta(after.getRepoId(),
+            after.getIssueChanges().orElseGet(() ->
+                ChangeSet.compare(before.getIssues(), after.getIssues(), TurboIssue::getId)),
+            ChangeSet.compare(before.getLabels(), after.getLabels(), TurboLabel::getActualName),
+            ChangeSet.compare(before.getMilestones(), after.getMilestones(), TurboMilestone::getId),
+            ChangeSet.compare(before.getUsers(), after.getUsers(), TurboUser::getLoginName));
+    }
+
+    public String getRepoId() {
+        return repoId;
+    }
+
+    public ChangeSet<Integer> getIssues() {
+        return issues;
+    }
+
+    public ChangeSet<String> getLabels() {
+        return labels;
+    }
+
+    public ChangeSet<Integer> getMilestones() {
+        return milestones;
+    }
+
+    public ChangeSet<String> getUsers() {
+        return users;
+    }
+
+    public boolean hasChanges() {
+        return issues.hasChanges() || labels.hasChanges() || milestones.hasChanges() || users.hasChanges();
+    }
+
+    /**
+     * @return true if only issues were added, changed or removed. Filters which depend on labels,
+     * milestones or users may then be evaluated again for the affected issues alone.
+     */
+    public boolean hasIssueChangesOnly() {
+        return !labels.hasChanges() && !milestones.hasChanges() && !users.hasChanges();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: issues %s; labels %s; milestones %s; users %s",
+            repoId, issues, labels, milestones, users);
+    }
+}
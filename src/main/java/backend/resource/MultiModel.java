@@ -2,10 +2,12 @@ package backend.resource;
 
 import backend.IssueMetadata;
 import backend.interfaces.IModel;
+import com.google.common.collect.ImmutableList;
 import prefs.Preferences;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -23,12 +25,25 @@ public class MultiModel implements IModel {
     // requests for the same repository to load it multiple times.
     private final HashSet<String> pendingRepositories;
 
+    // Issues relabelled in place, by repository. A model built from the current one, e.g. by a refresh,
+    // copies its index and may have been built before the relabel, so these issues are reindexed in
+    // the model which replaces the current one.
+    private final HashMap<String, HashSet<Integer>> relabelledIssues;
+
     // Guaranteed to have a value throughout
     private String defaultRepo = null;
 
+    // Concatenations of the resources of all models, built lazily and
+    // discarded whenever the set of models changes
+    private List<TurboIssue> allIssues = null;
+    private List<TurboLabel> allLabels = null;
+    private List<TurboMilestone> allMilestones = null;
+    private List<TurboUser> allUsers = null;
+
     public MultiModel(Preferences prefs) {
         this.models = new HashMap<>();
         this.pendingRepositories = new HashSet<>();
+        this.relabelledIssues = new HashMap<>();
         this.prefs = prefs;
     }
 
@@ -41,34 +56,120 @@ public class MultiModel implements IModel {
         return this;
     }
 
+    /**
+     * Shows a repository which is still being downloaded with the issues downloaded so far. It remains
+     * pending until its complete model is added.
+     *
+     * @return the changes made to the partial model previously shown, if there was one
+     */
+    public synchronized Optional<ModelDelta> addPartial(Model model) {
+        String repoId = model.getRepoId();
+        assert pendingRepositories.contains(repoId) : "No pending repository " + repoId + "!";
+        Optional<ModelDelta> changes = Optional.ofNullable(models.get(repoId))
+            .map(previous -> ModelDelta.between(previous, model));
+        add(model);
+        preprocessNewIssues(model);
+        return changes;
+    }
+
     private synchronized MultiModel add(Model model) {
         this.models.put(model.getRepoId(), model);
+        reindexRelabelledIssues(model);
+        invalidateResources();
         return this;
     }
 
+    private void reindexRelabelledIssues(Model model) {
+        HashSet<Integer> issueIds = relabelledIssues.remove(model.getRepoId());
+        if (issueIds != null) {
+            issueIds.forEach(id -> model.getIssueById(id).ifPresent(model.getIssueIndex()::reindex));
+        }
+    }
+
+    private void invalidateResources() {
+        allIssues = null;
+        allLabels = null;
+        allMilestones = null;
+        allUsers = null;
+    }
+
     public synchronized Model get(String repoId) {
         return models.get(repoId);
     }
 
+    @Override
     public synchronized List<Model> toModels() {
         return new ArrayList<>(models.values());
     }
 
-    public synchronized MultiModel replace(List<Model> newModels) {
-        preprocessUpdatedIssues(newModels);
-        this.models.clear();
+    /**
+     * Replaces the models of existing repositories with updated versions. Repositories which are
+     * still being downloaded keep their partial models.
+     *
+     * @return the changes each updated model makes to the one it replaces
+     */
+    public synchronized List<ModelDelta> replace(List<Model> newModels) {
+        List<ModelDelta> changes = new ArrayList<>();
+        for (Model model : newModels) {
+            assert models.containsKey(model.getRepoId());
+            ModelDelta delta = ModelDelta.between(models.get(model.getRepoId()), model);
+            preprocessUpdatedIssues(model, delta.getIssues());
+            changes.add(delta);
+        }
+        this.models.keySet().retainAll(pendingRepositories);
+        invalidateResources();
         newModels.forEach(this::add);
-        return this;
+        return changes;
     }
 
-    public synchronized void insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata, String currentUser) {
-        models.get(repoId).getIssues().forEach(issue -> {
-            if (metadata.containsKey(issue.getId())) {
-                IssueMetadata toBeInserted = metadata.get(issue.getId());
-                LocalDateTime nonSelfUpdatedAt = reconcileCreationDate(toBeInserted.getNonSelfUpdatedAt(),
-                        issue.getCreatedAt(), currentUser, issue.getCreator());
-                issue.setMetadata(new IssueMetadata(toBeInserted, nonSelfUpdatedAt));
-            }
+    /**
+     * Inserts the metadata downloaded for issues of a repository into its model.
+     *
+     * @return the changes made to the model, in which only the issues given metadata changed, unless the
+     * repository has been closed
+     */
+    public synchronized Optional<ModelDelta> insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata,
+                                                            String currentUser) {
+        Model model = models.get(repoId);
+        if (model == null) {
+            // The repository was closed while its metadata was being downloaded
+            return Optional.empty();
+        }
+        Set<Integer> changed = new HashSet<>();
+        metadata.forEach((id, toBeInserted) -> model.getIssueById(id).ifPresent(issue -> {
+            LocalDateTime nonSelfUpdatedAt = reconcileCreationDate(toBeInserted.getNonSelfUpdatedAt(),
+                    issue.getCreatedAt(), currentUser, issue.getCreator());
+            issue.setMetadata(new IssueMetadata(toBeInserted, nonSelfUpdatedAt));
+            changed.add(id);
+        }));
+        return Optional.of(new ModelDelta(repoId,
+            ChangeSet.of(model.getIssueIds(), Collections.emptySet(), changed),
+            ChangeSet.unchanged(keys(model.getLabels(), TurboLabel::getActualName)),
+            ChangeSet.unchanged(keys(model.getMilestones(), TurboMilestone::getId)),
+            ChangeSet.unchanged(keys(model.getUsers(), TurboUser::getLoginName))));
+    }
+
+    private static <K, V> Set<K> keys(List<V> resources, Function<V, K> key) {
+        return resources.stream().map(key).collect(Collectors.toSet());
+    }
+
+    /**
+     * Replaces the labels of an issue, and of the current model's version of it, which may differ from
+     * the given one if the model has been refreshed since it was picked. The model's version is reindexed,
+     * and is reindexed again in the model which replaces the current one.
+     */
+    public synchronized void replaceIssueLabels(TurboIssue issue, List<String> labels) {
+        issue.setLabels(labels);
+        String repoId = issue.getRepoId();
+        Model model = models.get(repoId);
+        if (model == null) {
+            // The repository was closed while the labels were being replaced
+            return;
+        }
+        model.getIssueById(issue.getId()).ifPresent(current -> {
+            current.setLabels(labels);
+            model.getIssueIndex().reindex(current);
+            relabelledIssues.computeIfAbsent(repoId, k -> new HashSet<>()).add(current.getId());
         });
     }
 
@@ -102,39 +203,51 @@ public class MultiModel implements IModel {
         this.defaultRepo = repoId;
     }
 
+    /**
+     * The resource getters return immutable lists, which are shared until the
+     * set of models changes. Copy the result before modifying it.
+     */
     @Override
     public synchronized List<TurboIssue> getIssues() {
-        List<TurboIssue> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getIssues()));
-        return result;
+        if (allIssues == null) {
+            allIssues = concatenate(Model::getIssues);
+        }
+        return allIssues;
     }
 
     @Override
     public synchronized List<TurboLabel> getLabels() {
-        List<TurboLabel> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getLabels()));
-        return result;
+        if (allLabels == null) {
+            allLabels = concatenate(Model::getLabels);
+        }
+        return allLabels;
     }
 
     @Override
     public synchronized List<TurboMilestone> getMilestones() {
-        List<TurboMilestone> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getMilestones()));
-        return result;
+        if (allMilestones == null) {
+            allMilestones = concatenate(Model::getMilestones);
+        }
+        return allMilestones;
     }
 
     @Override
     public synchronized List<TurboUser> getUsers() {
-        List<TurboUser> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getUsers()));
-        return result;
+        if (allUsers == null) {
+            allUsers = concatenate(Model::getUsers);
+        }
+        return allUsers;
+    }
+
+    private <T> List<T> concatenate(Function<Model, List<T>> resources) {
+        ImmutableList.Builder<T> result = ImmutableList.builder();
+        models.values().forEach(m -> result.addAll(resources.apply(m)));
+        return result.build();
     }
 
     @Override
     public Optional<Model> getModelById(String repoId) {
-        return models.containsKey(repoId)
-            ? Optional.of(models.get(repoId))
-            : Optional.empty();
+        return Optional.ofNullable(models.get(repoId));
     }
 
     @Override
@@ -145,17 +258,15 @@ public class MultiModel implements IModel {
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
-        return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-            .get().stream()
-            .filter(predicate)
-            .collect(Collectors.toList());
+        List<TurboLabel> result = getLabelsOfIssue(issue);
+        result.removeIf(predicate.negate());
+        return result;
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
         return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+            .map(m -> m.getLabelsOfIssue(issue))
             .get();
     }
 
@@ -190,26 +301,16 @@ public class MultiModel implements IModel {
     /**
      * Called on existing models that are updated.
      * Mutates TurboIssues with meta-information.
-     * @param newModels
+     * @param model
+     * @param changes the issue changes the updated model makes
      */
-    private void preprocessUpdatedIssues(List<Model> newModels) {
+    private void preprocessUpdatedIssues(Model model, ChangeSet<Integer> changes) {
         // Updates preferences with the results of issues that have been updated after a refresh.
         // This makes read issues show up again.
-        for (Model model : newModels) {
-            assert models.containsKey(model.getRepoId());
-            Model existingModel = models.get(model.getRepoId());
-            if (!existingModel.getIssues().equals(model.getIssues())) {
-                // Find issues that have changed and update preferences with them
-                for (int i = 1; i <= model.getIssues().size(); i++) {
-                    // TODO O(n^2), optimise by preprocessing into a map or sorting
-                    if (!existingModel.getIssueById(i).equals(model.getIssueById(i))) {
-                        assert model.getIssueById(i).isPresent();
-                        // It's no longer currently read, but it retains its updated time.
-                        // No changes to preferences.
-                        model.getIssueById(i).get().setIsCurrentlyRead(false);
-                    }
-                }
-            }
+        // Issues that have changed are no longer currently read, but retain their updated time.
+        // No changes to preferences.
+        for (Set<Integer> ids : Arrays.asList(changes.getAdded(), changes.getChanged())) {
+            ids.forEach(id -> model.getIssueById(id).ifPresent(issue -> issue.setIsCurrentlyRead(false)));
         }
     }
 
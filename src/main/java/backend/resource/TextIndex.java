@@ -0,0 +1,255 @@
+package backend.resource;
+
+import backend.resource.serialization.SerializableTextIndex;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An index of the words in the titles and descriptions of a repository's issues, used to
+ * narrow down the issues which may contain some text before they are searched.
+ *
+ * Words are maximal runs of letters and digits, compared ignoring case. Any text an issue
+ * contains, ignoring case, has each of its own words contained in some word of the issue,
+ * so the issues found for the text are a superset of those which contain it.
+ *
+ * Instances are immutable; an updated index is derived from a previous one.
+ */
+public class TextIndex {
+
+    // Issue ids for each word, sorted
+    private final Map<String, int[]> titleWords;
+    private final Map<String, int[]> bodyWords;
+
+    /**
+     * @param titleWords The sorted ids of the issues with each word in their titles.
+     * @param bodyWords The sorted ids of the issues with each word in their descriptions.
+     */
+    public TextIndex(Map<String, int[]> titleWords, Map<String, int[]> bodyWords) {
+        this.titleWords = titleWords;
+        this.bodyWords = bodyWords;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the stored index is corrupted
+     */
+    public TextIndex(SerializableTextIndex index) {
+        this(index.getTitleWords(), index.getBodyWords());
+    }
+
+    public static TextIndex of(Collection<TurboIssue> issues) {
+        Map<String, PostingBuilder> titles = new HashMap<>();
+        Map<String, PostingBuilder> bodies = new HashMap<>();
+        for (TurboIssue issue : issues) {
+            if (issue.getId() < 0) continue;
+            for (String word : words(issue.getTitle())) {
+                titles.computeIfAbsent(word, k -> new PostingBuilder()).add(issue.getId());
+            }
+            for (String word : words(issue.getDescription())) {
+                bodies.computeIfAbsent(word, k -> new PostingBuilder()).add(issue.getId());
+            }
+        }
+        return new TextIndex(build(titles), build(bodies));
+    }
+
+    /**
+     * Derives the index of an updated version of the repository's issues. The posting list of
+     * each word in a changed issue is rebuilt once; the rest are shared with this index.
+     *
+     * @param changes The changes made to the issues since this index was built.
+     * @param previousIssue Looks up the version of an issue this index was built from, by id.
+     * @param updatedIssue Looks up the current version of an issue by id.
+     * @return this index if nothing changed, otherwise a new index
+     */
+    public TextIndex update(ChangeSet<Integer> changes,
+                            Function<Integer, TurboIssue> previousIssue,
+                            Function<Integer, TurboIssue> updatedIssue) {
+        if (!changes.hasChanges()) {
+            return this;
+        }
+        Map<String, PostingUpdate> titles = new HashMap<>();
+        Map<String, PostingUpdate> bodies = new HashMap<>();
+        for (Set<Integer> ids : Arrays.asList(changes.getChanged(), changes.getRemoved())) {
+            for (int id : ids) {
+                Optional.ofNullable(previousIssue.apply(id)).ifPresent(issue -> {
+                    words(issue.getTitle()).forEach(word -> updateOf(titles, word).remove(id));
+                    words(issue.getDescription()).forEach(word -> updateOf(bodies, word).remove(id));
+                });
+            }
+        }
+        for (Set<Integer> ids : Arrays.asList(changes.getAdded(), changes.getChanged())) {
+            for (int id : ids) {
+                Optional.ofNullable(updatedIssue.apply(id)).ifPresent(issue -> {
+                    words(issue.getTitle()).forEach(word -> updateOf(titles, word).add(id));
+                    words(issue.getDescription()).forEach(word -> updateOf(bodies, word).add(id));
+                });
+            }
+        }
+        return new TextIndex(apply(titleWords, titles), apply(bodyWords, bodies));
+    }
+
+    /**
+     * @return a superset of the issues whose titles contain the given text, ignoring case,
+     * or empty if the text has no words to look up
+     */
+    public Optional<BitSet> findInTitles(String text) {
+        return find(titleWords, text);
+    }
+
+    /**
+     * @return a superset of the issues whose descriptions contain the given text, ignoring case,
+     * or empty if the text has no words to look up
+     */
+    public Optional<BitSet> findInBodies(String text) {
+        return find(bodyWords, text);
+    }
+
+    /**
+     * @return the sorted ids of the issues whose titles contain each word.
+     * The arrays must not be modified.
+     */
+    public Map<String, int[]> getTitleWords() {
+        return Collections.unmodifiableMap(titleWords);
+    }
+
+    /**
+     * @return the sorted ids of the issues whose descriptions contain each word.
+     * The arrays must not be modified.
+     */
+    public Map<String, int[]> getBodyWords() {
+        return Collections.unmodifiableMap(bodyWords);
+    }
+
+    private static Optional<BitSet> find(Map<String, int[]> index, String text) {
+        Set<String> pieces = words(text);
+        if (pieces.isEmpty()) {
+            return Optional.empty();
+        }
+        BitSet result = null;
+        for (String piece : pieces) {
+            BitSet issues = new BitSet();
+            index.forEach((word, ids) -> {
+                if (word.contains(piece)) {
+                    for (int id : ids) {
+                        issues.set(id);
+                    }
+                }
+            });
+            if (result == null) {
+                result = issues;
+            } else {
+                result.and(issues);
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Splits text into its distinct words, normalised for comparison.
+     */
+    static Set<String> words(String text) {
+        Set<String> result = new HashSet<>();
+        if (text == null) return result;
+
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalise(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                result.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            result.add(word.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Maps characters which String.regionMatches considers equal ignoring case to the same character.
+     */
+    private static char normalise(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static Map<String, int[]> build(Map<String, PostingBuilder> builders) {
+        Map<String, int[]> result = new HashMap<>();
+        builders.forEach((word, builder) -> result.put(word, builder.build()));
+        return result;
+    }
+
+    private static PostingUpdate updateOf(Map<String, PostingUpdate> updates, String word) {
+        return updates.computeIfAbsent(word, k -> new PostingUpdate());
+    }
+
+    private static Map<String, int[]> apply(Map<String, int[]> index, Map<String, PostingUpdate> updates) {
+        Map<String, int[]> result = new HashMap<>(index);
+        updates.forEach((word, update) -> {
+            int[] ids = update.applyTo(index.getOrDefault(word, new int[0]));
+            if (ids.length == 0) {
+                result.remove(word);
+            } else {
+                result.put(word, ids);
+            }
+        });
+        return result;
+    }
+
+    private static class PostingBuilder {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] build() {
+            int[] result = Arrays.copyOf(ids, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    private static class PostingUpdate {
+        private final Set<Integer> removed = new HashSet<>();
+        private final Set<Integer> added = new TreeSet<>();
+
+        private void remove(int id) {
+            removed.add(id);
+        }
+
+        private void add(int id) {
+            if (id >= 0) added.add(id);
+        }
+
+        private int[] applyTo(int[] ids) {
+            int[] result = new int[ids.length + added.size()];
+            int size = 0;
+            Iterator<Integer> toAdd = added.iterator();
+            Integer next = toAdd.hasNext() ? toAdd.next() : null;
+            for (int id : ids) {
+                while (next != null && next < id) {
+                    result[size++] = next;
+                    next = toAdd.hasNext() ? toAdd.next() : null;
+                }
+                if (next != null && next == id) {
+                    // Re-added after a change
+                    next = toAdd.hasNext() ? toAdd.next() : null;
+                } else if (removed.contains(id)) {
+                    continue;
+                }
+                result[size++] = id;
+            }
+            while (next != null) {
+                result[size++] = next;
+                next = toAdd.hasNext() ? toAdd.next() : null;
+            }
+            return Arrays.copyOf(result, size);
+        }
+    }
+}
@@ -2,14 +2,27 @@ package backend.resource;
 
 import backend.IssueMetadata;
 import backend.resource.serialization.SerializableIssue;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
+import util.StringPool;
 import util.Utility;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +34,14 @@ public class TurboIssue {
     public static final String STATE_CLOSED = "closed";
     public static final String STATE_OPEN = "open";
 
+    // Shared, as the issues of a repository are in few milestones; recurring strings are shared by StringPool
+    private static final Interner<Optional<Integer>> milestones = Interners.newWeakInterner();
+
+    private static final String[] NO_LABELS = {};
+
+    // Stands for a time which is absent
+    private static final long NO_TIME = Long.MIN_VALUE;
+
     /**
      * Must have reasonable, NON-NULL defaults.
      * Should be primitive types, or at least easily-serializable ones.
@@ -30,21 +51,27 @@ public class TurboIssue {
     private void ______SERIALIZED_FIELDS______() {
     }
 
+    // Times are held as UTC seconds since the epoch and nanoseconds, rather than as LocalDateTimes,
+    // each of which takes three objects; and labels as an array which is replaced rather than modified,
+    // so that it may be shared
+
     // Immutable
     private final int id;
     private final String creator;
-    private final LocalDateTime createdAt;
+    private final long createdAtSeconds;
+    private final int createdAtNanos;
     private final boolean isPullRequest;
 
 
     // Mutable
     private String title;
     private String description;
-    private LocalDateTime updatedAt;
+    private long updatedAtSeconds;
+    private int updatedAtNanos;
     private int commentCount;
     private boolean isOpen;
     private Optional<String> assignee;
-    private List<String> labels;
+    private String[] labels;
     private Optional<Integer> milestone;
 
     /**
@@ -58,6 +85,9 @@ public class TurboIssue {
     private Optional<LocalDateTime> markedReadAt;
     private boolean isCurrentlyRead;
 
+    // Decodes the description when it is first needed, if it has not been yet
+    private transient volatile Supplier<String> descriptionSource;
+
     private void ______CONSTRUCTORS______() {
     }
 
@@ -67,13 +97,15 @@ public class TurboIssue {
     public TurboIssue(String repoId, int id, String title) {
         this.id = id;
         this.creator = "";
-        this.createdAt = LocalDateTime.now();
+        LocalDateTime createdAt = LocalDateTime.now();
+        this.createdAtSeconds = toSeconds(createdAt);
+        this.createdAtNanos = toNanos(createdAt);
         this.isPullRequest = false;
 
         mutableFieldDefaults();
 
         this.title = title;
-        this.repoId = repoId;
+        this.repoId = StringPool.intern(repoId);
     }
 
     /**
@@ -82,14 +114,15 @@ public class TurboIssue {
     public TurboIssue(String repoId, int id, String title,
                       String creator, LocalDateTime createdAt, boolean isPullRequest) {
         this.id = id;
-        this.creator = creator;
-        this.createdAt = createdAt;
+        this.creator = StringPool.intern(creator);
+        this.createdAtSeconds = toSeconds(createdAt);
+        this.createdAtNanos = toNanos(createdAt);
         this.isPullRequest = isPullRequest;
 
         mutableFieldDefaults();
 
         this.title = title;
-        this.repoId = repoId;
+        this.repoId = StringPool.intern(repoId);
     }
 
     // Copy constructor
@@ -97,18 +130,23 @@ public class TurboIssue {
         this.id = issue.id;
         this.title = issue.title;
         this.creator = issue.creator;
-        this.createdAt = issue.createdAt;
+        this.createdAtSeconds = issue.createdAtSeconds;
+        this.createdAtNanos = issue.createdAtNanos;
         this.isPullRequest = issue.isPullRequest;
 
+        // The source is read first, as the description is only written before it is cleared
+        this.descriptionSource = issue.descriptionSource;
         this.description = issue.description;
-        this.updatedAt = issue.updatedAt;
+        this.updatedAtSeconds = issue.updatedAtSeconds;
+        this.updatedAtNanos = issue.updatedAtNanos;
         this.commentCount = issue.commentCount;
         this.isOpen = issue.isOpen;
         this.assignee = issue.assignee;
-        this.labels = new ArrayList<>(issue.labels);
+        this.labels = issue.labels;
         this.milestone = issue.milestone;
 
-        this.metadata = new IssueMetadata(issue.metadata);
+        // Immutable, so it is shared
+        this.metadata = issue.metadata;
         this.repoId = issue.repoId;
         this.markedReadAt = issue.markedReadAt;
         this.isCurrentlyRead = issue.isCurrentlyRead;
@@ -117,47 +155,52 @@ public class TurboIssue {
     public TurboIssue(String repoId, Issue issue) {
         this.id = issue.getNumber();
         this.title = issue.getTitle();
-        this.creator = issue.getUser().getLogin();
-        this.createdAt = Utility.dateToLocalDateTime(issue.getCreatedAt());
+        this.creator = StringPool.intern(issue.getUser().getLogin());
+        LocalDateTime createdAt = Utility.dateToLocalDateTime(issue.getCreatedAt());
+        this.createdAtSeconds = toSeconds(createdAt);
+        this.createdAtNanos = toNanos(createdAt);
         this.isPullRequest = isPullRequest(issue);
 
         this.description = issue.getBody();
-        this.updatedAt = Utility.dateToLocalDateTime(issue.getUpdatedAt());
+        setUpdatedAt(Utility.dateToLocalDateTime(issue.getUpdatedAt()));
         this.commentCount = issue.getComments();
         this.isOpen = issue.getState().equals(STATE_OPEN);
         this.assignee = issue.getAssignee() == null
             ? Optional.empty()
-            : Optional.of(issue.getAssignee().getLogin());
-        this.labels = issue.getLabels().stream()
+            : StringPool.intern(Optional.of(issue.getAssignee().getLogin()));
+        this.labels = toLabels(issue.getLabels().stream()
             .map(Label::getName)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
         this.milestone = issue.getMilestone() == null
             ? Optional.empty()
-            : Optional.of(issue.getMilestone().getNumber());
+            : internMilestone(issue.getMilestone().getNumber());
 
-        this.metadata = new IssueMetadata();
-        this.repoId = repoId;
+        this.metadata = IssueMetadata.EMPTY;
+        this.repoId = StringPool.intern(repoId);
         this.markedReadAt = Optional.empty();
         this.isCurrentlyRead = false;
     }
 
     public TurboIssue(String repoId, SerializableIssue issue) {
         this.id = issue.getId();
-        this.creator = issue.getCreator();
-        this.createdAt = issue.getCreatedAt();
+        this.creator = StringPool.intern(issue.getCreator());
+        this.createdAtSeconds = toSeconds(issue.getCreatedAt());
+        this.createdAtNanos = toNanos(issue.getCreatedAt());
         this.isPullRequest = issue.isPullRequest();
 
         this.title = issue.getTitle();
         this.description = issue.getDescription();
-        this.updatedAt = issue.getUpdatedAt();
+        setUpdatedAt(issue.getUpdatedAt());
         this.commentCount = issue.getCommentCount();
         this.isOpen = issue.isOpen();
-        this.assignee = issue.getAssignee();
-        this.labels = issue.getLabels();
-        this.milestone = issue.getMilestone();
-
-        this.metadata = new IssueMetadata();
-        this.repoId = repoId;
+        this.assignee = StringPool.intern(issue.getAssignee());
+        this.labels = toLabels(issue.getLabels());
+        this.milestone = issue.getMilestone().isPresent()
+            ? internMilestone(issue.getMilestone().get())
+            : Optional.empty();
+
+        this.metadata = IssueMetadata.EMPTY;
+        this.repoId = StringPool.intern(repoId);
         this.markedReadAt = Optional.empty();
         this.isCurrentlyRead = false;
     }
@@ -165,6 +208,33 @@ public class TurboIssue {
     private void ______CONSTRUCTOR_HELPER_FUNCTIONS______() {
     }
 
+    private static long toSeconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int toNanos(LocalDateTime time) {
+        return time == null ? 0 : time.getNano();
+    }
+
+    private static LocalDateTime toDateTime(long seconds, int nanos) {
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static String[] toLabels(List<String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return NO_LABELS;
+        }
+        String[] result = new String[labels.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = StringPool.intern(labels.get(i));
+        }
+        return result;
+    }
+
+    private static Optional<Integer> internMilestone(int milestone) {
+        return milestones.intern(Optional.of(milestone));
+    }
+
     private static boolean isPullRequest(Issue issue) {
         return issue.getPullRequest() != null && issue.getPullRequest().getUrl() != null;
     }
@@ -172,14 +242,14 @@ public class TurboIssue {
     private void mutableFieldDefaults() {
         this.title = "";
         this.description = "";
-        this.updatedAt = LocalDateTime.now();
+        setUpdatedAt(LocalDateTime.now());
         this.commentCount = 0;
         this.isOpen = true;
         this.assignee = Optional.empty();
-        this.labels = new ArrayList<>();
+        this.labels = NO_LABELS;
         this.milestone = Optional.empty();
 
-        this.metadata = new IssueMetadata();
+        this.metadata = IssueMetadata.EMPTY;
         this.markedReadAt = Optional.empty();
         this.isCurrentlyRead = false;
     }
@@ -213,37 +283,51 @@ public class TurboIssue {
      * returning a list of TurboIssues with updates from the second.
      */
     public static List<TurboIssue> reconcile(String repoId, List<TurboIssue> existing, List<TurboIssue> changed) {
-        existing = new ArrayList<>(existing);
-        for (TurboIssue issue : changed) {
-            int id = issue.getId();
+        return reconcileWithChanges(repoId, existing, changed).getLeft();
+    }
 
-            // TODO O(n^2), fix by preprocessing and copying into a map
-            Optional<Integer> corresponding = findIssueWithId(existing, id);
-            if (corresponding.isPresent()) {
+    /**
+     * As with reconcile, but also returns the ids of the issues which were added, changed
+     * (differ from their existing counterparts), and left unchanged.
+     * Takes time linear in the sizes of the lists.
+     */
+    public static ImmutablePair<List<TurboIssue>, ChangeSet<Integer>> reconcileWithChanges(
+        String repoId, List<TurboIssue> existing, List<TurboIssue> changed) {
 
-                // issue is constructed from an external Issue object.
-                // It won't have the transient state that its TurboIssue
-                // counterpart has, so we have to explicitly transfer it.
-                TurboIssue newIssue = new TurboIssue(issue);
-                newIssue.transferTransientState(existing.get(corresponding.get()));
+        List<TurboIssue> result = new ArrayList<>(existing);
+        Map<Integer, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < result.size(); i++) {
+            indexById.putIfAbsent(result.get(i).getId(), i);
+        }
 
-                existing.set(corresponding.get(), newIssue);
-            } else {
-                existing.add(new TurboIssue(issue));
+        Set<Integer> addedIds = new HashSet<>();
+        Set<Integer> changedIds = new HashSet<>();
+        for (TurboIssue issue : changed) {
+            int id = issue.getId();
+            Integer index = indexById.get(id);
+            if (index == null) {
+                indexById.put(id, result.size());
+                result.add(new TurboIssue(issue));
+                addedIds.add(id);
+                continue;
             }
-        }
-        return existing;
-    }
 
-    private static Optional<Integer> findIssueWithId(List<TurboIssue> existing, int id) {
-        int i = 0;
-        for (TurboIssue issue : existing) {
-            if (issue.getId() == id) {
-                return Optional.of(i);
+            // issue is constructed from an external Issue object.
+            // It won't have the transient state that its TurboIssue
+            // counterpart has, so we have to explicitly transfer it.
+            TurboIssue previous = result.get(index);
+            TurboIssue newIssue = new TurboIssue(issue);
+            newIssue.transferTransientState(previous);
+
+            // Unchanged issues keep their existing instances, so they remain identical across updates
+            if (!newIssue.equals(previous)) {
+                result.set(index, newIssue);
+                if (!addedIds.contains(id)) {
+                    changedIds.add(id);
+                }
             }
-            ++i;
         }
-        return Optional.empty();
+        return new ImmutablePair<>(result, ChangeSet.of(indexById.keySet(), addedIds, changedIds));
     }
 
     private void ______BOILERPLATE______() {
@@ -259,7 +343,7 @@ public class TurboIssue {
         return creator;
     }
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return toDateTime(createdAtSeconds, createdAtNanos);
     }
     public boolean isPullRequest() {
         return isPullRequest;
@@ -271,16 +355,32 @@ public class TurboIssue {
         this.title = title;
     }
     public String getDescription() {
+        Supplier<String> source = descriptionSource;
+        if (source != null) {
+            // Written before the source is cleared, so that it is seen by threads which see that
+            description = source.get();
+            descriptionSource = null;
+        }
         return description;
     }
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionSource = null;
+    }
+
+    /**
+     * Sets a description which is not decoded until it is first needed, as few are.
+     * The source may be called more than once.
+     */
+    public void setLazyDescription(Supplier<String> description) {
+        this.descriptionSource = description;
     }
     public LocalDateTime getUpdatedAt() {
-        return updatedAt;
+        return toDateTime(updatedAtSeconds, updatedAtNanos);
     }
     public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
+        this.updatedAtSeconds = toSeconds(updatedAt);
+        this.updatedAtNanos = toNanos(updatedAt);
     }
     public int getCommentCount() {
         return commentCount;
@@ -298,19 +398,28 @@ public class TurboIssue {
         return assignee;
     }
     public void setAssignee(String assignee) {
-        this.assignee = Optional.of(assignee);
+        this.assignee = StringPool.intern(Optional.of(assignee));
     }
     public void setAssignee(TurboUser assignee) {
         setAssignee(assignee.getLoginName());
     }
+    /**
+     * @return the labels of the issue, as a list through which they may be changed
+     */
     public List<String> getLabels() {
+        return new LabelList();
+    }
+    /**
+     * @return the labels of the issue, which are not modified, but replaced when they change
+     */
+    String[] getLabelArray() {
         return labels;
     }
     public void setLabels(List<String> labels) {
-        this.labels = labels;
+        this.labels = toLabels(labels);
     }
     public void addLabel(String label) {
-        this.labels.add(label);
+        getLabels().add(label);
     }
     public void addLabel(TurboLabel label) {
         addLabel(label.getActualName());
@@ -319,7 +428,7 @@ public class TurboIssue {
         return milestone;
     }
     public void setMilestone(Integer milestone) {
-        this.milestone = Optional.of(milestone);
+        this.milestone = internMilestone(milestone);
     }
     public void setMilestone(TurboMilestone milestone) {
         setMilestone(milestone.getId());
@@ -356,13 +465,15 @@ public class TurboIssue {
                 id == issue.id && isOpen == issue.isOpen &&
                 isPullRequest == issue.isPullRequest &&
                 !(assignee != null ? !assignee.equals(issue.assignee) : issue.assignee != null) &&
-                !(createdAt != null ? !createdAt.equals(issue.createdAt) : issue.createdAt != null) &&
+                createdAtSeconds == issue.createdAtSeconds && createdAtNanos == issue.createdAtNanos &&
                 !(creator != null ? !creator.equals(issue.creator) : issue.creator != null) &&
-                !(description != null ? !description.equals(issue.description) : issue.description != null) &&
-                !(labels != null ? !labels.equals(issue.labels) : issue.labels != null) &&
+                !(getDescription() != null
+                    ? !getDescription().equals(issue.getDescription())
+                    : issue.getDescription() != null) &&
+                Arrays.equals(labels, issue.labels) &&
                 !(milestone != null ? !milestone.equals(issue.milestone) : issue.milestone != null) &&
                 !(title != null ? !title.equals(issue.title) : issue.title != null) &&
-                !(updatedAt != null ? !updatedAt.equals(issue.updatedAt) : issue.updatedAt != null) &&
+                updatedAtSeconds == issue.updatedAtSeconds && updatedAtNanos == issue.updatedAtNanos &&
                 !(markedReadAt != null ? !markedReadAt.equals(issue.markedReadAt) : issue.markedReadAt != null) &&
                 isCurrentlyRead == issue.isCurrentlyRead;
     }
@@ -371,18 +482,67 @@ public class TurboIssue {
     public int hashCode() {
         int result = id;
         result = 31 * result + (creator != null ? creator.hashCode() : 0);
-        result = 31 * result + (createdAt != null ? createdAt.hashCode() : 0);
+        result = 31 * result + Long.hashCode(createdAtSeconds) + createdAtNanos;
         result = 31 * result + (isPullRequest ? 1 : 0);
         result = 31 * result + (isCurrentlyRead ? 1 : 0);
         result = 31 * result + (title != null ? title.hashCode() : 0);
-        result = 31 * result + (description != null ? description.hashCode() : 0);
-        result = 31 * result + (updatedAt != null ? updatedAt.hashCode() : 0);
+        result = 31 * result + (getDescription() != null ? getDescription().hashCode() : 0);
+        result = 31 * result + Long.hashCode(updatedAtSeconds) + updatedAtNanos;
         result = 31 * result + (markedReadAt != null ? markedReadAt.hashCode() : 0);
         result = 31 * result + commentCount;
         result = 31 * result + (isOpen ? 1 : 0);
         result = 31 * result + (assignee != null ? assignee.hashCode() : 0);
-        result = 31 * result + (labels != null ? labels.hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(labels);
         result = 31 * result + (milestone != null ? milestone.hashCode() : 0);
         return result;
     }
+
+    /**
+     * The labels of an issue, through which they may be changed. Each change replaces the array
+     * of the issue's labels, which may be shared with its copies.
+     */
+    private class LabelList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return labels[index];
+        }
+
+        @Override
+        public int size() {
+            return labels.length;
+        }
+
+        @Override
+        public String set(int index, String label) {
+            String[] changed = labels.clone();
+            String previous = changed[index];
+            changed[index] = StringPool.intern(label);
+            labels = changed;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, String label) {
+            if (index < 0 || index > labels.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + labels.length);
+            }
+            String[] changed = new String[labels.length + 1];
+            System.arraycopy(labels, 0, changed, 0, index);
+            changed[index] = StringPool.intern(label);
+            System.arraycopy(labels, index, changed, index + 1, labels.length - index);
+            labels = changed;
+            modCount++;
+        }
+
+        @Override
+        public String remove(int index) {
+            String previous = labels[index];
+            String[] changed = labels.length == 1 ? NO_LABELS : new String[labels.length - 1];
+            System.arraycopy(labels, 0, changed, 0, index);
+            System.arraycopy(labels, index + 1, changed, index, labels.length - index - 1);
+            labels = changed;
+            modCount++;
+            return previous;
+        }
+    }
 }
@@ -40,6 +40,13 @@ public class TurboUser {
         this.repoId = repoId;
     }
 
+    public TurboUser(String repoId, String loginName, String realName, String avatarURL) {
+        this.loginName = loginName;
+        this.realName = realName;
+        this.avatarURL = avatarURL;
+        this.repoId = repoId;
+    }
+
     public TurboUser(String repoId, User user) {
         this.loginName = user.getLogin();
         this.realName = user.getName();
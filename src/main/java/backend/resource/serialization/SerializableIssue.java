@@ -32,7 +32,7 @@ public class SerializableIssue {
         this.commentCount = issue.getCommentCount();
         this.isOpen = issue.isOpen();
         this.assignee = issue.getAssignee();
-        this.labels = issue.getLabels();
+        this.labels = new ArrayList<>(issue.getLabels());
         this.milestone = issue.getMilestone();
     }
 
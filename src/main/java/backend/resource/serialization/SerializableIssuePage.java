@@ -0,0 +1,19 @@
+package backend.resource.serialization;
+
+import backend.resource.IssuePage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SerializableIssuePage {
+    public final String repoId;
+    public final int number;
+    public final List<SerializableIssue> issues;
+
+    public SerializableIssuePage(IssuePage page) {
+        this.repoId = page.getRepoId();
+        this.number = page.getNumber();
+        this.issues = page.getIssues().stream()
+            .map(SerializableIssue::new).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,28 @@
+package backend.resource.serialization;
+
+import backend.CachedMetadata;
+import github.TurboIssueEvent;
+import org.eclipse.egit.github.core.Comment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SerializableMetadata {
+    public final String repoId;
+    public final int issueId;
+    public final List<TurboIssueEvent> events;
+    public final List<Comment> comments;
+    public final String eventsETag;
+    public final String commentsETag;
+    public final LocalDateTime updatedAt;
+
+    public SerializableMetadata(String repoId, int issueId, CachedMetadata metadata) {
+        this.repoId = repoId;
+        this.issueId = issueId;
+        this.events = metadata.getMetadata().getEvents();
+        this.comments = metadata.getMetadata().getComments();
+        this.eventsETag = metadata.getEventsETag().orElse(null);
+        this.commentsETag = metadata.getCommentsETag().orElse(null);
+        this.updatedAt = metadata.getUpdatedAt();
+    }
+}
@@ -18,6 +18,9 @@ public class SerializableModel {
     public final List<SerializableMilestone> milestones;
     public final List<SerializableUser> users;
 
+    // Absent if the model's text index was never built
+    public final SerializableTextIndex textIndex;
+
     public SerializableModel(Model model) {
         this.repoId = model.getRepoId();
         this.updateSignature = model.getUpdateSignature();
@@ -30,6 +33,8 @@ public class SerializableModel {
             .map(SerializableMilestone::new).collect(Collectors.toList());
         this.users = model.getUsers().stream()
             .map(SerializableUser::new).collect(Collectors.toList());
+        this.textIndex = model.getTextIndexIfBuilt()
+            .map(SerializableTextIndex::new).orElse(null);
     }
 
     @Override
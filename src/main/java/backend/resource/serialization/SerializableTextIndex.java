@@ -0,0 +1,88 @@
+package backend.resource.serialization;
+
+import backend.resource.TextIndex;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The posting list of each word is stored as the gaps between successive issue ids,
+ * encoded as variable-length integers in Base64, so the index takes little space in
+ * the JSON cache.
+ */
+public class SerializableTextIndex {
+    private final Map<String, String> titleWords;
+    private final Map<String, String> bodyWords;
+
+    public SerializableTextIndex(TextIndex index) {
+        this.titleWords = encode(index.getTitleWords());
+        this.bodyWords = encode(index.getBodyWords());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the index is corrupted
+     */
+    public Map<String, int[]> getTitleWords() {
+        return decode(titleWords);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the index is corrupted
+     */
+    public Map<String, int[]> getBodyWords() {
+        return decode(bodyWords);
+    }
+
+    private static Map<String, String> encode(Map<String, int[]> words) {
+        Map<String, String> result = new HashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        words.forEach((word, ids) -> {
+            bytes.reset();
+            int previous = 0;
+            for (int id : ids) {
+                int gap = id - previous;
+                while ((gap & ~0x7f) != 0) {
+                    bytes.write((gap & 0x7f) | 0x80);
+                    gap >>>= 7;
+                }
+                bytes.write(gap);
+                previous = id;
+            }
+            result.put(word, Base64.getEncoder().encodeToString(bytes.toByteArray()));
+        });
+        return result;
+    }
+
+    private static Map<String, int[]> decode(Map<String, String> words) {
+        if (words == null) {
+            throw new IllegalArgumentException("Missing words");
+        }
+        Map<String, int[]> result = new HashMap<>();
+        words.forEach((word, encoded) -> {
+            byte[] bytes = Base64.getDecoder().decode(encoded);
+            int[] ids = new int[bytes.length];
+            int size = 0;
+            int previous = 0;
+            int gap = 0;
+            int shift = 0;
+            for (byte b : bytes) {
+                gap |= (b & 0x7f) << shift;
+                if ((b & 0x80) != 0) {
+                    shift += 7;
+                    if (shift > 28) throw new IllegalArgumentException("Invalid posting list for " + word);
+                } else {
+                    previous += gap;
+                    ids[size++] = previous;
+                    gap = 0;
+                    shift = 0;
+                }
+            }
+            if (shift != 0) throw new IllegalArgumentException("Invalid posting list for " + word);
+            result.put(word, Arrays.copyOf(ids, size));
+        });
+        return result;
+    }
+}
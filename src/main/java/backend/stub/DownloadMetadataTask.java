@@ -1,12 +1,18 @@
 package backend.stub;
 
+import backend.CachedMetadata;
+import backend.github.MetadataFetcher;
 import backend.interfaces.TaskRunner;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class DownloadMetadataTask extends backend.github.DownloadMetadataTask {
 
-    public DownloadMetadataTask(TaskRunner taskRunner, DummyRepo repo, String repoId, List<Integer> issueIds) {
-        super(taskRunner, repo, repoId, issueIds);
+    public DownloadMetadataTask(TaskRunner taskRunner, DummyRepo repo, String repoId,
+                                Map<Integer, LocalDateTime> issues, Map<Integer, CachedMetadata> storedMetadata,
+                                MetadataFetcher fetcher, Consumer<Map<Integer, CachedMetadata>> metadataConsumer) {
+        super(taskRunner, repo, repoId, issues, storedMetadata, fetcher, metadataConsumer);
     }
 }
@@ -1,10 +1,15 @@
 package backend.stub;
 
 import backend.interfaces.TaskRunner;
+import backend.resource.IssuePage;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 public class DownloadRepoTask extends backend.github.DownloadRepoTask {
 
-    public DownloadRepoTask(TaskRunner taskRunner, DummyRepo repo, String repoId) {
-        super(taskRunner, repo, repoId);
+    public DownloadRepoTask(TaskRunner taskRunner, DummyRepo repo, String repoId,
+                            List<IssuePage> downloadedPages, Consumer<IssuePage> pageConsumer) {
+        super(taskRunner, repo, repoId, downloadedPages, pageConsumer);
     }
 }
@@ -2,6 +2,7 @@ package backend.stub;
 
 import backend.UserCredentials;
 import backend.interfaces.Repo;
+import backend.resource.IssuePage;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
@@ -18,6 +19,8 @@ import util.events.testevents.UpdateDummyRepoEventHandler;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public class DummyRepo implements Repo {
 
@@ -118,6 +121,17 @@ public class DummyRepo implements Repo {
         return getRepoState(repoId).getIssues();
     }
 
+    /**
+     * All issues of a dummy repository are on its first page.
+     */
+    @Override
+    public boolean getIssues(String repoId, int firstPage, Consumer<IssuePage> pageConsumer) {
+        if (firstPage <= 1) {
+            pageConsumer.accept(new IssuePage(repoId, 1, getIssues(repoId)));
+        }
+        return true;
+    }
+
     @Override
     public List<TurboLabel> getLabels(String repoId) {
         return getRepoState(repoId).getLabels();
@@ -143,6 +157,18 @@ public class DummyRepo implements Repo {
         return getRepoState(repoId).getComments(issueId);
     }
 
+    @Override
+    public Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId,
+                                                                                  String eTag) {
+        return Optional.of(new ImmutablePair<>(getEvents(repoId, issueId), null));
+    }
+
+    @Override
+    public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                            String eTag) {
+        return Optional.of(new ImmutablePair<>(getComments(repoId, issueId), null));
+    }
+
     @Override
     public List<Label> setLabels(String repoId, int issueId, List<String> labels) {
         return getRepoState(repoId).setLabels(issueId, labels);
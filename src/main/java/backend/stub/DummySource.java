@@ -1,20 +1,25 @@
 package backend.stub;
 
-import backend.IssueMetadata;
+import backend.CachedMetadata;
 import backend.UserCredentials;
+import backend.github.MetadataFetcher;
 import backend.interfaces.RepoSource;
+import backend.resource.IssuePage;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import util.Futures;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DummySource extends RepoSource {
 
     private final DummyRepo dummy = new DummyRepo();
+    private final MetadataFetcher metadataFetcher = new MetadataFetcher(1);
 
     @Override
     public String getName() {
@@ -23,14 +28,13 @@ public class DummySource extends RepoSource {
 
     @Override
     public CompletableFuture<Boolean> login(UserCredentials credentials) {
-        CompletableFuture<Boolean> response = new CompletableFuture<>();
-        execute(() -> response.complete(dummy.login(credentials)));
-        return response;
+        return CompletableFuture.supplyAsync(() -> dummy.login(credentials), this::execute);
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTask(this, dummy, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, List<IssuePage> downloadedPages,
+                                                       Consumer<IssuePage> pageConsumer) {
+        return addTask(new DownloadRepoTask(this, dummy, repoId, downloadedPages, pageConsumer)).response;
     }
 
     @Override
@@ -39,8 +43,11 @@ public class DummySource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<Integer> issues) {
-        return addTask(new DownloadMetadataTask(this, dummy, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, CachedMetadata>> downloadMetadata(
+        String repoId, Map<Integer, LocalDateTime> issues, Map<Integer, CachedMetadata> storedMetadata,
+        Consumer<Map<Integer, CachedMetadata>> metadataConsumer) {
+        return addTask(new DownloadMetadataTask(this, dummy, repoId, issues, storedMetadata, metadataFetcher,
+            metadataConsumer)).response;
     }
 
     @Override
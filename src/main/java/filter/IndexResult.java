@@ -0,0 +1,164 @@
+package filter;
+
+import backend.interfaces.IModel;
+import backend.resource.IssueIndex;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * The issues of each repository which satisfy a filter expression, as far as can be told
+ * from the repositories' issue indexes. For each repository there are the ids of the issues
+ * which are known to satisfy the expression, and the ids of those which might; the rest are
+ * known not to. Results for subexpressions are combined with set operations.
+ *
+ * Only issues which might satisfy the expression need be tested individually.
+ */
+public class IndexResult {
+
+    private static class Sets {
+        private final Model repo;
+        private final BitSet all;
+        private final BitSet matching;
+        private final BitSet candidates;
+
+        private Sets(Model repo, BitSet all, BitSet matching, BitSet candidates) {
+            this.repo = repo;
+            this.all = all;
+            this.matching = matching;
+            this.candidates = candidates;
+        }
+    }
+
+    private final Map<String, Sets> byRepo;
+
+    private IndexResult(Map<String, Sets> byRepo) {
+        this.byRepo = byRepo;
+    }
+
+    /**
+     * Evaluates a qualifier against the index of each repository.
+     *
+     * @param matching Gives the ids of the issues of a repository which satisfy the qualifier.
+     */
+    public static IndexResult of(IModel model, BiFunction<Model, IssueIndex, BitSet> matching) {
+        return of(model, matching, (repo, index) -> new BitSet());
+    }
+
+    /**
+     * Evaluates a qualifier against the index of each repository.
+     *
+     * @param matching Gives the ids of the issues of a repository which satisfy the qualifier.
+     * @param candidates Gives the ids of the issues which may satisfy the qualifier, which
+     *                   must be tested individually.
+     */
+    public static IndexResult of(IModel model, BiFunction<Model, IssueIndex, BitSet> matching,
+                                 BiFunction<Model, IssueIndex, BitSet> candidates) {
+        Map<String, Sets> byRepo = new HashMap<>();
+        for (Model repo : model.toModels()) {
+            IssueIndex index = repo.getIssueIndex();
+            BitSet all = index.getAllIssues();
+            BitSet matches = matching.apply(repo, index);
+            matches.and(all);
+            BitSet maybe = candidates.apply(repo, index);
+            maybe.and(all);
+            maybe.andNot(matches);
+            byRepo.put(repo.getRepoId(), new Sets(repo, all, matches, maybe));
+        }
+        return new IndexResult(byRepo);
+    }
+
+    /**
+     * @return a result in which every issue satisfies the expression
+     */
+    public static IndexResult all(IModel model) {
+        return of(model, (repo, index) -> index.getAllIssues());
+    }
+
+    /**
+     * @return a result in which no issue satisfies the expression
+     */
+    public static IndexResult none(IModel model) {
+        return of(model, (repo, index) -> new BitSet());
+    }
+
+    /**
+     * @return a result in which every issue must be tested individually
+     */
+    public static IndexResult undetermined(IModel model) {
+        return of(model, (repo, index) -> new BitSet(), (repo, index) -> index.getAllIssues());
+    }
+
+    public IndexResult and(IndexResult other) {
+        return combine(other, (a, b) -> {
+            BitSet matching = copy(a.matching);
+            matching.and(b.matching);
+            BitSet candidates = union(a.matching, a.candidates);
+            candidates.and(union(b.matching, b.candidates));
+            candidates.andNot(matching);
+            return new Sets(a.repo, a.all, matching, candidates);
+        });
+    }
+
+    public IndexResult or(IndexResult other) {
+        return combine(other, (a, b) -> {
+            BitSet matching = union(a.matching, b.matching);
+            BitSet candidates = union(a.candidates, b.candidates);
+            candidates.andNot(matching);
+            return new Sets(a.repo, a.all, matching, candidates);
+        });
+    }
+
+    public IndexResult negate() {
+        Map<String, Sets> result = new HashMap<>();
+        byRepo.forEach((repoId, sets) -> {
+            BitSet matching = copy(sets.all);
+            matching.andNot(union(sets.matching, sets.candidates));
+            result.put(repoId, new Sets(sets.repo, sets.all, matching, sets.candidates));
+        });
+        return new IndexResult(result);
+    }
+
+    private IndexResult combine(IndexResult other, BiFunction<Sets, Sets, Sets> operation) {
+        Map<String, Sets> result = new HashMap<>();
+        byRepo.forEach((repoId, sets) -> {
+            // A repository missing from either result is left out, so its issues are tested individually
+            Sets otherSets = other.byRepo.get(repoId);
+            if (otherSets != null) {
+                result.put(repoId, operation.apply(sets, otherSets));
+            }
+        });
+        return new IndexResult(result);
+    }
+
+    private static BitSet copy(BitSet set) {
+        return (BitSet) set.clone();
+    }
+
+    private static BitSet union(BitSet a, BitSet b) {
+        BitSet result = copy(a);
+        result.or(b);
+        return result;
+    }
+
+    /**
+     * Produces a predicate which answers from this result where it can. Issues which may
+     * satisfy the expression, and issues which are not those indexed (such as other versions
+     * of them), are tested with the given predicate, which should be equivalent to the expression.
+     */
+    public Predicate<TurboIssue> toPredicate(Predicate<TurboIssue> fallback) {
+        return issue -> {
+            Sets sets = byRepo.get(issue.getRepoId());
+            int id = issue.getId();
+            if (sets == null || id < 0 || !sets.all.get(id) || !sets.repo.containsIssue(issue)) {
+                return fallback.test(issue);
+            }
+            return sets.matching.get(id) || sets.candidates.get(id) && fallback.test(issue);
+        };
+    }
+}
@@ -2,6 +2,7 @@ package filter.expression;
 
 import backend.interfaces.IModel;
 import backend.resource.TurboIssue;
+import filter.IndexResult;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
@@ -48,12 +49,6 @@ public class Conjunction implements FilterExpression {
         return result;
     }
 
-    @Override
-    public boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info) {
-        return left.isSatisfiedBy(model, issue, info)
-                && right.isSatisfiedBy(model, issue, info);
-    }
-
     private boolean containsDuplicateQualifierNames() {
         List<String> nonLabelQualifierNames = getQualifierNames().stream()
             .filter(pn -> !pn.equals("label"))
@@ -62,6 +57,16 @@ public class Conjunction implements FilterExpression {
         return noDuplicates.size() != nonLabelQualifierNames.size();
     }
 
+    @Override
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
+        return left.compile(model, info).and(right.compile(model, info));
+    }
+
+    @Override
+    public IndexResult evaluateOnIndex(IModel model, MetaQualifierInfo info) {
+        return left.evaluateOnIndex(model, info).and(right.evaluateOnIndex(model, info));
+    }
+
     @Override
     public boolean canBeAppliedToIssue() {
         return !containsDuplicateQualifierNames()
@@ -2,6 +2,7 @@ package filter.expression;
 
 import backend.interfaces.IModel;
 import backend.resource.TurboIssue;
+import filter.IndexResult;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
@@ -46,9 +47,13 @@ public class Disjunction implements FilterExpression {
     }
 
     @Override
-    public boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info) {
-        return left.isSatisfiedBy(model, issue, info)
-                || right.isSatisfiedBy(model, issue, info);
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
+        return left.compile(model, info).or(right.compile(model, info));
+    }
+
+    @Override
+    public IndexResult evaluateOnIndex(IModel model, MetaQualifierInfo info) {
+        return left.evaluateOnIndex(model, info).or(right.evaluateOnIndex(model, info));
     }
 
     @Override
@@ -2,6 +2,7 @@ package filter.expression;
 
 import backend.interfaces.IModel;
 import backend.resource.TurboIssue;
+import filter.IndexResult;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
@@ -10,10 +11,16 @@ import java.util.function.Predicate;
 
 public interface FilterExpression {
 
-    // Determines if an issue satisfies this filter expression.
-    // If so, it is shown in the issue panel.
+    // Compiles this filter expression into a predicate which determines if an issue satisfies it,
+    // with the given model and meta-qualifier information. If so, it is shown in the issue panel.
+    // Work which does not depend on the issue is done once here, rather than for every issue tested.
 
-    boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info);
+    Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info);
+
+    // Evaluates this filter expression against the issue indexes of the model's repositories,
+    // giving the issues which satisfy it and those which must be tested with the compiled predicate.
+
+    IndexResult evaluateOnIndex(IModel model, MetaQualifierInfo info);
 
     // Filter expressions may only be applied if they contain no ambiguity
     // => they must contain only qualifiers or conjunctions thereof. Disjunctions
@@ -2,6 +2,7 @@ package filter.expression;
 
 import backend.interfaces.IModel;
 import backend.resource.TurboIssue;
+import filter.IndexResult;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
@@ -39,8 +40,13 @@ public class Negation implements FilterExpression {
     }
 
     @Override
-    public boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info) {
-        return !expr.isSatisfiedBy(model, issue, info);
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
+        return expr.compile(model, info).negate();
+    }
+
+    @Override
+    public IndexResult evaluateOnIndex(IModel model, MetaQualifierInfo info) {
+        return expr.evaluateOnIndex(model, info).negate();
     }
 
     @Override
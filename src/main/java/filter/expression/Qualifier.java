@@ -1,10 +1,14 @@
 package filter.expression;
 
 import backend.interfaces.IModel;
+import backend.resource.IssueIndex;
+import backend.resource.Model;
+import backend.resource.TextIndex;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
 import backend.resource.TurboUser;
+import filter.IndexResult;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 import util.Utility;
@@ -14,6 +18,8 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -25,6 +31,8 @@ public class Qualifier implements FilterExpression {
 
     public static final Qualifier EMPTY = new Qualifier("", "");
 
+    private static final Predicate<TurboIssue> NONE = issue -> false;
+
     public static final String[] KEYWORDS = new String[] {
         "assignees", "author", "body", "closed", "comments", "created", "creator",
         "date", "nonSelfUpdate", "desc", "description", "has", "id", "in", "involves",
@@ -95,26 +103,39 @@ public class Qualifier implements FilterExpression {
 
     /**
      * Helper function for testing a filter expression against an issue.
-     * Ensures that meta-qualifiers are taken care of.
-     * Should always be used over isSatisfiedBy.
+     * Ensures that meta-qualifiers are taken care of. The expression is compiled for each call,
+     * so compileFilter should be used instead when testing many issues.
      */
     public static boolean process(IModel model, FilterExpression expr, TurboIssue issue) {
+        return compileFilter(model, expr).test(issue);
+    }
+
+    /**
+     * Compiles a filter expression into a predicate which determines if an issue satisfies it.
+     * Meta-qualifiers are handled and constants are prepared once, so the predicate may be used
+     * to test many issues against the same expression.
+     *
+     * The expression is first evaluated against the issue indexes of the model, so the predicate
+     * is meant for the model's current issues; only those the indexes cannot decide are tested
+     * individually.
+     */
+    public static Predicate<TurboIssue> compileFilter(IModel model, FilterExpression expr) {
         FilterExpression exprWithNormalQualifiers = expr.filter(Qualifier::shouldNotBeStripped);
         List<Qualifier> metaQualifiers = expr.find(Qualifier::isMetaQualifier);
 
         // Preprocessing for repo qualifier
         boolean containsRepoQualifier = metaQualifiers.stream()
-                .map(Qualifier::getName)
-                .collect(Collectors.toList())
-            .contains("repo");
+            .anyMatch(q -> q.getName().equals(REPO));
 
         if (!containsRepoQualifier) {
             exprWithNormalQualifiers = new Conjunction(
-                new Qualifier("repo", model.getDefaultRepo()),
+                new Qualifier(REPO, model.getDefaultRepo()),
                 exprWithNormalQualifiers);
         }
 
-        return exprWithNormalQualifiers.isSatisfiedBy(model, issue, new MetaQualifierInfo(metaQualifiers));
+        MetaQualifierInfo info = new MetaQualifierInfo(metaQualifiers);
+        return exprWithNormalQualifiers.evaluateOnIndex(model, info)
+            .toPredicate(exprWithNormalQualifiers.compile(model, info));
     }
 
     public static void processMetaQualifierEffects(FilterExpression expr,
@@ -146,55 +167,115 @@ public class Qualifier implements FilterExpression {
         return name.isEmpty() && content.isPresent() && content.get().isEmpty();
     }
 
+    /**
+     * Resolves the qualifier's name and content ahead of time into a predicate on issues.
+     * Text comparisons are made without changing the case of issue fields.
+     */
     @Override
-    public boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info) {
+    public Predicate<TurboIssue> compile(IModel model, MetaQualifierInfo info) {
         assert name != null;
 
         // The empty qualifier is satisfied by anything
-        if (isEmptyQualifier()) return true;
+        if (isEmptyQualifier()) return issue -> true;
 
         switch (name) {
         case "id":
-            return idSatisfies(issue);
+            return idPredicate();
         case "keyword":
-            return keywordSatisfies(issue, info);
+            return keywordPredicate(info);
         case "title":
-            return titleSatisfies(issue);
+            return titlePredicate();
         case "body":
         case "desc":
         case "description":
-            return bodySatisfies(issue);
+            return bodyPredicate();
         case "milestone":
-            return milestoneSatisfies(model, issue);
+            return milestonePredicate(model);
         case "label":
-            return labelsSatisfy(model, issue);
+            return labelsPredicate(model);
         case "author":
         case "creator":
-            return authorSatisfies(issue);
+            return authorPredicate();
         case "assignee":
-            return assigneeSatisfies(model, issue);
+            return assigneePredicate(model);
         case "involves":
         case "user":
-            return involvesSatisfies(model, issue);
+            return authorPredicate().or(assigneePredicate(model));
         case "type":
-            return typeSatisfies(issue);
+            return typePredicate();
         case "state":
         case "status":
-            return stateSatisfies(issue);
+            return statePredicate();
         case "has":
-            return satisfiesHasConditions(issue);
+            return hasPredicate();
         case "no":
-            return satisfiesNoConditions(issue);
+            return content.isPresent() ? hasPredicate().negate() : NONE;
         case "is":
-            return satisfiesIsConditions(issue);
+            return isPredicate();
         case "created":
-            return satisfiesCreationDate(issue);
+            return creationDatePredicate();
         case "updated":
-            return satisfiesUpdatedHours(issue);
+            return updatedHoursPredicate();
         case "repo":
-            return satisfiesRepo(issue);
+            return repoPredicate();
         default:
-            return false;
+            return NONE;
+        }
+    }
+
+    /**
+     * Answers qualifiers on labels, assignees, milestones, authors, state and type from the issue
+     * indexes, and narrows down the issues to search for text qualifiers with the text indexes.
+     * Qualifiers on other attributes leave every issue to be tested individually.
+     */
+    @Override
+    public IndexResult evaluateOnIndex(IModel model, MetaQualifierInfo info) {
+        assert name != null;
+
+        // The empty qualifier is satisfied by anything
+        if (isEmptyQualifier()) return IndexResult.all(model);
+
+        switch (name) {
+        case "id":
+            return idOnIndex(model);
+        case "keyword":
+            return keywordOnIndex(model, info);
+        case "title":
+            return textOnIndex(model, TextIndex::findInTitles);
+        case "body":
+        case "desc":
+        case "description":
+            return textOnIndex(model, TextIndex::findInBodies);
+        case "created":
+        case "updated":
+            return IndexResult.undetermined(model);
+        case "milestone":
+            return milestoneOnIndex(model);
+        case "label":
+            return labelsOnIndex(model);
+        case "author":
+        case "creator":
+            return authorOnIndex(model);
+        case "assignee":
+            return assigneeOnIndex(model);
+        case "involves":
+        case "user":
+            return authorOnIndex(model).or(assigneeOnIndex(model));
+        case "type":
+            return typeOnIndex(model);
+        case "state":
+        case "status":
+            return stateOnIndex(model);
+        case "has":
+            return hasOnIndex(model);
+        case "no":
+            return content.isPresent() ? hasOnIndex(model).negate() : IndexResult.none(model);
+        case "is":
+            return isOnIndex(model);
+        case "repo":
+            return repoOnIndex(model);
+        default:
+            return IndexResult.none(model);
         }
     }
 
@@ -483,16 +564,258 @@ public class Qualifier implements FilterExpression {
         };
     }
 
-    private boolean idSatisfies(TurboIssue issue) {
+    private IndexResult idOnIndex(IModel model) {
         if (number.isPresent()) {
-            return issue.getId() == number.get();
+            int id = number.get();
+            return IndexResult.of(model, (repo, index) -> {
+                BitSet result = new BitSet();
+                if (id >= 0) result.set(id);
+                return result;
+            });
         } else if (numberRange.isPresent()) {
-            return numberRange.get().encloses(issue.getId());
+            return IndexResult.undetermined(model);
+        }
+        return IndexResult.none(model);
+    }
+
+    private IndexResult keywordOnIndex(IModel model, MetaQualifierInfo info) {
+        if (info.getIn().isPresent()) {
+            switch (info.getIn().get()) {
+            case "title":
+                return textOnIndex(model, TextIndex::findInTitles);
+            case "body":
+            case "desc":
+            case "description":
+                return textOnIndex(model, TextIndex::findInBodies);
+            default:
+                return IndexResult.none(model);
+            }
+        } else {
+            return textOnIndex(model, TextIndex::findInTitles).or(textOnIndex(model, TextIndex::findInBodies));
+        }
+    }
+
+    /**
+     * Text qualifiers are not answered by the text indexes, which give only the issues which may
+     * contain the text; those are searched individually.
+     */
+    private IndexResult textOnIndex(IModel model, BiFunction<TextIndex, String, Optional<BitSet>> find) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String content = this.content.get().toLowerCase();
+        return IndexResult.of(model,
+            (repo, index) -> new BitSet(),
+            (repo, index) -> find.apply(repo.getTextIndex(), content).orElseGet(index::getAllIssues));
+    }
+
+    private IndexResult repoOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String repoId = content.get();
+        return IndexResult.of(model, (repo, index) ->
+            repo.getRepoId().equalsIgnoreCase(repoId) ? index.getAllIssues() : new BitSet());
+    }
+
+    private IndexResult hasOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        switch (content.get()) {
+        case "label":
+        case "labels":
+            return IndexResult.of(model, (repo, index) ->
+                union(index.getLabels(), index::getIssuesWithLabel));
+        case "milestone":
+        case "milestones":
+            return IndexResult.of(model, (repo, index) ->
+                union(index.getMilestones(), index::getIssuesInMilestone));
+        case "assignee":
+        case "assignees":
+            return IndexResult.of(model, (repo, index) ->
+                union(index.getAssignees(), index::getIssuesAssignedTo));
+        default:
+            return IndexResult.none(model);
+        }
+    }
+
+    private IndexResult isOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        switch (content.get()) {
+        case "open":
+        case "closed":
+            return stateOnIndex(model);
+        case "pr":
+        case "issue":
+            return typeOnIndex(model);
+        case "merged":
+            return IndexResult.of(model, (repo, index) -> {
+                BitSet result = index.getPullRequests();
+                result.andNot(index.getOpenIssues());
+                return result;
+            });
+        case "unmerged":
+            return IndexResult.of(model, (repo, index) -> {
+                BitSet result = index.getPullRequests();
+                result.and(index.getOpenIssues());
+                return result;
+            });
+        case "read":
+        case "unread":
+            return IndexResult.undetermined(model);
+        default:
+            return IndexResult.none(model);
+        }
+    }
+
+    private IndexResult stateOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String content = this.content.get().toLowerCase();
+        if (content.contains("open")) {
+            return IndexResult.of(model, (repo, index) -> index.getOpenIssues());
+        } else if (content.contains("closed")) {
+            return IndexResult.of(model, (repo, index) -> {
+                BitSet result = index.getAllIssues();
+                result.andNot(index.getOpenIssues());
+                return result;
+            });
+        } else {
+            return IndexResult.none(model);
         }
-        return false;
     }
 
-    private boolean satisfiesUpdatedHours(TurboIssue issue) {
+    private IndexResult typeOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        switch (content.get().toLowerCase()) {
+            case "issue":
+                return IndexResult.of(model, (repo, index) -> {
+                    BitSet result = index.getAllIssues();
+                    result.andNot(index.getPullRequests());
+                    return result;
+                });
+            case "pr":
+            case "pullrequest":
+                return IndexResult.of(model, (repo, index) -> index.getPullRequests());
+            default:
+                return IndexResult.none(model);
+        }
+    }
+
+    private IndexResult assigneeOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String content = this.content.get().toLowerCase();
+
+        return IndexResult.of(model, (repo, index) -> {
+            BitSet result = new BitSet();
+            for (String login : index.getAssignees()) {
+                if (login == null || login.isEmpty()) continue;
+                Optional<TurboUser> assignee = repo.getUserByLogin(login);
+                if (!assignee.isPresent()) continue;
+
+                String loginName = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName();
+                String realName = assignee.get().getRealName() == null ? "" : assignee.get().getRealName();
+
+                if (Utility.containsIgnoreCase(loginName, content) || Utility.containsIgnoreCase(realName, content)) {
+                    result.or(index.getIssuesAssignedTo(login));
+                }
+            }
+            return result;
+        });
+    }
+
+    private IndexResult authorOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String content = this.content.get().toLowerCase();
+
+        return IndexResult.of(model, (repo, index) -> {
+            BitSet result = new BitSet();
+            for (String creator : index.getCreators()) {
+                if (creator != null && Utility.containsIgnoreCase(creator, content)) {
+                    result.or(index.getIssuesCreatedBy(creator));
+                }
+            }
+            return result;
+        });
+    }
+
+    private IndexResult labelsOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+
+        TurboLabel tokens = new TurboLabel("", content.get().toLowerCase());
+        String group = tokens.getGroup().isPresent() ? tokens.getGroup().get().toLowerCase() : "";
+        String labelName = tokens.getName().toLowerCase();
+
+        BiFunction<Model, IssueIndex, BitSet> withMatchingLabel = (repo, index) ->
+            issuesWithLabels(repo, index, label -> labelMatches(label, group, labelName));
+        if (group.isEmpty()) {
+            return IndexResult.of(model, withMatchingLabel);
+        }
+
+        // Labels are tested in order, and an issue is rejected on reaching one outside any group,
+        // so issues having such labels as well as matching ones must be tested individually
+        return IndexResult.of(model,
+            (repo, index) -> {
+                BitSet result = withMatchingLabel.apply(repo, index);
+                result.andNot(issuesWithLabels(repo, index, label -> !label.getGroup().isPresent()));
+                return result;
+            },
+            withMatchingLabel);
+    }
+
+    private static BitSet issuesWithLabels(Model repo, IssueIndex index, Predicate<TurboLabel> predicate) {
+        BitSet result = new BitSet();
+        for (String labelName : index.getLabels()) {
+            if (labelName == null || labelName.isEmpty()) continue;
+            if (repo.getLabelByActualName(labelName).filter(predicate).isPresent()) {
+                result.or(index.getIssuesWithLabel(labelName));
+            }
+        }
+        return result;
+    }
+
+    private static <K> BitSet union(Set<K> keys, Function<K, BitSet> issues) {
+        BitSet result = new BitSet();
+        keys.forEach(key -> result.or(issues.apply(key)));
+        return result;
+    }
+
+    private IndexResult milestoneOnIndex(IModel model) {
+        if (!content.isPresent()) return IndexResult.none(model);
+        String content = this.content.get().toLowerCase();
+
+        return IndexResult.of(model, (repo, index) -> {
+            BitSet result = new BitSet();
+            for (int milestoneId : index.getMilestones()) {
+                if (milestoneId < 1) continue;
+                Optional<TurboMilestone> milestone = repo.getMilestoneById(milestoneId);
+                if (milestone.isPresent() && Utility.containsIgnoreCase(milestone.get().getTitle(), content)) {
+                    result.or(index.getIssuesInMilestone(milestoneId));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return true if a label of an issue satisfies a label qualifier with the given
+     * lower-case group and name
+     */
+    private static boolean labelMatches(TurboLabel label, String group, String labelName) {
+        if (label.getGroup().isPresent()) {
+            return Utility.containsIgnoreCase(label.getGroup().get(), group)
+                && (labelName.isEmpty() || Utility.containsIgnoreCase(label.getName(), labelName));
+        } else {
+            return group.isEmpty() && !labelName.isEmpty() && Utility.containsIgnoreCase(label.getName(), labelName);
+        }
+    }
+
+    private Predicate<TurboIssue> idPredicate() {
+        if (number.isPresent()) {
+            int id = number.get();
+            return issue -> issue.getId() == id;
+        } else if (numberRange.isPresent()) {
+            NumberRange range = numberRange.get();
+            return issue -> range.encloses(issue.getId());
+        }
+        return NONE;
+    }
+
+    private Predicate<TurboIssue> updatedHoursPredicate() {
         NumberRange updatedRange;
 
         if (numberRange.isPresent()) {
@@ -500,209 +823,193 @@ public class Qualifier implements FilterExpression {
         } else if (number.isPresent()) {
             updatedRange = new NumberRange(null, number.get(), true);
         } else {
-            return false;
+            return NONE;
         }
 
-        int hoursSinceUpdate;
+        // The current time is read for every issue, as the predicate may be kept while time passes
+        return issue -> {
+            int hoursSinceUpdate;
 
-        if (issue.getMetadata().isUpdated()) {
-            // Second time being filtered, we now have metadata from source, so we can use getNonSelfUpdatedAt.
-            hoursSinceUpdate = Utility.safeLongToInt(issue.getMetadata().getNonSelfUpdatedAt()
-                    .until(getCurrentTime(), ChronoUnit.HOURS));
-        } else {
-            // First time being filtered (haven't gotten metadata from source yet).
-            hoursSinceUpdate = Utility.safeLongToInt(issue.getUpdatedAt().until(getCurrentTime(), ChronoUnit.HOURS));
-        }
+            if (issue.getMetadata().isUpdated()) {
+                // Second time being filtered, we now have metadata from source, so we can use getNonSelfUpdatedAt.
+                hoursSinceUpdate = Utility.safeLongToInt(issue.getMetadata().getNonSelfUpdatedAt()
+                        .until(getCurrentTime(), ChronoUnit.HOURS));
+            } else {
+                // First time being filtered (haven't gotten metadata from source yet).
+                hoursSinceUpdate = Utility.safeLongToInt(issue.getUpdatedAt()
+                        .until(getCurrentTime(), ChronoUnit.HOURS));
+            }
 
-        return updatedRange.encloses(hoursSinceUpdate);
+            return updatedRange.encloses(hoursSinceUpdate);
+        };
     }
 
-    private boolean satisfiesRepo(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getRepoId().equalsIgnoreCase(content.get());
+    private Predicate<TurboIssue> repoPredicate() {
+        if (!content.isPresent()) return NONE;
+        String repoId = content.get();
+        return issue -> issue.getRepoId().equalsIgnoreCase(repoId);
     }
 
-    private boolean satisfiesCreationDate(TurboIssue issue) {
-        LocalDate creationDate = issue.getCreatedAt().toLocalDate();
+    private Predicate<TurboIssue> creationDatePredicate() {
         if (date.isPresent()) {
-            return creationDate.isEqual(date.get());
+            LocalDate creationDate = date.get();
+            return issue -> issue.getCreatedAt().toLocalDate().isEqual(creationDate);
         } else if (dateRange.isPresent()) {
-            return dateRange.get().encloses(creationDate);
-        } else {
-            return false;
+            DateRange range = dateRange.get();
+            return issue -> range.encloses(issue.getCreatedAt().toLocalDate());
         }
+        return NONE;
     }
 
-    private boolean satisfiesHasConditions(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> hasPredicate() {
+        if (!content.isPresent()) return NONE;
         switch (content.get()) {
         case "label":
         case "labels":
-            return issue.getLabels().size() > 0;
+            return issue -> !issue.getLabels().isEmpty();
         case "milestone":
         case "milestones":
-            assert issue.getMilestone() != null;
-            return issue.getMilestone().isPresent();
+            return issue -> issue.getMilestone().isPresent();
         case "assignee":
         case "assignees":
-            assert issue.getMilestone() != null;
-            return issue.getAssignee().isPresent();
+            return issue -> issue.getAssignee().isPresent();
         default:
-            return false;
+            return NONE;
         }
     }
 
-    private boolean satisfiesNoConditions(TurboIssue issue) {
-        return content.isPresent() && !satisfiesHasConditions(issue);
-    }
-
-    private boolean satisfiesIsConditions(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> isPredicate() {
+        if (!content.isPresent()) return NONE;
         switch (content.get()) {
         case "open":
         case "closed":
-            return stateSatisfies(issue);
+            return statePredicate();
         case "pr":
         case "issue":
-            return typeSatisfies(issue);
+            return typePredicate();
         case "merged":
-            return issue.isPullRequest() && !issue.isOpen();
+            return issue -> issue.isPullRequest() && !issue.isOpen();
         case "unmerged":
-            return issue.isPullRequest() && issue.isOpen();
+            return issue -> issue.isPullRequest() && issue.isOpen();
         case "read":
-            return issue.isCurrentlyRead();
+            return TurboIssue::isCurrentlyRead;
         case "unread":
-            return !issue.isCurrentlyRead();
+            return issue -> !issue.isCurrentlyRead();
         default:
-            return false;
+            return NONE;
         }
     }
 
-    private boolean stateSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> statePredicate() {
+        if (!content.isPresent()) return NONE;
         String content = this.content.get().toLowerCase();
         if (content.contains("open")) {
-            return issue.isOpen();
+            return TurboIssue::isOpen;
         } else if (content.contains("closed")) {
-            return !issue.isOpen();
+            return issue -> !issue.isOpen();
         } else {
-            return false;
+            return NONE;
         }
     }
 
-    private boolean assigneeSatisfies(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        Optional<TurboUser> assignee = model.getAssigneeOfIssue(issue);
-
-        if (!assignee.isPresent()) return false;
-
+    private Predicate<TurboIssue> assigneePredicate(IModel model) {
+        if (!content.isPresent()) return NONE;
         String content = this.content.get().toLowerCase();
-        String login = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName().toLowerCase();
-        String name = assignee.get().getRealName() == null ? "" : assignee.get().getRealName().toLowerCase();
-
-        return login.contains(content) || name.contains(content);
-    }
 
-    private boolean authorSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
+        return issue -> {
+            Optional<TurboUser> assignee = model.getAssigneeOfIssue(issue);
+            if (!assignee.isPresent()) return false;
 
-        String creator = issue.getCreator();
+            String login = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName();
+            String name = assignee.get().getRealName() == null ? "" : assignee.get().getRealName();
 
-        return creator.toLowerCase().contains(content.get().toLowerCase());
+            return Utility.containsIgnoreCase(login, content) || Utility.containsIgnoreCase(name, content);
+        };
     }
 
-    private boolean involvesSatisfies(IModel model, TurboIssue issue) {
-        return authorSatisfies(issue) || assigneeSatisfies(model, issue);
+    private Predicate<TurboIssue> authorPredicate() {
+        if (!content.isPresent()) return NONE;
+        String content = this.content.get().toLowerCase();
+        return issue -> Utility.containsIgnoreCase(issue.getCreator(), content);
     }
 
-    private boolean labelsSatisfy(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
+    private Predicate<TurboIssue> labelsPredicate(IModel model) {
+        if (!content.isPresent()) return NONE;
 
         // Make use of TurboLabel constructor to parse the string, to avoid duplication
         TurboLabel tokens = new TurboLabel("", content.get().toLowerCase());
-
-        String group = "";
-        if (tokens.getGroup().isPresent()) {
-            group = tokens.getGroup().get().toLowerCase();
-        }
+        String group = tokens.getGroup().isPresent() ? tokens.getGroup().get().toLowerCase() : "";
         String labelName = tokens.getName().toLowerCase();
 
-        for (TurboLabel label : model.getLabelsOfIssue(issue)) {
-            if (label.getGroup().isPresent()) {
-                if (labelName.isEmpty()) {
-                    // Check the group
-                    if (label.getGroup().get().toLowerCase().contains(group)) {
-                       return true;
+        return issue -> {
+            for (TurboLabel label : model.getLabelsOfIssue(issue)) {
+                if (label.getGroup().isPresent()) {
+                    if (Utility.containsIgnoreCase(label.getGroup().get(), group)
+                        && (labelName.isEmpty() || Utility.containsIgnoreCase(label.getName(), labelName))) {
+                        return true;
                     }
                 } else {
-                    if (label.getGroup().get().toLowerCase().contains(group)
-                        && label.getName().toLowerCase().contains(labelName)) {
-                       return true;
+                    // Check only the label name
+                    if (!group.isEmpty()) {
+                        return false;
+                    } else if (!labelName.isEmpty() && Utility.containsIgnoreCase(label.getName(), labelName)) {
+                        return true;
                     }
                 }
-            } else {
-                // Check only the label name
-                if (!group.isEmpty()) {
-                    return false;
-                } else if (!labelName.isEmpty() && label.getName().toLowerCase().contains(labelName)) {
-                    return true;
-                }
             }
-        }
-        return false;
+            return false;
+        };
     }
 
-    private boolean milestoneSatisfies(IModel model, TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        Optional<TurboMilestone> milestone = model.getMilestoneOfIssue(issue);
-
-        if (!milestone.isPresent()) return false;
-
-        String contents = content.get().toLowerCase();
-        String title = milestone.get().getTitle().toLowerCase();
+    private Predicate<TurboIssue> milestonePredicate(IModel model) {
+        if (!content.isPresent()) return NONE;
+        String content = this.content.get().toLowerCase();
 
-        return title.contains(contents);
+        return issue -> {
+            Optional<TurboMilestone> milestone = model.getMilestoneOfIssue(issue);
+            return milestone.isPresent() && Utility.containsIgnoreCase(milestone.get().getTitle(), content);
+        };
     }
 
-    private boolean keywordSatisfies(TurboIssue issue, MetaQualifierInfo info) {
-
+    private Predicate<TurboIssue> keywordPredicate(MetaQualifierInfo info) {
         if (info.getIn().isPresent()) {
             switch (info.getIn().get()) {
             case "title":
-                return titleSatisfies(issue);
+                return titlePredicate();
             case "body":
             case "desc":
             case "description":
-                return bodySatisfies(issue);
+                return bodyPredicate();
             default:
-                return false;
+                return NONE;
             }
         } else {
-            return titleSatisfies(issue) || bodySatisfies(issue);
+            return titlePredicate().or(bodyPredicate());
         }
     }
 
-    private boolean bodySatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getDescription().toLowerCase().contains(content.get().toLowerCase());
+    private Predicate<TurboIssue> bodyPredicate() {
+        if (!content.isPresent()) return NONE;
+        String content = this.content.get().toLowerCase();
+        return issue -> Utility.containsIgnoreCase(issue.getDescription(), content);
     }
 
-    private boolean titleSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        return issue.getTitle().toLowerCase().contains(content.get().toLowerCase());
+    private Predicate<TurboIssue> titlePredicate() {
+        if (!content.isPresent()) return NONE;
+        String content = this.content.get().toLowerCase();
+        return issue -> Utility.containsIgnoreCase(issue.getTitle(), content);
     }
 
-    private boolean typeSatisfies(TurboIssue issue) {
-        if (!content.isPresent()) return false;
-        String content = this.content.get().toLowerCase();
-        switch (content) {
+    private Predicate<TurboIssue> typePredicate() {
+        if (!content.isPresent()) return NONE;
+        switch (content.get().toLowerCase()) {
             case "issue":
-                return !issue.isPullRequest();
+                return issue -> !issue.isPullRequest();
             case "pr":
             case "pullrequest":
-                return issue.isPullRequest();
+                return TurboIssue::isPullRequest;
             default:
-                return false;
+                return NONE;
         }
     }
 
@@ -9,20 +9,41 @@ import org.eclipse.egit.github.core.client.GitHubResponse;
 import util.IOUtilities;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.Map;
+import java.util.Optional;
 
 public class GitHubClientExtended extends GitHubClient {
     public static final int NO_UPDATE_RESPONSE_CODE = 304;
     protected static final int CONNECTION_TIMEOUT = 30000;
 
+    // The number of bytes of responses remembered to revalidate requests with
+    public static final long RESPONSE_CACHE_CAPACITY = 16L * 1024 * 1024;
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    // The maximum number of requests made at once, across all tasks
+    public static final int MAX_CONCURRENT_REQUESTS = 10;
+
+    private static final String HEADER_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_CAPACITY);
+    private final RequestScheduler scheduler = new RequestScheduler(MAX_CONCURRENT_REQUESTS);
+
     public GitHubClientExtended() {
     }
 
+    /**
+     * Creates a client for a GitHub Enterprise host, or a stand-in for one.
+     */
+    public GitHubClientExtended(String hostname, int port, String scheme) {
+        super(hostname, port, scheme);
+    }
+
     /**
      * Extends superclass method with connection timeout parameters.
      */
@@ -58,17 +79,94 @@ public class GitHubClientExtended extends GitHubClient {
     public <V> V sendJson(final HttpURLConnection request, final Object params, final Type type)
         throws IOException {
 
-        sendParams(request, params);
-        final int code = request.getResponseCode();
-        updateRateLimits(request);
-        if (isOk(code))
-            if (type != null)
-                return parseJson(getStream(request), type);
-            else
+        return scheduler.schedule(() -> {
+            sendParams(request, params);
+            final int code = request.getResponseCode();
+            updateRateLimits(request);
+            if (isOk(code))
+                if (type != null)
+                    return parseJson(getStream(request), type);
+                else
+                    return null;
+            if (isEmpty(code))
                 return null;
-        if (isEmpty(code))
+            throw createException(getStream(request), code, request.getResponseMessage());
+        });
+    }
+
+    /**
+     * Makes the request of a connection created by createConnection, once the request scheduler admits it.
+     *
+     * @return the response code
+     */
+    public int getResponseCode(HttpURLConnection connection) throws IOException {
+        return scheduler.schedule(() -> {
+            int code = connection.getResponseCode();
+            updateRateLimits(connection);
+            if (code == NO_UPDATE_RESPONSE_CODE) {
+                scheduler.notCounted();
+            }
+            return code;
+        });
+    }
+
+    /**
+     * Extends superclass method to make the request once the request scheduler admits it.
+     */
+    @Override
+    public <V> V post(String uri, Object params, Type type) throws IOException {
+        return scheduler.schedule(() -> super.post(uri, params, type));
+    }
+
+    /**
+     * Extends superclass method to make the request once the request scheduler admits it.
+     */
+    @Override
+    public <V> V put(String uri, Object params, Type type) throws IOException {
+        return scheduler.schedule(() -> super.put(uri, params, type));
+    }
+
+    /**
+     * Extends superclass method to make the request once the request scheduler admits it.
+     */
+    @Override
+    public void delete(String uri, Object params) throws IOException {
+        scheduler.schedule(() -> {
+            super.delete(uri, params);
             return null;
-        throw createException(getStream(request), code, request.getResponseMessage());
+        });
+    }
+
+    /**
+     * Extends superclass method to pass the rate limit on to the request scheduler.
+     */
+    @Override
+    protected GitHubClient updateRateLimits(HttpURLConnection request) {
+        super.updateRateLimits(request);
+        if (getRemainingRequests() >= 0 && getRequestLimit() >= 0) {
+            long resetTime = 0;
+            try {
+                String reset = request.getHeaderField(HEADER_RATE_LIMIT_RESET);
+                resetTime = reset == null ? 0 : Long.parseLong(reset) * 1000; // seconds to milliseconds
+            } catch (NumberFormatException e) {
+                // The reset time is then assumed
+            }
+            scheduler.updateRateLimit(getRequestLimit(), getRemainingRequests(), resetTime);
+        }
+        return this;
+    }
+
+    public RequestScheduler getRequestScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Extends superclass method to make the request conditional on the response received before,
+     * if it is remembered, so that it is served from the response cache if it has not changed.
+     */
+    @Override
+    public GitHubResponse get(GitHubRequest request) throws IOException {
+        return conditionalGet(request, null).get().left;
     }
 
     /**
@@ -81,33 +179,107 @@ public class GitHubClientExtended extends GitHubClient {
      * @throws IOException
      */
     public GitHubEventsResponse getEvent(GitHubRequest request) throws IOException {
-        HttpURLConnection httpRequest = createGet(request.generateUri());
+        return getEvent(request, null).get();
+    }
+
+    /**
+     * Same as getEvent, but does not get the events if they have not changed since they had the given ETag.
+     *
+     * @param eTag The ETag the events had, or null to get them regardless.
+     * @return the response, or empty if the events have not changed
+     */
+    public Optional<GitHubEventsResponse> getEvent(GitHubRequest request, String eTag) throws IOException {
+        // The body is parsed again for event-specific information
+        return conditionalGet(request, eTag).map(response -> new GitHubEventsResponse(response.left,
+            response.right == null ? null : new ByteArrayInputStream(response.right)));
+    }
+
+    /**
+     * Makes a GET request, unless the resource has not changed since it had the given ETag.
+     *
+     * @param eTag The ETag the resource had, or null to get it regardless.
+     * @return the response, or empty if the resource has not changed
+     */
+    public Optional<GitHubResponse> getIfChanged(GitHubRequest request, String eTag) throws IOException {
+        return conditionalGet(request, eTag).map(response -> response.left);
+    }
+
+    /**
+     * Makes a GET request conditional on the given ETag, or if there is none, on the validators of the
+     * response remembered for the request, in which case a 304 is answered with that response instead.
+     *
+     * @return the response with its raw body, or empty if the resource has not changed since it had the given ETag
+     */
+    private Optional<ImmutablePair<GitHubResponse, byte[]>> conditionalGet(GitHubRequest request, String eTag)
+        throws IOException {
+
+        return scheduler.schedule(() -> makeConditionalGet(request, eTag));
+    }
+
+    private Optional<ImmutablePair<GitHubResponse, byte[]>> makeConditionalGet(GitHubRequest request, String eTag)
+        throws IOException {
+
+        String uri = request.generateUri();
         String accept = request.getResponseContentType();
-        if (accept != null)
+        String key = ResponseCache.getKey(uri, accept);
+        Optional<ResponseCache.Entry> cached = eTag == null ? responseCache.get(key) : Optional.empty();
+
+        HttpURLConnection httpRequest = createGet(uri);
+        if (accept != null) {
             httpRequest.setRequestProperty(HEADER_ACCEPT, accept);
+        }
+        if (eTag != null) {
+            httpRequest.setRequestProperty(HEADER_IF_NONE_MATCH, eTag);
+        } else if (cached.isPresent()) {
+            cached.get().getETag().ifPresent(tag -> httpRequest.setRequestProperty(HEADER_IF_NONE_MATCH, tag));
+            cached.get().getLastModified()
+                .ifPresent(time -> httpRequest.setRequestProperty(HEADER_IF_MODIFIED_SINCE, time));
+        }
+
         final int code = httpRequest.getResponseCode();
         updateRateLimits(httpRequest);
-        if (isOk(code)) {
-
-            // Copy the httpRequest input stream into a byte array
-            InputStream reqIS = getStream(httpRequest);
-            ByteArrayOutputStream buffer = IOUtilities.inputStreamToByteArrayOutputStream(reqIS);
-            InputStream reqIS2 = new ByteArrayInputStream(buffer.toByteArray());
-            InputStream reqIS3 = new ByteArrayInputStream(buffer.toByteArray());
-
-            // The first copy is used to produce the GitHubResponse
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, getBody(request, reqIS2));
-
-            // The second is parsed again for event-specific information
-            return new GitHubEventsResponse(ghResponse, reqIS3);
+        if (code == NO_UPDATE_RESPONSE_CODE) {
+            // Conditional requests answered with a 304 do not count towards the rate limit
+            scheduler.notCounted();
+        }
+        if (code == NO_UPDATE_RESPONSE_CODE && eTag != null) {
+            return Optional.empty();
+        } else if (code == NO_UPDATE_RESPONSE_CODE && cached.isPresent()) {
+            byte[] body = cached.get().getBody();
+            return Optional.of(new ImmutablePair<>(
+                new RevalidatedResponse(httpRequest, getBody(request, new ByteArrayInputStream(body)), cached.get()),
+                body));
+        } else if (isOk(code)) {
+            byte[] body = IOUtilities.inputStreamToByteArrayOutputStream(getStream(httpRequest)).toByteArray();
+            responseCache.put(key, httpRequest, body);
+            return Optional.of(new ImmutablePair<>(
+                new GitHubResponse(httpRequest, getBody(request, new ByteArrayInputStream(body))), body));
         } else if (isEmpty(code)) {
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, null);
-            return new GitHubEventsResponse(ghResponse, null);
+            return Optional.of(new ImmutablePair<>(new GitHubResponse(httpRequest, null), null));
         } else {
             throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
         }
     }
 
+    /**
+     * A response served from the response cache after a 304. Headers the 304 does not have,
+     * e.g. the links to other pages, are those of the response it was served from.
+     */
+    private static class RevalidatedResponse extends GitHubResponse {
+        private final ResponseCache.Entry cached;
+
+        RevalidatedResponse(HttpURLConnection response, Object body, ResponseCache.Entry cached) {
+            super(response, body);
+            this.cached = cached;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String header = super.getHeader(name);
+            return header == null ? cached.getHeader(name) : header;
+        }
+    }
+
     /**
      * Accesses the Rate Limit API endpoint to retrieve the number of remaining requests for the hour,
      * as well as the next reset time. Calling this function itself does not count towards the API limit.
@@ -106,4 +106,8 @@ public class GitHubEventsResponse {
     public ArrayList<TurboIssueEvent> getTurboIssueEvents() {
         return turboIssueEvents;
     }
+
+    public String getETag() {
+        return response.getHeader("ETag");
+    }
 }
@@ -1,14 +1,20 @@
 package github;
 
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.*;
 import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PagedRequest;
 import org.eclipse.egit.github.core.service.IssueService;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 
@@ -143,6 +149,17 @@ public class IssueServiceExtended extends IssueService{
      * @throws IOException
      */
     public GitHubEventsResponse getIssueEvents(IRepositoryIdProvider repository, int issueId) throws IOException {
+        return getUpdatedIssueEvents(repository, issueId, null).get();
+    }
+
+    /**
+     * Retrieves the events of an issue, unless they have not changed since they had the given ETag.
+     *
+     * @param eTag The ETag the events had, or null to retrieve them regardless.
+     * @return the events, or empty if they have not changed
+     */
+    public Optional<GitHubEventsResponse> getUpdatedIssueEvents(IRepositoryIdProvider repository, int issueId,
+                                                                String eTag) throws IOException {
         GitHubRequest request = createRequest();
         StringBuilder uri = new StringBuilder(SEGMENT_REPOS);
         uri.append('/').append(repository.generateId());
@@ -151,7 +168,41 @@ public class IssueServiceExtended extends IssueService{
         uri.append(SEGMENT_EVENTS);
         request.setUri(uri);
         request.setType(IssueEvent[].class);
-        GitHubEventsResponse response = ghClient.getEvent(request);
-        return response;
+        return ghClient.getEvent(request, eTag);
+    }
+
+    /**
+     * Retrieves the comments on an issue, unless they have not changed since they had the given ETag.
+     * The ETag only covers the first page of comments, so none is returned for comments spanning
+     * several pages, which are then always retrieved.
+     *
+     * @param eTag The ETag the comments had, or null to retrieve them regardless.
+     * @return the comments and their ETag, or empty if they have not changed
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(IRepositoryIdProvider repository,
+                                                                            int issueId, String eTag)
+        throws IOException {
+
+        String uri = SEGMENT_REPOS + '/' + repository.generateId() + SEGMENT_ISSUES + '/' + issueId
+            + SEGMENT_COMMENTS;
+        PagedRequest<Comment> request = createPagedRequest(PagedRequest.PAGE_FIRST, PagedRequest.PAGE_SIZE);
+        request.setUri(uri);
+        request.setType(new TypeToken<List<Comment>>() {}.getType());
+
+        Optional<GitHubResponse> response = ghClient.getIfChanged(request, eTag);
+        if (!response.isPresent()) {
+            return Optional.empty();
+        }
+        List<Comment> comments = new ArrayList<>((List<Comment>) response.get().getBody());
+        if (response.get().getNext() == null) {
+            return Optional.of(new ImmutablePair<>(comments, response.get().getHeader("ETag")));
+        }
+
+        PagedRequest<Comment> rest = createPagedRequest(PagedRequest.PAGE_FIRST + 1, PagedRequest.PAGE_SIZE);
+        rest.setUri(uri);
+        rest.setType(new TypeToken<List<Comment>>() {}.getType());
+        comments.addAll(getAll(rest));
+        return Optional.of(new ImmutablePair<>(comments, null));
     }
 }
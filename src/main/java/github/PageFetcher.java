@@ -0,0 +1,150 @@
+package github;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.NoSuchPageException;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Fetches the pages of a paged resource concurrently. The first page is fetched on its own, as its
+ * response tells how many pages there are; the rest are then requested a few at a time, and handed
+ * over in order as they arrive.
+ *
+ * No more pages are requested at once than the configured maximum, nor than the requests remaining
+ * in the rate limit, as of the last response.
+ */
+public class PageFetcher {
+
+    /**
+     * Receives the pages of a resource in order.
+     */
+    @FunctionalInterface
+    public interface PageConsumer<V> {
+        /**
+         * @param lastPage The number of the last page, as far as is known.
+         */
+        void accept(int page, int lastPage, Collection<V> items);
+    }
+
+    private final GitHubClient client;
+    private final int maxConcurrentRequests;
+    private final ExecutorService pool = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Page fetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PageFetcher(GitHubClient client, int maxConcurrentRequests) {
+        assert maxConcurrentRequests >= 1;
+        this.client = client;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @param pages Creates an iterator over the pages of the resource, starting from the given page.
+     * @return the items on all pages, in order
+     */
+    public <V> List<V> fetchAll(IntFunction<PageIterator<V>> pages) throws IOException {
+        List<V> result = new ArrayList<>();
+        fetch(pages, PagedRequest.PAGE_FIRST, (page, lastPage, items) -> result.addAll(items));
+        return result;
+    }
+
+    /**
+     * Fetches the pages of a resource from the given page on.
+     *
+     * @param pages Creates an iterator over the pages of the resource, starting from the given page.
+     * @throws IOException if a page could not be fetched, in which case the pages before it have
+     * been handed over
+     */
+    public <V> void fetch(IntFunction<PageIterator<V>> pages, int firstPage, PageConsumer<V> pageConsumer)
+        throws IOException {
+
+        PageIterator<V> iterator = pages.apply(firstPage);
+        if (!iterator.hasNext()) {
+            return;
+        }
+        Collection<V> first = next(iterator);
+
+        // getLastPage() returns -1 on the last page
+        int lastPage = Math.max(firstPage, iterator.getLastPage());
+        pageConsumer.accept(firstPage, lastPage, first);
+
+        // Each request completes with the items on its page, and the iterator which fetched them
+        Deque<Future<ImmutablePair<Collection<V>, PageIterator<V>>>> inFlight = new ArrayDeque<>();
+        // The pages are requested with the priority of the caller
+        RequestScheduler.Priority priority = RequestScheduler.getPriority();
+        int nextRequested = firstPage + 1;
+        int nextHandedOver = firstPage + 1;
+        try {
+            while (nextHandedOver <= lastPage) {
+                int concurrency = getConcurrency();
+                while (nextRequested <= lastPage && inFlight.size() < concurrency) {
+                    PageIterator<V> pageIterator = pages.apply(nextRequested++);
+                    inFlight.add(pool.submit(() -> RequestScheduler.callWithPriority(priority,
+                        () -> new ImmutablePair<>(next(pageIterator), pageIterator))));
+                }
+                ImmutablePair<Collection<V>, PageIterator<V>> page = await(inFlight.remove());
+                iterator = page.right;
+                pageConsumer.accept(nextHandedOver++, lastPage, page.left);
+            }
+        } finally {
+            inFlight.forEach(request -> request.cancel(true));
+        }
+
+        // Items added since the first page was fetched may have spilled onto further pages
+        while (iterator.hasNext()) {
+            int page = iterator.getNextPage();
+            Collection<V> items = next(iterator);
+            lastPage = Math.max(lastPage, page);
+            pageConsumer.accept(page, lastPage, items);
+        }
+    }
+
+    /**
+     * @return the number of pages which may be requested at once
+     */
+    private int getConcurrency() {
+        int remaining = client.getRemainingRequests();
+        if (remaining < 0) {
+            // No response has told us yet
+            return maxConcurrentRequests;
+        }
+        return Math.max(1, Math.min(maxConcurrentRequests, remaining));
+    }
+
+    private static <V> Collection<V> next(PageIterator<V> iterator) throws IOException {
+        try {
+            return iterator.next();
+        } catch (NoSuchPageException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T await(Future<T> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching pages", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package github;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+
+/**
+ * Schedules the requests made to GitHub, so that no more than a given number are made at once,
+ * and they are paced to last the rate limit until it resets.
+ *
+ * Requests are admitted in order of priority, and within a priority in the order they were made.
+ * The priority of a request is that of the thread making it (see callWithPriority). Requests of
+ * lower priority leave part of the rate limit to those of higher priority, so that a large refresh
+ * cannot use up the rate limit and leave none for the user's own actions.
+ *
+ * Pacing follows a token bucket, refilled at the rate which spreads the remaining requests over the time
+ * until the rate limit resets. It holds up to a tenth of the rate limit, so that bursts of requests are not
+ * held back until they have used that much. The rate limit is taken from the X-RateLimit-* headers of
+ * the responses; until the first response, requests are not paced.
+ */
+public class RequestScheduler {
+
+    /**
+     * The priorities of requests, highest first.
+     */
+    public enum Priority {
+        // Made on the user's behalf, e.g. changing labels or logging in
+        INTERACTIVE(0),
+        // Downloading or updating repositories
+        MODEL_UPDATE(0.02),
+        // Downloading the metadata of issues before it is shown
+        METADATA_PREFETCH(0.1);
+
+        // The fraction of the rate limit left to requests of higher priority
+        private final double reserve;
+
+        Priority(double reserve) {
+            this.reserve = reserve;
+        }
+    }
+
+    /**
+     * A request to GitHub.
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+        T run() throws IOException;
+    }
+
+    // The fraction of the rate limit which may be used in a burst
+    private static final double BURST_FRACTION = 0.1;
+
+    // How long the rate limit lasts, assumed if a response does not tell when it resets
+    private static final long RATE_LIMIT_WINDOW = 60 * 60 * 1000;
+
+    // The interval over which throughput is measured, in milliseconds
+    private static final long THROUGHPUT_INTERVAL = 60 * 1000;
+
+    // Requests made outside of any task are taken to be made on the user's behalf
+    private static final ThreadLocal<Priority> currentPriority = ThreadLocal.withInitial(() -> Priority.INTERACTIVE);
+
+    /**
+     * A request waiting to be admitted.
+     */
+    private static class Waiter {
+        private final Priority priority;
+        private final long sequence;
+
+        Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    private final int maxConcurrentRequests;
+
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+        Comparator.<Waiter, Priority>comparing(waiter -> waiter.priority).thenComparingLong(waiter -> waiter.sequence));
+    private long nextSequence = 0;
+    private int activeRequests = 0;
+
+    // The rate limit as of the last response, less the requests admitted since; -1 until a response tells
+    private int limit = -1;
+    private int remaining = -1;
+    private long resetTime = 0;
+
+    // The token bucket, and the rate at which it is refilled, in tokens per millisecond
+    private double tokens = 0;
+    private double refillRate = 0;
+    private long lastRefill = 0;
+
+    // The times at which requests completed in the last interval
+    private final Deque<Long> completionTimes = new ArrayDeque<>();
+    private long completedRequests = 0;
+
+    public RequestScheduler(int maxConcurrentRequests) {
+        assert maxConcurrentRequests >= 1;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return the priority of the requests made by the current thread
+     */
+    public static Priority getPriority() {
+        return currentPriority.get();
+    }
+
+    /**
+     * Makes requests with the given priority from the current thread until the given function returns.
+     */
+    public static <T> T callWithPriority(Priority priority, Request<T> function) throws IOException {
+        Priority previous = currentPriority.get();
+        currentPriority.set(priority);
+        try {
+            return function.run();
+        } finally {
+            currentPriority.set(previous);
+        }
+    }
+
+    /**
+     * @return a runnable which makes requests with the given priority from whichever thread runs it
+     */
+    public static Runnable withPriority(Priority priority, Runnable runnable) {
+        return () -> {
+            Priority previous = currentPriority.get();
+            currentPriority.set(priority);
+            try {
+                runnable.run();
+            } finally {
+                currentPriority.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Makes a request once it is admitted, with the priority of the current thread.
+     *
+     * @throws InterruptedIOException if the thread was interrupted while waiting for the request to be admitted
+     */
+    public <T> T schedule(Request<T> request) throws IOException {
+        try {
+            admit(currentPriority.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to make a request");
+        }
+        try {
+            return request.run();
+        } finally {
+            complete();
+        }
+    }
+
+    /**
+     * Takes in the rate limit reported by a response.
+     *
+     * @param resetTime The time at which the rate limit resets, in milliseconds, or 0 if unknown.
+     */
+    public synchronized void updateRateLimit(int limit, int remaining, long resetTime) {
+        long now = System.currentTimeMillis();
+        refill(now);
+        if (resetTime <= now) {
+            resetTime = now + RATE_LIMIT_WINDOW;
+        }
+        boolean firstResponse = this.limit < 0;
+        this.limit = limit;
+        // The other requests in flight may not be counted in the response yet
+        this.remaining = Math.max(0, remaining - Math.max(0, activeRequests - 1));
+        this.resetTime = resetTime;
+        if (firstResponse) {
+            tokens = Math.min(getBurst(), this.remaining);
+        }
+        refillRate = (double) this.remaining / (resetTime - now);
+        notifyAll();
+    }
+
+    /**
+     * Records that a request did not count towards the rate limit, e.g. as it was answered with a 304,
+     * so that it does not hold back later requests. The remaining requests are taken from its response.
+     */
+    public synchronized void notCounted() {
+        if (limit < 0) {
+            return;
+        }
+        tokens = Math.min(getBurst(), tokens + 1);
+        notifyAll();
+    }
+
+    /**
+     * @return the number of requests waiting to be admitted
+     */
+    public synchronized int getQueueDepth() {
+        return waiting.size();
+    }
+
+    /**
+     * @return the number of requests of the given priority waiting to be admitted
+     */
+    public synchronized int getQueueDepth(Priority priority) {
+        return (int) waiting.stream().filter(waiter -> waiter.priority == priority).count();
+    }
+
+    public synchronized int getActiveRequests() {
+        return activeRequests;
+    }
+
+    public synchronized long getCompletedRequests() {
+        return completedRequests;
+    }
+
+    /**
+     * @return the number of requests completed per second, over the last minute
+     */
+    public synchronized double getThroughput() {
+        pruneCompletionTimes(System.currentTimeMillis());
+        return completionTimes.size() * 1000.0 / THROUGHPUT_INTERVAL;
+    }
+
+    private synchronized void admit(Priority priority) throws InterruptedException {
+        Waiter waiter = new Waiter(priority, nextSequence++);
+        waiting.add(waiter);
+        try {
+            while (true) {
+                if (waiting.peek() != waiter || activeRequests >= maxConcurrentRequests) {
+                    wait();
+                    continue;
+                }
+                long delay = getDelay(priority, System.currentTimeMillis());
+                if (delay > 0) {
+                    wait(delay);
+                    continue;
+                }
+                if (limit >= 0) {
+                    tokens -= 1;
+                    remaining -= 1;
+                }
+                activeRequests++;
+                return;
+            }
+        } finally {
+            waiting.remove(waiter);
+            // The next request may now be admitted
+            notifyAll();
+        }
+    }
+
+    private synchronized void complete() {
+        activeRequests--;
+        completedRequests++;
+        long now = System.currentTimeMillis();
+        completionTimes.add(now);
+        pruneCompletionTimes(now);
+        notifyAll();
+    }
+
+    /**
+     * @return how long a request of the given priority has to wait before it may be made, in milliseconds
+     */
+    private long getDelay(Priority priority, long now) {
+        if (limit < 0) {
+            return 0;
+        }
+        if (now >= resetTime) {
+            // The rate limit has reset, though no response has told us yet
+            remaining = limit;
+            tokens = getBurst();
+            resetTime = now + RATE_LIMIT_WINDOW;
+            refillRate = (double) limit / RATE_LIMIT_WINDOW;
+        }
+        refill(now);
+        if (remaining - (int) (limit * priority.reserve) < 1) {
+            return resetTime - now;
+        }
+        if (tokens < 1) {
+            return refillRate > 0 ? Math.max(1, (long) Math.ceil((1 - tokens) / refillRate)) : resetTime - now;
+        }
+        return 0;
+    }
+
+    private void refill(long now) {
+        if (limit >= 0 && now > lastRefill) {
+            tokens = Math.min(Math.min(getBurst(), remaining), tokens + (now - lastRefill) * refillRate);
+        }
+        lastRefill = now;
+    }
+
+    private int getBurst() {
+        return Math.max(1, (int) (limit * BURST_FRACTION));
+    }
+
+    private void pruneCompletionTimes(long now) {
+        while (!completionTimes.isEmpty() && completionTimes.peekFirst() < now - THROUGHPUT_INTERVAL) {
+            completionTimes.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package github;
+
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Remembers the responses to GET requests along with their validators (ETag and Last-Modified), so that
+ * the requests can be made conditional, and a 304 answered with the response received before.
+ * Holds up to a given number of bytes of response bodies, evicting those used least recently.
+ */
+public class ResponseCache {
+
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * A response, with the headers it came with.
+     */
+    public static class Entry {
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        private Entry(Map<String, String> headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public Optional<String> getETag() {
+            return Optional.ofNullable(headers.get(HEADER_ETAG));
+        }
+
+        public Optional<String> getLastModified() {
+            return Optional.ofNullable(headers.get(HEADER_LAST_MODIFIED));
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private final long capacity;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * @param capacity The number of bytes of response bodies to hold.
+     */
+    public ResponseCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param accept The content type the response was requested in, which may be null.
+     * @return the key a response to a GET request of the given URI is remembered by
+     */
+    public static String getKey(String uri, String accept) {
+        return accept == null ? uri : uri + " " + accept;
+    }
+
+    public synchronized Optional<Entry> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    /**
+     * Remembers a successful response, if it has any validators to make a later request conditional on.
+     * Otherwise forgets any response remembered earlier, which could no longer be revalidated.
+     */
+    public synchronized void put(String key, HttpURLConnection response, byte[] body) {
+        remove(key);
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.getHeaderFields().keySet().stream()
+            .filter(name -> name != null)
+            .forEach(name -> headers.put(name, response.getHeaderField(name)));
+        Entry entry = new Entry(headers, body);
+        if (!entry.getETag().isPresent() && !entry.getLastModified().isPresent() || body.length > capacity) {
+            return;
+        }
+        entries.put(key, entry);
+        size += body.length;
+        evict();
+    }
+
+    public synchronized void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            size -= removed.body.length;
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private void evict() {
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (size > capacity && leastRecentlyUsed.hasNext()) {
+            size -= leastRecentlyUsed.next().body.length;
+            leastRecentlyUsed.remove();
+        }
+    }
+}
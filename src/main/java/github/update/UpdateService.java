@@ -94,7 +94,7 @@ public class UpdateService<T> extends GitHubService {
 
             PagedRequest<T> request = createUpdatedRequest(repoId);
             HttpURLConnection connection = createUpdatedConnection(request);
-            int responseCode = connection.getResponseCode();
+            int responseCode = client.getResponseCode(connection);
 
             if (client.isError(responseCode)) {
                 logger.warn(String.format("%s: error getting updated items (%d)",
@@ -1,19 +1,21 @@
 package ui;
 
 import backend.interfaces.IModel;
+import backend.resource.ModelDelta;
 import backend.resource.TurboIssue;
 import filter.expression.FilterExpression;
 import filter.expression.Qualifier;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
-import javafx.collections.transformation.TransformationList;
 import javafx.scene.control.Label;
 import ui.issuepanel.FilterPanel;
 import ui.issuepanel.PanelControl;
+import ui.issuepanel.SortedIssueList;
 import ui.issuepanel.UIBrowserBridge;
+import org.apache.logging.log4j.Logger;
+import util.Futures;
+import util.HTLog;
 import util.Utility;
 import util.events.ModelUpdatedEvent;
 import util.events.ModelUpdatedEventHandler;
@@ -21,7 +23,14 @@ import util.events.UpdateRateLimitsEvent;
 import util.events.UpdateRateLimitsEventHandler;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Manages the state of UI components and acts as a gateway between back-end components and
@@ -29,6 +38,24 @@ import java.util.function.Predicate;
  */
 
 public class GUIController {
+    private static final Logger logger = HTLog.get(GUIController.class);
+
+    // Panels are filtered and sorted on a bounded pool, leaving a core to the FX thread
+    private static final int FILTER_PARALLELISM =
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final ForkJoinPool filterPool = new ForkJoinPool(FILTER_PARALLELISM);
+
+    // In test mode panels are filtered synchronously, so that tests see them updated once the event is handled
+    private final Executor filterExecutor;
+    private final Executor fxExecutor;
+
+    // The cancellation flag of each panel's pending computation. Only accessed on the FX thread.
+    private final Map<FilterPanel, AtomicBoolean> pendingComputations = new HashMap<>();
+
+    // The metadata requested for each panel's issues, until it is superseded. Only accessed on the FX thread.
+    private final Map<FilterPanel, List<CompletableFuture<Boolean>>> pendingMetadataRequests = new HashMap<>();
+
     private PanelControl panelControl;
     private UI ui;
     private Label apiBox;
@@ -41,6 +68,8 @@ public class GUIController {
         this.ui = ui;
         this.panelControl = panelControl;
         this.apiBox = apiBox;
+        this.filterExecutor = ui.isTestMode() ? Runnable::run : filterPool;
+        this.fxExecutor = ui.isTestMode() ? Runnable::run : Platform::runLater;
 
         // Set up the connection to the browser
         new UIBrowserBridge(ui);
@@ -65,9 +94,20 @@ public class GUIController {
      * on their respective panels, or held back until their metadata requests have been fired and the downloaded
      * metadata come back as a subsequent ModelUpdatedEvent (with e.hasMetadata being true).
      *
+     * If the event carries the changes made by a refresh, and they affect issues alone, panels which do not
+     * depend on metadata only re-evaluate the issues which were added, changed or removed. If it carries the
+     * issues whose metadata has arrived, only the panels which depend on metadata are processed.
+     *
+     * Other panels are filtered and sorted off the FX thread (see processPanel), and metadata requests are
+     * dispatched once they all have been.
+     *
      * @param e The ModelUpdatedEvent triggered by the uiManager.
      */
     private void modelUpdated(ModelUpdatedEvent e) {
+        if (e.changes.isPresent() && e.changes.get().stream().noneMatch(ModelDelta::hasChanges)) {
+            return;
+        }
+
         multiModel = e.model;
 
         // Use updatedModel while handling a ModelUpdatedEvent to avoid race conditions.
@@ -78,20 +118,38 @@ public class GUIController {
         panelControl.updateModel(updatedModel);
 
         // Extracts all issues from the multimodel. This is then filtered through each of the panels' filters
-        // to produce the appropriate list of issues to be displayed.
-        ObservableList<TurboIssue> allModelIssues = FXCollections.observableArrayList(updatedModel.getIssues());
+        // to produce the appropriate list of issues to be displayed. The model's issue list is immutable,
+        // so it is wrapped rather than copied.
+        ObservableList<TurboIssue> allModelIssues = FXCollections.observableList(updatedModel.getIssues());
 
         // Populated in processPanel calls.
-        HashMap<String, HashSet<Integer>> toUpdate = new HashMap<>();
+        HashMap<FilterPanel, HashMap<String, HashSet<Integer>>> toUpdate = new HashMap<>();
+        List<CompletableFuture<Void>> processing = new ArrayList<>();
+
+        Optional<List<ModelDelta>> issueChanges = e.changes
+            .filter(changes -> changes.stream().allMatch(ModelDelta::hasIssueChangesOnly));
+        boolean isMetadataChange = e.hasMetadata && e.changes.isPresent();
 
         panelControl.getChildren().forEach(child -> {
-            if (child instanceof FilterPanel) {
-                processPanel((FilterPanel) child, updatedModel, allModelIssues, toUpdate, e.hasMetadata);
+            if (!(child instanceof FilterPanel)) {
+                return;
+            }
+            FilterPanel panel = (FilterPanel) child;
+            if (isMetadataChange && !dependsOnMetadata(panel)) {
+                return;
+            }
+            // A panel whose issues are still being computed is computed again, as the pending
+            // result would not reflect the changes
+            if (issueChanges.isPresent() && isIncrementallyUpdatable(panel)
+                && !pendingComputations.containsKey(panel)) {
+                processing.add(processPanelChanges(panel, updatedModel, issueChanges.get()));
+            } else {
+                processing.add(processPanel(panel, updatedModel, allModelIssues, toUpdate, e.hasMetadata));
             }
         });
 
         // If toUpdate is empty, no metadata is requested.
-        dispatchMetadataRequests(toUpdate);
+        dispatchWhenProcessed(processing, toUpdate);
     }
 
     /**
@@ -106,13 +164,23 @@ public class GUIController {
      * @param changedPanel The panel whose filter expression had been changed by the user.
      */
     public void panelFilterExpressionChanged(FilterPanel changedPanel) {
-        ObservableList<TurboIssue> allModelIssues = FXCollections.observableArrayList(multiModel.getIssues());
-        HashMap<String, HashSet<Integer>> toUpdate = new HashMap<>();
+        ObservableList<TurboIssue> allModelIssues = FXCollections.observableList(multiModel.getIssues());
+        HashMap<FilterPanel, HashMap<String, HashSet<Integer>>> toUpdate = new HashMap<>();
 
         // This is not triggered by a (metadata) update, so we pass false into the call.
-        processPanel(changedPanel, multiModel, allModelIssues, toUpdate, false);
+        CompletableFuture<Void> processing = processPanel(changedPanel, multiModel, allModelIssues, toUpdate, false);
+
+        dispatchWhenProcessed(Collections.singletonList(processing), toUpdate);
+    }
 
-        dispatchMetadataRequests(toUpdate);
+    /**
+     * Dispatches the metadata requests tallied by the given processPanel calls once they are all done.
+     * The tally is only touched on the FX thread, where the calls complete.
+     */
+    private void dispatchWhenProcessed(List<CompletableFuture<Void>> processing,
+                                       HashMap<FilterPanel, HashMap<String, HashSet<Integer>>> toUpdate) {
+        Futures.sequence(processing)
+            .thenRun(() -> dispatchMetadataRequests(toUpdate));
     }
 
     /**
@@ -125,17 +193,24 @@ public class GUIController {
      * updatedModel and allModelIssues are specified as separate arguments as the extraction of allModelIssues
      * is O(n).
      *
+     * Filtering and sorting is done on the filter pool, so that the FX thread stays responsive however many
+     * issues there are; only the resulting list is handed back to the FX thread. A computation still pending
+     * for the panel is cancelled, as its result is superseded by this one.
+     *
      * @param panelToProcess The panel whose filter expression will be used to filter issues.
      * @param updatedModel The model whose data will be used to display issue details.
      * @param allModelIssues The list of issues extracted from the model.
-     * @param toUpdate The tally for metadata requests. Ignored if the issues already have metadata, or don't need it.
+     * @param toUpdate The tally for metadata requests, by panel. Unless this is a metadata update, the panel's
+     *                 metadata requests are tallied afresh, even if its issues don't need metadata.
      * @param isMetadataUpdate Determines whether issues have the necessary metadata to be displayed to the user.
+     * @return A future completed on the FX thread once the panel is updated, its issues tallied, or the
+     * computation cancelled.
      */
-    public void processPanel(FilterPanel panelToProcess,
-                             IModel updatedModel,
-                             ObservableList<TurboIssue> allModelIssues,
-                             HashMap<String, HashSet<Integer>> toUpdate,
-                             boolean isMetadataUpdate) {
+    public CompletableFuture<Void> processPanel(FilterPanel panelToProcess,
+                                                IModel updatedModel,
+                                                ObservableList<TurboIssue> allModelIssues,
+                                                HashMap<FilterPanel, HashMap<String, HashSet<Integer>>> toUpdate,
+                                                boolean isMetadataUpdate) {
 
         // Extract the filter expression and the meta qualifiers within it. The expression is used for
         // filtering the issues, whereas the meta qualifiers are used for a special issue sorting order,
@@ -148,47 +223,136 @@ public class GUIController {
 
         boolean hasUpdatedQualifier = updatedQualifierExists(panelMetaQualifiers);
 
+        // The comparator is determined here, as it refers to the multimodel of the GUI.
+        Comparator<TurboIssue> comparator =
+            determineComparator(panelMetaQualifiers, isMetadataUpdate && hasUpdatedQualifier);
+
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicBoolean previous = pendingComputations.put(panelToProcess, cancelled);
+        if (previous != null) {
+            previous.set(true);
+        }
+
         // Issues are filtered and sorted here. isMetadataUpdate and hasUpdatedQualifier are used to determine
         // whether to use an implicit non-self-update sorting order.
-        TransformationList<TurboIssue, TurboIssue> filteredAndSortedIssues =
-                filterAndSortPanel(panelExpression, panelMetaQualifiers,
-                        updatedModel, allModelIssues, isMetadataUpdate && hasUpdatedQualifier);
-
-        // If the filter expression has an UPDATED qualifier, we must ensure that the issues have the relevant
-        // metadata before showing them to the user. If not, we only tally the issues up for metadata update.
-        // However, even if this is not a metadata update, but there are no issues to display or retrieve metadata
-        // for, we also display the empty panel to the user.
-        if (!hasUpdatedQualifier || isMetadataUpdate || filteredAndSortedIssues.isEmpty()) {
-            updatePanel(panelToProcess, filteredAndSortedIssues, isMetadataUpdate);
-        } else {
-            populateUpdateList(filteredAndSortedIssues, toUpdate);
-        }
+        return CompletableFuture
+            .supplyAsync(() -> filterAndSortPanel(panelExpression, updatedModel, allModelIssues, comparator,
+                cancelled::get), filterExecutor)
+            .handleAsync((filteredAndSortedIssues, failure) -> {
+                if (cancelled.get()) {
+                    return null;
+                }
+                pendingComputations.remove(panelToProcess);
+                if (failure != null) {
+                    logger.error("Failed to filter panel: " + failure.getLocalizedMessage(), failure);
+                    return null;
+                }
+
+                if (!isMetadataUpdate) {
+                    toUpdate.put(panelToProcess, new HashMap<>());
+                }
+
+                // If the filter expression has an UPDATED qualifier, we must ensure that the issues have the
+                // relevant metadata before showing them to the user. If not, we only tally the issues up for
+                // metadata update. However, even if this is not a metadata update, but there are no issues to
+                // display or retrieve metadata for, we also display the empty panel to the user.
+                if (!hasUpdatedQualifier || isMetadataUpdate || filteredAndSortedIssues.isEmpty()) {
+                    updatePanel(panelToProcess, filteredAndSortedIssues, isMetadataUpdate);
+                } else {
+                    populateUpdateList(filteredAndSortedIssues, toUpdate.get(panelToProcess));
+                }
+                return null;
+            }, fxExecutor);
     }
 
     /**
-     * Produces a list of issues, filtered and sorted from all issues from the given multimodel, based on
-     * the given filter expression.
+     * Determines if a panel's issues may be updated from the changes to the model alone. This is not the case
+     * if the panel has not been populated yet, or if it depends on metadata or the time through an UPDATED
+     * qualifier.
+     *
+     * @param panel The panel to check.
+     * @return Whether the panel's issues may be updated incrementally.
+     */
+    private static boolean isIncrementallyUpdatable(FilterPanel panel) {
+        return panel.getSortedIssueList() != null && !dependsOnMetadata(panel);
+    }
+
+    /**
+     * Determines if a panel's issues, their order or the way they are shown depend on metadata, which is
+     * the case if the panel has an UPDATED qualifier.
+     *
+     * @param panel The panel to check.
+     * @return Whether the panel depends on metadata.
+     */
+    private static boolean dependsOnMetadata(FilterPanel panel) {
+        return updatedQualifierExists(panel.getCurrentFilterExpression().find(Qualifier::isMetaQualifier));
+    }
+
+    /**
+     * Updates a panel from the changes made to issues by a refresh. The panel's sorted issues are patched
+     * in place: removed and changed issues are taken out, and added and changed issues which satisfy the
+     * panel's filter are inserted in order. The work done is proportional to the number of changes and
+     * logarithmic in the size of the panel.
      *
-     * Like updatedModel and allModelIssues, panelExpression and panelMetaQualifiers are passed separately
-     * as extraction of the meta qualifiers is O(n).
+     * The filter is compiled on the filter pool, as compiling it may build the model's text index; only
+     * the compiled predicate is handed back to the FX thread. Like that of processPanel, the computation
+     * is pending until then, so a later update to the panel recomputes it in full.
+     *
+     * @param panelToProcess The panel to update.
+     * @param updatedModel The model after the changes.
+     * @param changes The changes made to each updated repository, which only affect issues.
+     * @return A future completed on the FX thread once the panel is updated or the computation cancelled.
+     */
+    private CompletableFuture<Void> processPanelChanges(FilterPanel panelToProcess, IModel updatedModel,
+                                                       List<ModelDelta> changes) {
+        FilterExpression panelExpression = panelToProcess.getCurrentFilterExpression();
+
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        pendingComputations.put(panelToProcess, cancelled);
+
+        // The filter is compiled again as it refers to the issue indexes of the model it was compiled against
+        return CompletableFuture
+            .supplyAsync(() -> Qualifier.compileFilter(updatedModel, panelExpression), filterExecutor)
+            .handleAsync((predicate, failure) -> {
+                if (cancelled.get()) {
+                    return null;
+                }
+                pendingComputations.remove(panelToProcess);
+                if (failure != null) {
+                    logger.error("Failed to compile panel filter: " + failure.getLocalizedMessage(), failure);
+                    return null;
+                }
+
+                SortedIssueList issues = panelToProcess.getSortedIssueList();
+                issues.setPredicate(predicate);
+                changes.forEach(delta -> issues.update(delta.getRepoId(), delta.getIssues(),
+                    id -> updatedModel.getModelById(delta.getRepoId()).flatMap(repo -> repo.getIssueById(id))));
+                updatePanel(panelToProcess, issues, false);
+                return null;
+            }, fxExecutor);
+    }
+
+    /**
+     * Produces a list of issues, filtered and sorted from all issues from the given multimodel, based on
+     * the given filter expression. Runs on the filter pool.
      *
      * @param panelExpression The filter expression belonging to the panel.
-     * @param panelMetaQualifiers The meta qualifiers in the panel's filter expression.
      * @param updatedModel The model to be used to display issue details such as assignee and labels.
      * @param allModelIssues The list of issues extracted from the model.
-     * @param isSortableByNonSelfUpdates Determines the behaviour of the sort key "nonSelfUpdate".
+     * @param comparator The order of the panel's issues.
+     * @param isCancelled Whether the computation has been superseded and may be abandoned.
      * @return The list of filtered and sorted issues for the panel.
+     * @throws CancellationException if the computation was abandoned
      */
-    private TransformationList<TurboIssue, TurboIssue> filterAndSortPanel(FilterExpression panelExpression,
-                                                                          List<Qualifier> panelMetaQualifiers,
-                                                                          IModel updatedModel,
-                                                                          ObservableList<TurboIssue> allModelIssues,
-                                                                          boolean isSortableByNonSelfUpdates) {
+    private SortedIssueList filterAndSortPanel(FilterExpression panelExpression,
+                                               IModel updatedModel,
+                                               ObservableList<TurboIssue> allModelIssues,
+                                               Comparator<TurboIssue> comparator,
+                                               BooleanSupplier isCancelled) {
 
-        Predicate<TurboIssue> predicate = issue -> Qualifier.process(updatedModel, panelExpression, issue);
-        Comparator<TurboIssue> comparator = determineComparator(panelMetaQualifiers, isSortableByNonSelfUpdates);
+        Predicate<TurboIssue> predicate = Qualifier.compileFilter(updatedModel, panelExpression);
 
-        return new SortedList<>(new FilteredList<>(allModelIssues, predicate), comparator);
+        return SortedIssueList.compute(filterPool, allModelIssues, predicate, comparator, isCancelled);
     }
 
     /**
@@ -240,7 +404,7 @@ public class GUIController {
      * @param isMetadataUpdate Determines whether comment bubbles will be highlighted based on non-self update times.
      */
     private static void updatePanel(FilterPanel panelToUpdate,
-                                    TransformationList<TurboIssue, TurboIssue> filteredAndSortedIssues,
+                                    SortedIssueList filteredAndSortedIssues,
                                     boolean isMetadataUpdate) {
         panelToUpdate.setIssueList(filteredAndSortedIssues);
         panelToUpdate.refreshItems(isMetadataUpdate);
@@ -255,10 +419,10 @@ public class GUIController {
      * @param filteredAndSortedIssues Issues to populate the HashMap.
      * @param issuesToUpdate The HashMap to be populated.
      */
-    private static void populateUpdateList(TransformationList<TurboIssue, TurboIssue> filteredAndSortedIssues,
+    private static void populateUpdateList(SortedIssueList filteredAndSortedIssues,
                                            HashMap<String, HashSet<Integer>> issuesToUpdate) {
 
-        for (TurboIssue issueToUpdate : filteredAndSortedIssues) {
+        for (TurboIssue issueToUpdate : filteredAndSortedIssues.getIssues()) {
             // Retrieve to check if the HashSet representing the issue's repo already exists.
             HashSet<Integer> issuesInRepo = issuesToUpdate.get(issueToUpdate.getRepoId());
             if (issuesInRepo != null) {
@@ -275,14 +439,26 @@ public class GUIController {
 
 
     /**
-     * Triggers metadata requests based on the given HashMap.
+     * Triggers metadata requests based on the given HashMap. The requests a panel made before are cancelled,
+     * as they are superseded by the new ones; issues wanted by both, or by another panel, are not downloaded
+     * twice.
      *
-     * @param toUpdate The HashMap containing issues for which to get metadata.
+     * @param toUpdate The HashMap containing issues for which to get metadata, by panel.
      */
-    private void dispatchMetadataRequests(HashMap<String, HashSet<Integer>> toUpdate) {
-        toUpdate.entrySet().forEach(repoSetEntry ->
-                        ui.logic.getIssueMetadata(repoSetEntry.getKey(), new ArrayList<>(repoSetEntry.getValue()))
-        );
+    private void dispatchMetadataRequests(HashMap<FilterPanel, HashMap<String, HashSet<Integer>>> toUpdate) {
+        toUpdate.forEach((panel, issuesToUpdate) -> {
+            List<CompletableFuture<Boolean>> requests = issuesToUpdate.entrySet().stream()
+                .map(repoSetEntry ->
+                    ui.logic.getIssueMetadata(repoSetEntry.getKey(), new ArrayList<>(repoSetEntry.getValue())))
+                .collect(Collectors.toList());
+
+            List<CompletableFuture<Boolean>> previous = pendingMetadataRequests.put(panel, requests);
+            if (previous != null) {
+                previous.forEach(request -> request.cancel(false));
+            }
+            Futures.sequence(requests)
+                .whenCompleteAsync((done, failure) -> pendingMetadataRequests.remove(panel, requests), fxExecutor);
+        });
     }
 
     /**
@@ -1,6 +1,7 @@
 package ui;
 
 import backend.Logic;
+import backend.RepoIO;
 import backend.UIManager;
 import browserview.BrowserComponent;
 import browserview.BrowserComponentStub;
@@ -193,7 +194,7 @@ public class UI extends Application implements EventDispatcher {
     private void initApplicationState() {
         // In the future, when more arguments are passed to logic,
         // we can pass them in the form of an array.
-        logic = new Logic(uiManager, prefs, isTestMode(), isTestJSONEnabled());
+        logic = new Logic(uiManager, prefs, isTestMode(), isTestJSONEnabled(), getStoreFormat());
         clearCacheIfNecessary();
         refreshTimer = new TickingTimer("Refresh Timer", REFRESH_PERIOD,
             status::updateTimeToRefresh, logic::refresh, TimeUnit.SECONDS);
@@ -251,6 +252,22 @@ public class UI extends Application implements EventDispatcher {
         return commandLineArgs.getOrDefault("testchromedriver", "false").equalsIgnoreCase("true");
     }
 
+    // When --store=binary is passed as an argument, repositories are stored in binary rather than JSON.
+    // With --store=journal, they are stored in binary, and updates are appended to a journal.
+    private RepoIO.StoreFormat getStoreFormat() {
+        String format = commandLineArgs.getOrDefault("store", "json");
+        if (format.equalsIgnoreCase("binary")) {
+            return RepoIO.StoreFormat.BINARY;
+        }
+        if (format.equalsIgnoreCase("journal")) {
+            return RepoIO.StoreFormat.BINARY_JOURNAL;
+        }
+        if (!format.equalsIgnoreCase("json")) {
+            logger.warn("Unknown store format " + format + ", storing repositories as JSON");
+        }
+        return RepoIO.StoreFormat.JSON;
+    }
+
     // Used for test mode to shutdown jvm on quit (not used for ci/tests because that will cause
     // tests to fail).
     private boolean isCloseOnQuit() {
@@ -7,7 +7,7 @@ import filter.ParseException;
 import filter.Parser;
 import filter.expression.FilterExpression;
 import filter.expression.Qualifier;
-import javafx.collections.transformation.TransformationList;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -34,7 +34,7 @@ import java.util.stream.Collectors;
  */
 public abstract class FilterPanel extends AbstractPanel {
 
-    private TransformationList<TurboIssue, TurboIssue> transformedIssueList = null;
+    private SortedIssueList issueList = null;
     protected FilterTextField filterTextField;
     private UI ui;
 
@@ -172,12 +172,19 @@ public abstract class FilterPanel extends AbstractPanel {
         return filterTextField.getText();
     }
 
-    public TransformationList<TurboIssue, TurboIssue> getIssueList() {
-        return transformedIssueList;
+    public ObservableList<TurboIssue> getIssueList() {
+        return issueList == null ? null : issueList.getIssues();
     }
 
-    public void setIssueList(TransformationList<TurboIssue, TurboIssue> transformedIssueList) {
-        this.transformedIssueList = transformedIssueList;
+    /**
+     * @return the panel's sorted issues, which may be updated in place, or null if it has not been populated
+     */
+    public SortedIssueList getSortedIssueList() {
+        return issueList;
+    }
+
+    public void setIssueList(SortedIssueList issueList) {
+        this.issueList = issueList;
     }
 
     @Override
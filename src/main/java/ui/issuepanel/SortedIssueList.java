@@ -0,0 +1,233 @@
+package ui.issuepanel;
+
+import backend.resource.ChangeSet;
+import backend.resource.TurboIssue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The materialized result of a panel's filter: the issues satisfying its predicate, kept in
+ * sorted order. It is built once from all issues, then patched as individual issues change,
+ * so that an update touching k issues takes O(k log n) comparisons rather than a full
+ * filter and sort.
+ *
+ * Issues with the same sort key are ordered by repository and id, so the order is the same
+ * however the list was arrived at. This also lets a large list be built in parallel, from
+ * chunks of the issues sorted separately and merged.
+ */
+public class SortedIssueList {
+
+    private Predicate<TurboIssue> predicate;
+    private final Comparator<TurboIssue> comparator;
+
+    private final ObservableList<TurboIssue> issues;
+    private final ObservableList<TurboIssue> issuesView;
+
+    // The issues in the list, by repository and id
+    private final Map<ImmutablePair<String, Integer>, TurboIssue> issuesByKey = new HashMap<>();
+
+    public SortedIssueList(Collection<TurboIssue> allIssues, Predicate<TurboIssue> predicate,
+                           Comparator<TurboIssue> comparator) {
+        this(predicate, withTieBreak(comparator), allIssues, false);
+    }
+
+    /**
+     * @param comparator The comparator with ties already broken.
+     * @param isFilteredAndSorted Whether the given issues are exactly those satisfying the predicate, in order.
+     */
+    private SortedIssueList(Predicate<TurboIssue> predicate, Comparator<TurboIssue> comparator,
+                            Collection<TurboIssue> allIssues, boolean isFilteredAndSorted) {
+        this.predicate = predicate;
+        this.comparator = comparator;
+
+        List<TurboIssue> result = isFilteredAndSorted
+            ? new ArrayList<>(allIssues)
+            : filterAndSort(allIssues, predicate, comparator);
+        for (TurboIssue issue : result) {
+            issuesByKey.put(key(issue), issue);
+        }
+
+        this.issues = FXCollections.observableArrayList(result);
+        this.issuesView = FXCollections.unmodifiableObservableList(issues);
+    }
+
+    /**
+     * Builds the list on the given pool. The issues are split into chunks which are filtered and sorted
+     * in parallel, then the sorted chunks are merged. The result is the same as that of the constructor.
+     *
+     * @param isCancelled Checked before each chunk is processed; once it holds, the computation is abandoned.
+     * @throws CancellationException if the computation was abandoned
+     */
+    public static SortedIssueList compute(ForkJoinPool pool, List<TurboIssue> allIssues,
+                                          Predicate<TurboIssue> predicate, Comparator<TurboIssue> comparator,
+                                          BooleanSupplier isCancelled) {
+        Comparator<TurboIssue> tieBroken = withTieBreak(comparator);
+        List<TurboIssue> result = pool.invoke(
+            new FilterAndSortTask(allIssues, 0, allIssues.size(), predicate, tieBroken, isCancelled));
+        return new SortedIssueList(predicate, tieBroken, result, true);
+    }
+
+    private static Comparator<TurboIssue> withTieBreak(Comparator<TurboIssue> comparator) {
+        return comparator
+            .thenComparing(TurboIssue::getRepoId)
+            .thenComparing(TurboIssue::getId);
+    }
+
+    private static List<TurboIssue> filterAndSort(Collection<TurboIssue> issues, Predicate<TurboIssue> predicate,
+                                                  Comparator<TurboIssue> comparator) {
+        List<TurboIssue> result = new ArrayList<>();
+        for (TurboIssue issue : issues) {
+            if (predicate.test(issue)) {
+                result.add(issue);
+            }
+        }
+        result.sort(comparator);
+        return result;
+    }
+
+    private static class FilterAndSortTask extends RecursiveTask<List<TurboIssue>> {
+        private static final long serialVersionUID = 6172394051820734598L;
+        private static final int CHUNK_SIZE = 2048;
+
+        private final List<TurboIssue> issues;
+        private final int from;
+        private final int to;
+        private final Predicate<TurboIssue> predicate;
+        private final Comparator<TurboIssue> comparator;
+        private final BooleanSupplier isCancelled;
+
+        private FilterAndSortTask(List<TurboIssue> issues, int from, int to, Predicate<TurboIssue> predicate,
+                                  Comparator<TurboIssue> comparator, BooleanSupplier isCancelled) {
+            this.issues = issues;
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+            this.comparator = comparator;
+            this.isCancelled = isCancelled;
+        }
+
+        @Override
+        protected List<TurboIssue> compute() {
+            if (to - from <= CHUNK_SIZE) {
+                if (isCancelled.getAsBoolean()) {
+                    throw new CancellationException("Superseded");
+                }
+                return filterAndSort(issues.subList(from, to), predicate, comparator);
+            }
+            int middle = (from + to) >>> 1;
+            FilterAndSortTask left = new FilterAndSortTask(issues, from, middle, predicate, comparator, isCancelled);
+            left.fork();
+            List<TurboIssue> right =
+                new FilterAndSortTask(issues, middle, to, predicate, comparator, isCancelled).compute();
+            return merge(left.join(), right);
+        }
+
+        private List<TurboIssue> merge(List<TurboIssue> left, List<TurboIssue> right) {
+            List<TurboIssue> result = new ArrayList<>(left.size() + right.size());
+            int i = 0;
+            int j = 0;
+            while (i < left.size() && j < right.size()) {
+                if (comparator.compare(left.get(i), right.get(j)) <= 0) {
+                    result.add(left.get(i++));
+                } else {
+                    result.add(right.get(j++));
+                }
+            }
+            result.addAll(left.subList(i, left.size()));
+            result.addAll(right.subList(j, right.size()));
+            return result;
+        }
+    }
+
+    private static ImmutablePair<String, Integer> key(TurboIssue issue) {
+        return new ImmutablePair<>(issue.getRepoId(), issue.getId());
+    }
+
+    /**
+     * @return a read-only view of the sorted issues, which reflects later updates
+     */
+    public ObservableList<TurboIssue> getIssues() {
+        return issuesView;
+    }
+
+    /**
+     * Replaces the predicate which issues are tested against when they are inserted. The issues
+     * already in the list are kept, so the predicate should be equivalent to the previous one,
+     * e.g. the same filter compiled against a newer model.
+     */
+    public void setPredicate(Predicate<TurboIssue> predicate) {
+        this.predicate = predicate;
+    }
+
+    /**
+     * Applies the changes made to the issues of a repository. Removed and changed issues are taken out,
+     * then added and changed issues are inserted in order if they satisfy the predicate.
+     *
+     * @param repoId The repository whose issues changed.
+     * @param changes The ids of the issues which changed.
+     * @param updatedIssue Looks up the current version of an issue by id.
+     */
+    public void update(String repoId, ChangeSet<Integer> changes,
+                       Function<Integer, Optional<TurboIssue>> updatedIssue) {
+        for (Set<Integer> ids : Arrays.asList(changes.getRemoved(), changes.getChanged())) {
+            ids.forEach(id -> remove(repoId, id));
+        }
+        for (Set<Integer> ids : Arrays.asList(changes.getAdded(), changes.getChanged())) {
+            ids.forEach(id -> updatedIssue.apply(id).filter(predicate).ifPresent(this::insert));
+        }
+    }
+
+    private void insert(TurboIssue issue) {
+        TurboIssue previous = issuesByKey.put(key(issue), issue);
+        if (previous != null) {
+            removeAt(indexOf(previous));
+        }
+        int index = Collections.binarySearch(issues, issue, comparator);
+        issues.add(index < 0 ? -(index + 1) : index, issue);
+    }
+
+    private void remove(String repoId, int id) {
+        TurboIssue previous = issuesByKey.remove(new ImmutablePair<>(repoId, id));
+        if (previous != null) {
+            removeAt(indexOf(previous));
+        }
+    }
+
+    private void removeAt(int index) {
+        assert index >= 0 : "Issue missing from list";
+        if (index >= 0) {
+            issues.remove(index);
+        }
+    }
+
+    private int indexOf(TurboIssue issue) {
+        int index = Collections.binarySearch(issues, issue, comparator);
+        if (index >= 0 && issues.get(index) == issue) {
+            return index;
+        }
+        // The issue's sort key has changed since it was inserted, so fall back to a linear search
+        for (int i = 0; i < issues.size(); i++) {
+            if (issues.get(i) == issue) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return issues.size();
+    }
+
+    public boolean isEmpty() {
+        return issues.isEmpty();
+    }
+}
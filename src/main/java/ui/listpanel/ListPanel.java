@@ -3,6 +3,8 @@ package ui.listpanel;
 import backend.interfaces.IModel;
 import backend.resource.TurboIssue;
 import filter.expression.Qualifier;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Priority;
 import ui.UI;
@@ -16,8 +18,10 @@ import util.events.ShowLabelPickerEvent;
 import util.events.testevents.UIComponentFocusEvent;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
 public class ListPanel extends FilterPanel {
@@ -29,6 +33,18 @@ public class ListPanel extends FilterPanel {
     private IssueListView listView;
     private HashMap<Integer, Integer> issueCommentCounts = new HashMap<>();
     private HashMap<Integer, Integer> issueNonSelfCommentCounts = new HashMap<>();
+    private final HashSet<Integer> issuesWithNewComments = new HashSet<>();
+
+    // The issues added to the shown list since its comment counts were last updated.
+    // The list is patched in place as issues change, so only these need to be looked at.
+    private final List<TurboIssue> issuesToCount = new ArrayList<>();
+    private final ListChangeListener<TurboIssue> onIssuesChanged = change -> {
+        while (change.next()) {
+            if (change.wasAdded()) {
+                issuesToCount.addAll(change.getAddedSubList());
+            }
+        }
+    };
 
     public ListPanel(UI ui, IModel model, PanelControl parentPanelControl, int panelIndex) {
         super(ui, model, parentPanelControl, panelIndex);
@@ -59,17 +75,17 @@ public class ListPanel extends FilterPanel {
     }
 
     /**
-     * Updates {@link #issueCommentCounts} with the latest counts.
-     * Returns a list of issues which have new comments.
-     * @return
+     * Updates {@link #issueCommentCounts} with the latest counts of the given issues,
+     * and {@link #issuesWithNewComments} with those of them which have new comments.
      */
-    private HashSet<Integer> updateIssueCommentCounts(boolean hasMetadata) {
-        HashSet<Integer> result = new HashSet<>();
-        for (TurboIssue issue : getIssueList()) {
+    private void updateIssueCommentCounts(List<TurboIssue> issues, boolean hasMetadata) {
+        for (TurboIssue issue : issues) {
             if (issueCommentCounts.containsKey(issue.getId())) {
                 // We know about this issue; check if it's been updated
                 if (issueHasNewComments(issue, hasMetadata)) {
-                    result.add(issue.getId());
+                    issuesWithNewComments.add(issue.getId());
+                } else {
+                    issuesWithNewComments.remove(issue.getId());
                 }
             } else {
                 // We don't know about this issue, just put the current comment count.
@@ -77,28 +93,46 @@ public class ListPanel extends FilterPanel {
                 issueCommentCounts.put(issue.getId(), issue.getCommentCount());
             }
         }
-        return result;
     }
 
     /**
      * Refreshes the list of issue cards shown to the user.
      *
+     * If the panel's issue list is the one already shown, it has been patched in place and the list view
+     * has followed its changes, so only the issues added to it since are looked at. Otherwise the new list
+     * is shown and all of its issues are looked at.
+     *
      * @param hasMetadata Indicates the comment count hashmap to be used.
      */
     @Override
     public void refreshItems(boolean hasMetadata) {
-        final HashSet<Integer> issuesWithNewComments = updateIssueCommentCounts(hasMetadata);
+        ObservableList<TurboIssue> issues = getIssueList();
+        ObservableList<TurboIssue> shownIssues = listView.getItems();
+        boolean isNewList = issues != shownIssues;
 
-        // Set the cell factory every time - this forces the list view to update
+        if (isNewList) {
+            if (shownIssues != null) {
+                shownIssues.removeListener(onIssuesChanged);
+            }
+            issues.addListener(onIssuesChanged);
+            issuesToCount.clear();
+            issuesWithNewComments.clear();
+            updateIssueCommentCounts(issues, hasMetadata);
+        } else {
+            updateIssueCommentCounts(issuesToCount, hasMetadata);
+            issuesToCount.clear();
+        }
+
+        // Set the cell factory every time - this forces the visible cells to be recreated,
+        // so that they show the latest comment counts
         listView.setCellFactory(list ->
                 new ListPanelCell(model, ListPanel.this, panelIndex, issuesWithNewComments));
         listView.saveSelection();
 
-        // Supposedly this also causes the list view to update - not sure
-        // if it actually does on platforms other than Linux...
-        listView.setItems(null);
-        listView.setItems(getIssueList());
-        issueCount = getIssueList().size();
+        if (isNewList) {
+            listView.setItems(issues);
+        }
+        issueCount = issues.size();
 
         listView.restoreSelection();
         this.setId(model.getDefaultRepo() + "_col" + panelIndex);
@@ -119,6 +153,7 @@ public class ListPanel extends FilterPanel {
             // (if it was there before)
             issueCommentCounts.put(issue.getId(), issue.getCommentCount());
             issueNonSelfCommentCounts.put(issue.getId(), issue.getMetadata().getNonSelfCommentCount());
+            issuesWithNewComments.remove(issue.getId());
             // We assume we already have metadata, so we pass true to avoid refreshItems from trying to get
             // metadata after clicking.
             refreshItems(true);
@@ -0,0 +1,150 @@
+package util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of named threads, which records how long tasks wait to be run and take to complete.
+ * Tasks submitted while all threads are busy wait in a queue.
+ */
+public class InstrumentedExecutor implements Executor {
+
+    // The kind tasks submitted without one are recorded under
+    public static final String OTHER_TASKS = "other";
+
+    // How long idle threads are kept, in seconds
+    private static final long KEEP_ALIVE_TIME = 60;
+
+    /**
+     * The times taken by the tasks of a kind, in milliseconds.
+     */
+    public static class TaskStatistics {
+        private long count = 0;
+        private long totalQueueTime = 0;
+        private long totalLatency = 0;
+        private long maxLatency = 0;
+
+        private TaskStatistics() {
+        }
+
+        private TaskStatistics(TaskStatistics other) {
+            count = other.count;
+            totalQueueTime = other.totalQueueTime;
+            totalLatency = other.totalLatency;
+            maxLatency = other.maxLatency;
+        }
+
+        private void record(long queueTime, long latency) {
+            count++;
+            totalQueueTime += queueTime;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the mean time from tasks being submitted to being run
+         */
+        public double getMeanQueueTime() {
+            return count == 0 ? 0 : (double) totalQueueTime / count;
+        }
+
+        /**
+         * @return the mean time from tasks being submitted to being completed
+         */
+        public double getMeanLatency() {
+            return count == 0 ? 0 : (double) totalLatency / count;
+        }
+
+        public long getMaxLatency() {
+            return maxLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d completed, %.0f ms queued, %.0f ms mean latency, %d ms max latency",
+                count, getMeanQueueTime(), getMeanLatency(), maxLatency);
+        }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final Map<String, TaskStatistics> statistics = new HashMap<>();
+
+    /**
+     * @param name The name of the threads, which are numbered after it.
+     * @param threads The maximum number of threads.
+     */
+    public InstrumentedExecutor(String name, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, name + " " + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        execute(OTHER_TASKS, task, null);
+    }
+
+    /**
+     * Runs a task, recording how long it took under the given kind.
+     *
+     * @param completion Completes once the task has, if it goes on after it returns, or null if it does not.
+     */
+    public void execute(String kind, Runnable task, CompletableFuture<?> completion) {
+        long submitted = System.currentTimeMillis();
+        pool.execute(() -> {
+            long queueTime = System.currentTimeMillis() - submitted;
+            try {
+                task.run();
+            } finally {
+                if (completion == null) {
+                    record(kind, queueTime, System.currentTimeMillis() - submitted);
+                } else {
+                    completion.whenComplete((result, failure) ->
+                        record(kind, queueTime, System.currentTimeMillis() - submitted));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of threads running tasks
+     */
+    public int getActiveThreads() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread
+     */
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * @return the times taken by each kind of task so far
+     */
+    public synchronized Map<String, TaskStatistics> getStatistics() {
+        Map<String, TaskStatistics> result = new HashMap<>();
+        statistics.forEach((kind, stats) -> result.put(kind, new TaskStatistics(stats)));
+        return result;
+    }
+
+    private synchronized void record(String kind, long queueTime, long latency) {
+        statistics.computeIfAbsent(kind, k -> new TaskStatistics()).record(queueTime, latency);
+    }
+}
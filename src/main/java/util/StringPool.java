@@ -0,0 +1,34 @@
+package util;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Optional;
+
+/**
+ * Shares the strings which recur across many issues, such as repository ids, the logins of users
+ * and the names of labels, so that each is held once however many issues of however many
+ * repositories refer to it. Strings are held weakly, so they are dropped once no issue refers to them.
+ */
+public final class StringPool {
+
+    private static final Interner<String> strings = Interners.newWeakInterner();
+    private static final Interner<Optional<String>> optionalStrings = Interners.newWeakInterner();
+
+    private StringPool() {
+    }
+
+    /**
+     * @return the pooled string equal to the given one, or null if it is null
+     */
+    public static String intern(String string) {
+        return string == null ? null : strings.intern(string);
+    }
+
+    /**
+     * @return the pooled optional holding the pooled string equal to the given one, if any
+     */
+    public static Optional<String> intern(Optional<String> optional) {
+        return optional.isPresent() ? optionalStrings.intern(Optional.of(intern(optional.get()))) : Optional.empty();
+    }
+}
@@ -7,7 +7,9 @@ import org.eclipse.egit.github.core.RepositoryId;
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -45,13 +47,45 @@ public class Utility {
     }
 
     public static void writeFile(String fileName, String content) {
-        PrintWriter writer;
+        writeFile(fileName, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given parts one after another to a file, as writeFile(String, FileContent) does.
+     */
+    public static void writeFile(String fileName, byte[]... parts) {
+        writeFile(fileName, output -> {
+            for (byte[] part : parts) {
+                output.write(part);
+            }
+        });
+    }
+
+    /**
+     * Writes content to a file as it is produced.
+     */
+    @FunctionalInterface
+    public interface FileContent {
+        void writeTo(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Writes content to a temporary file, which then replaces the file, so that the file is either
+     * left as it was or holds all of the content, even if the application is killed.
+     */
+    public static void writeFile(String fileName, FileContent content) {
+        File file = new File(fileName);
+        File temporary = new File(fileName + ".tmp");
         try {
-            writer = new PrintWriter(fileName, "UTF-8");
-            writer.println(content);
-            writer.close();
-        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            try (FileOutputStream output = new FileOutputStream(temporary)) {
+                content.writeTo(output);
+                output.getFD().sync();
+            }
+            Files.move(temporary.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
             logger.error(e.getLocalizedMessage(), e);
+            temporary.delete();
         }
     }
 
@@ -59,6 +93,31 @@ public class Utility {
         return s.replaceAll("^\"|\"$", "");
     }
 
+    /**
+     * Determines if text contains a substring, ignoring case, without allocating.
+     * @param lowered the substring to look for, in lower case
+     */
+    public static boolean containsIgnoreCase(String text, String lowered) {
+        int length = lowered.length();
+        if (length == 0) return true;
+
+        // ASCII characters which cannot begin a match are skipped without a full comparison
+        char first = lowered.charAt(0);
+        boolean isFirstAscii = first < 128;
+        char firstLower = Character.toLowerCase(first);
+
+        for (int i = 0; i + length <= text.length(); i++) {
+            char c = text.charAt(i);
+            if (isFirstAscii && c < 128 && Character.toLowerCase(c) != firstLower) {
+                continue;
+            }
+            if (text.regionMatches(true, i, lowered, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static int safeLongToInt(long l) {
         if (l < Integer.MIN_VALUE || l > Integer.MAX_VALUE) {
             throw new IllegalArgumentException
@@ -1,14 +1,33 @@
 package util.events;
 
 import backend.interfaces.IModel;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
 
+import java.util.List;
+import java.util.Optional;
+
 public class ModelUpdatedEvent extends Event {
     public final IModel model;
     public final boolean hasMetadata;
 
+    // The changes made to each updated repository, if the event is the result of a refresh, or of
+    // metadata arriving for some issues. Empty if any part of the model may have changed.
+    public final Optional<List<ModelDelta>> changes;
+
     public ModelUpdatedEvent(MultiModel models, boolean hasMetadata) {
         this.model = models;
         this.hasMetadata = hasMetadata;
+        this.changes = Optional.empty();
+    }
+
+    public ModelUpdatedEvent(MultiModel models, List<ModelDelta> changes) {
+        this(models, changes, false);
+    }
+
+    public ModelUpdatedEvent(MultiModel models, List<ModelDelta> changes, boolean hasMetadata) {
+        this.model = models;
+        this.hasMetadata = hasMetadata;
+        this.changes = Optional.of(changes);
     }
 }
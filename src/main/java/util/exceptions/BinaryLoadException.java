@@ -0,0 +1,7 @@
+package util.exceptions;
+
+public class BinaryLoadException extends RepoStoreException {
+
+    private static final long serialVersionUID = 4710270837516946129L;
+
+}
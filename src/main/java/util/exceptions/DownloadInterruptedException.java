@@ -0,0 +1,10 @@
+package util.exceptions;
+
+public class DownloadInterruptedException extends Exception {
+
+    private static final long serialVersionUID = 3527846182619364720L;
+
+    public DownloadInterruptedException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,7 @@ import ui.UI;
 import ui.components.KeyboardShortcuts;
 import ui.issuepanel.PanelControl;
 import util.events.ModelUpdatedEventHandler;
+import util.events.testevents.UpdateDummyRepoEvent;
 
 import static org.junit.Assert.assertEquals;
 
@@ -62,6 +63,9 @@ public class MenuControlTest extends UITest {
         click("OK");
         assertEquals(0, panelControl.getNumberOfSavedBoards());
 
+        // Refreshing only updates the UI if the repository has changed
+        UI.events.triggerEvent(new UpdateDummyRepoEvent(
+            UpdateDummyRepoEvent.UpdateType.NEW_ISSUE, "dummy/dummy"));
         click("View");
         click("Refresh");
         push(KeyboardShortcuts.REFRESH);
@@ -41,9 +41,10 @@ public class UITest extends GuiTest {
     public static void clearTestFolder() {
         try {
             if (Files.exists(Paths.get(RepoStore.TEST_DIRECTORY))) {
-                Files.walk(Paths.get(RepoStore.TEST_DIRECTORY), 1)
+                Files.walk(Paths.get(RepoStore.TEST_DIRECTORY))
                         .filter(Files::isRegularFile)
-                        .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                        .filter(p -> getFileExtension(String.valueOf(p.getFileName()))
+                                .matches("(?i)json|bin|journal|tmp|prev"))
                         .forEach(p -> new File(p.toAbsolutePath().toString()).delete());
             }
         } catch (IOException e) {
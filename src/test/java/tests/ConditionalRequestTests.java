@@ -0,0 +1,149 @@
+package tests;
+
+import backend.github.GitHubRepo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import github.TurboIssueEvent;
+import org.eclipse.egit.github.core.Comment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Gets the metadata of an issue from a stub server which answers requests conditional on the
+ * current version of a resource with a 304.
+ */
+public class ConditionalRequestTests {
+
+    private static final String REPO = "owner/repo";
+
+    private static final String EVENT = "[{\"event\":\"closed\",\"actor\":{\"login\":\"user\"},"
+        + "\"created_at\":\"2015-01-01T00:00:00Z\"}]";
+    private static final String COMMENT = "[{\"id\":%d,\"body\":\"Comment %d (version %d)\","
+        + "\"user\":{\"login\":\"user\"},\"created_at\":\"2015-01-01T00:00:00Z\","
+        + "\"updated_at\":\"2015-01-01T00:00:00Z\"}]";
+
+    private HttpServer server;
+    private GitHubRepo repo;
+    private volatile int version = 1;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final Map<String, String> validators = new ConcurrentHashMap<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::respond);
+        server.start();
+        GitHubClientExtended client = new GitHubClientExtended("localhost", server.getAddress().getPort(), "http");
+        repo = new GitHubRepo(client, 1);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Serves one page of events, or two pages of one comment each, all tagged with the current version.
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        Matcher matcher = Pattern.compile("(?:^|&)page=(\\d+)").matcher(query == null ? "" : query);
+        int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+
+        String eTag = "\"" + path.hashCode() + "-" + page + "-" + version + "\"";
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            validators.put(path + page, ifNoneMatch);
+        }
+        exchange.getResponseHeaders().add("ETag", eTag);
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", "5000");
+        if (eTag.equals(ifNoneMatch)) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        fullResponses.incrementAndGet();
+        byte[] body;
+        if (path.endsWith("/events")) {
+            body = EVENT.getBytes(StandardCharsets.UTF_8);
+        } else {
+            body = String.format(COMMENT, page, page, version).getBytes(StandardCharsets.UTF_8);
+            if (page == 1) {
+                String uri = "http://localhost:" + server.getAddress().getPort() + path + "?page=2";
+                exchange.getResponseHeaders().add("Link",
+                    String.format("<%s>; rel=\"next\", <%s>; rel=\"last\"", uri, uri));
+            }
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @Test
+    public void revalidationTest() {
+        List<TurboIssueEvent> events = repo.getEvents(REPO, 1);
+        List<Comment> comments = repo.getComments(REPO, 1);
+        assertEquals(1, events.size());
+        assertEquals(2, comments.size());
+        assertEquals(3, fullResponses.get());
+        assertTrue(validators.isEmpty());
+
+        // Unchanged resources are served from the response cache, including the pages after the first
+        assertEquals(1, repo.getEvents(REPO, 1).size());
+        List<Comment> revalidated = repo.getComments(REPO, 1);
+        assertEquals(3, fullResponses.get());
+        assertEquals(3, notModifiedResponses.get());
+        assertEquals(3, validators.size());
+        assertEquals(2, revalidated.size());
+        assertEquals("Comment 2 (version 1)", revalidated.get(1).getBody());
+    }
+
+    @Test
+    public void changedTest() {
+        repo.getComments(REPO, 1);
+        version = 2;
+
+        // Changed resources are downloaded again, and replace those in the response cache
+        List<Comment> comments = repo.getComments(REPO, 1);
+        assertEquals("Comment 1 (version 2)", comments.get(0).getBody());
+        assertEquals(4, fullResponses.get());
+        assertEquals(2, repo.getComments(REPO, 1).size());
+        assertEquals(4, fullResponses.get());
+        assertEquals(2, notModifiedResponses.get());
+    }
+
+    @Test
+    public void explicitETagTest() {
+        String eTag = repo.getUpdatedEvents(REPO, 1, null).get().right;
+        assertNotNull(eTag);
+
+        // A request conditional on a given ETag is not served from the response cache
+        assertFalse(repo.getUpdatedEvents(REPO, 1, eTag).isPresent());
+        version = 2;
+        assertTrue(repo.getUpdatedEvents(REPO, 1, eTag).isPresent());
+        assertEquals(2, fullResponses.get());
+    }
+}
@@ -11,6 +11,7 @@ import prefs.Preferences;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
@@ -626,4 +627,54 @@ public class FilterEvalTests {
             .map(TurboIssue::getId)
             .collect(Collectors.toList()));
     }
+
+    @Test
+    public void indexedFilters() {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= 24; i++) {
+            TurboIssue issue = new TurboIssue(REPO, i, "Issue " + i, "user" + i % 3, null, i % 4 == 0);
+            issue.setOpen(i % 3 != 0);
+            List<String> labels = new ArrayList<>();
+            if (i % 2 == 0) labels.add("type.bug");
+            if (i % 5 == 0) labels.add("bug");
+            if (i % 3 == 1) labels.add("priority.high");
+            if (i % 7 == 0) labels.add("unknown");
+            // Labels outside a group may come before or after those in one
+            if (i % 4 == 0) Collections.reverse(labels);
+            issue.setLabels(labels);
+            if (i % 2 == 1) issue.setAssignee("user" + i % 4);
+            if (i % 3 == 2) issue.setMilestone(i % 2 + 1);
+            if (i % 2 == 0) issue.setDescription("Steps to reproduce: open file " + i + ".txt and save it");
+            issues.add(issue);
+        }
+        IModel model = TestUtils.singletonModel(new Model(REPO, issues,
+            Arrays.asList(new TurboLabel(REPO, "type.bug"), new TurboLabel(REPO, "bug"),
+                new TurboLabel(REPO, "priority.high")),
+            Arrays.asList(new TurboMilestone(REPO, 1, "v1.0"), new TurboMilestone(REPO, 2, "v2.0")),
+            Arrays.asList(new TurboUser(REPO, "user0", "Alice"), new TurboUser(REPO, "user1", "Bob"),
+                new TurboUser(REPO, "user3"))));
+
+        List<String> filters = Arrays.asList(
+            "label:type.", "label:type.bug", "label:bug", "label:prio", "label:unknown",
+            "assignee:user", "assignee:alice", "author:user1", "involves:user1 OR involves:bob",
+            "milestone:v1", "milestone:2", "is:open", "is:closed", "is:pr", "is:issue", "is:merged",
+            "is:unmerged", "state:closed", "type:pr", "has:label", "no:label", "has:milestone",
+            "no:assignee", "id:4", "id:<10", "repo:" + REPO.toUpperCase(), "repo:other/repo",
+            "label:type.bug is:open milestone:v", "label:bug -label:priority", "-(is:open OR is:pr)",
+            "label:priority title:1", "-title:2 OR assignee:bob", "is:read OR label:bug",
+            "title:SUE 1", "title:2", "body:file 1", "desc:txt and", "keyword:save",
+            "in:title keyword:issue", "in:body keyword:1.t", "keyword:e 2 -body:reproduce", "");
+
+        for (String filter : filters) {
+            Predicate<TurboIssue> predicate = Qualifier.compileFilter(model, Parser.parse(filter));
+            for (TurboIssue issue : issues) {
+                // A copy of an issue is not the one indexed, so it is tested individually
+                assertEquals(filter + " on issue " + issue.getId(),
+                    predicate.test(new TurboIssue(issue)), predicate.test(issue));
+            }
+        }
+        // Issue 20 has a label outside any group before type.bug
+        assertEquals(11, issues.stream().filter(Qualifier.compileFilter(model, Parser.parse("label:type.")))
+            .count());
+    }
 }
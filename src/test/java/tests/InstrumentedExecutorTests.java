@@ -0,0 +1,110 @@
+package tests;
+
+import backend.interfaces.RepoTask;
+import backend.stub.DummySource;
+import org.junit.Test;
+import util.InstrumentedExecutor;
+import util.InstrumentedExecutor.TaskStatistics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedExecutorTests {
+
+    private static void awaitActiveThreads(InstrumentedExecutor executor, int threads) throws InterruptedException {
+        for (int i = 0; i < 100 && executor.getActiveThreads() != threads; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(threads, executor.getActiveThreads());
+    }
+
+    @Test
+    public void boundedTest() throws InterruptedException {
+        InstrumentedExecutor executor = new InstrumentedExecutor("Test", 2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute("blocking", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    blocking.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            }, null);
+        }
+
+        // Tasks beyond the number of threads wait in the queue
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        awaitActiveThreads(executor, 2);
+        assertEquals(3, executor.getQueueDepth());
+
+        blocking.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        awaitActiveThreads(executor, 0);
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void statisticsTest() throws InterruptedException, ExecutionException, TimeoutException {
+        InstrumentedExecutor executor = new InstrumentedExecutor("Test", 1);
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+        executor.execute("composed", () -> ran.complete(true), completion);
+        executor.execute(() -> { });
+        assertTrue(ran.get(1, TimeUnit.SECONDS));
+
+        // Tasks which go on after they return are recorded once their completion does
+        Thread.sleep(200);
+        assertFalse(executor.getStatistics().containsKey("composed"));
+        completion.complete(true);
+
+        TaskStatistics composed = executor.getStatistics().get("composed");
+        assertEquals(1, composed.getCount());
+        assertTrue(composed.getMeanLatency() >= 200);
+        assertEquals(composed.getMaxLatency(), composed.getMeanLatency(), 0.001);
+
+        for (int i = 0; i < 100 && !executor.getStatistics().containsKey(InstrumentedExecutor.OTHER_TASKS); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, executor.getStatistics().get(InstrumentedExecutor.OTHER_TASKS).getCount());
+    }
+
+    @Test
+    public void failedTaskTest() throws InterruptedException, TimeoutException {
+        DummySource source = new DummySource();
+        RepoTask<Boolean> task = source.addTask(new RepoTask<Boolean>(source, null) {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Task failed");
+            }
+        });
+
+        // The response of a task which throws completes with its failure, rather than never
+        try {
+            task.response.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        for (int i = 0; i < 100 && source.getExecutor().getStatistics().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, source.getExecutor().getStatistics().values().stream()
+            .mapToLong(TaskStatistics::getCount).sum());
+    }
+}
@@ -0,0 +1,188 @@
+package tests;
+
+import backend.CachedMetadata;
+import backend.IssueMetadata;
+import backend.github.DownloadMetadataTask;
+import backend.github.MetadataFetcher;
+import backend.stub.DummyRepo;
+import backend.stub.DummySource;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class MetadataDownloadTests {
+
+    private static final String REPO = "dummy/dummy";
+    private static final int LATENCY = 100;
+
+    /**
+     * Answers requests for the metadata of any issue after a delay, counting them.
+     */
+    private static class SlowRepo extends DummyRepo {
+        private final AtomicInteger eventRequests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private void respond() {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public List<TurboIssueEvent> getEvents(String repoId, int issueId) {
+            eventRequests.incrementAndGet();
+            respond();
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Comment> getComments(String repoId, int issueId) {
+            respond();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Answers requests for metadata which give an ETag as if it had not changed, recording the ETags given.
+     */
+    private static class RevalidatingRepo extends DummyRepo {
+        private final Map<Integer, Optional<String>> eventsETags = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId,
+                                                                                      String eTag) {
+            eventsETags.put(issueId, Optional.ofNullable(eTag));
+            return eTag == null
+                ? Optional.of(new ImmutablePair<>(new ArrayList<>(), "\"events\""))
+                : Optional.empty();
+        }
+
+        @Override
+        public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                                String eTag) {
+            return eTag == null
+                ? Optional.of(new ImmutablePair<>(new ArrayList<>(), "\"comments\""))
+                : Optional.empty();
+        }
+    }
+
+    private final DummySource source = new DummySource();
+    private final SlowRepo repo = new SlowRepo();
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2015, 1, 1, 0, 0);
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private static Map<Integer, LocalDateTime> issues(int from, int to) {
+        return range(from, to).stream().collect(Collectors.toMap(id -> id, id -> UPDATED_AT));
+    }
+
+    private DownloadMetadataTask download(Map<Integer, LocalDateTime> issues, MetadataFetcher fetcher,
+                                          Consumer<Map<Integer, CachedMetadata>> consumer) {
+        return new DownloadMetadataTask(source, repo, REPO, issues, new HashMap<>(), fetcher, consumer);
+    }
+
+    @Test
+    public void concurrentDownloadTest() throws ExecutionException, InterruptedException {
+        List<Map<Integer, CachedMetadata>> batches = Collections.synchronizedList(new ArrayList<>());
+        DownloadMetadataTask task = download(issues(1, 20), new MetadataFetcher(4), batches::add);
+        source.addTask(task);
+
+        assertEquals(new HashSet<>(range(1, 20)), task.response.get().keySet());
+        assertEquals(20, repo.eventRequests.get());
+        assertTrue(repo.maxInFlight.get() > 1);
+        assertTrue(repo.maxInFlight.get() <= 4);
+
+        // Metadata is handed over as it arrives, each issue once
+        assertTrue(batches.size() > 1);
+        Set<Integer> handedOver = new HashSet<>();
+        batches.forEach(batch -> batch.keySet().forEach(id -> assertTrue(handedOver.add(id))));
+        assertEquals(new HashSet<>(range(1, 20)), handedOver);
+    }
+
+    @Test
+    public void deduplicationTest() throws ExecutionException, InterruptedException {
+        MetadataFetcher fetcher = new MetadataFetcher(2);
+        DownloadMetadataTask first = download(issues(1, 10), fetcher, m -> {});
+        DownloadMetadataTask second = download(issues(6, 15), fetcher, m -> {});
+        source.addTask(first);
+        source.addTask(second);
+
+        assertEquals(new HashSet<>(range(1, 10)), first.response.get().keySet());
+        assertEquals(new HashSet<>(range(6, 15)), second.response.get().keySet());
+        assertEquals(15, repo.eventRequests.get());
+    }
+
+    @Test
+    public void revalidationTest() throws ExecutionException, InterruptedException {
+        RevalidatingRepo revalidatingRepo = new RevalidatingRepo();
+        IssueMetadata empty = new IssueMetadata(new ArrayList<>(), new ArrayList<>());
+        Map<Integer, CachedMetadata> stored = new HashMap<>();
+        stored.put(1, new CachedMetadata(empty, "\"old events\"", "\"old comments\"", UPDATED_AT));
+        stored.put(2, new CachedMetadata(empty, "\"old events\"", "\"old comments\"", UPDATED_AT.minusDays(1)));
+
+        DownloadMetadataTask task = new DownloadMetadataTask(source, revalidatingRepo, REPO, issues(1, 3), stored,
+            new MetadataFetcher(2), m -> {});
+        source.addTask(task);
+        Map<Integer, CachedMetadata> result = task.response.get();
+
+        // Metadata of an issue not updated since is only revalidated, and kept as it has not changed
+        assertEquals(Optional.of("\"old events\""), revalidatingRepo.eventsETags.get(1));
+        assertSame(stored.get(1), result.get(1));
+
+        // Metadata of an issue updated since, or not stored, is downloaded again
+        assertEquals(Optional.empty(), revalidatingRepo.eventsETags.get(2));
+        assertEquals(Optional.empty(), revalidatingRepo.eventsETags.get(3));
+        assertEquals(Optional.of("\"events\""), result.get(2).getEventsETag());
+        assertEquals(Optional.of("\"comments\""), result.get(3).getCommentsETag());
+        assertTrue(result.get(2).isCurrent(UPDATED_AT));
+    }
+
+    @Test
+    public void cancellationTest() throws ExecutionException, InterruptedException {
+        MetadataFetcher fetcher = new MetadataFetcher(1);
+        DownloadMetadataTask cancelled = download(issues(1, 20), fetcher, m -> {});
+        DownloadMetadataTask other = download(issues(1, 3), fetcher, m -> {});
+        source.addTask(cancelled);
+        source.addTask(other);
+
+        Thread.sleep(3 * LATENCY);
+        cancelled.response.cancel(false);
+
+        // Issues wanted by another download are still fetched; the rest are abandoned
+        assertEquals(new HashSet<>(range(1, 3)), other.response.get().keySet());
+        Thread.sleep(10 * LATENCY);
+        int requests = repo.eventRequests.get();
+        assertTrue(requests < 20);
+        Thread.sleep(5 * LATENCY);
+        assertEquals(requests, repo.eventRequests.get());
+
+        try {
+            cancelled.response.get();
+            fail();
+        } catch (CancellationException e) {
+            assertTrue(cancelled.response.isCancelled());
+        }
+    }
+}
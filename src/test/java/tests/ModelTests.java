@@ -8,9 +8,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class ModelTests {
 
@@ -49,20 +52,40 @@ public class ModelTests {
     @Test
     public void immutability() {
         Model other = new Model(modelUpdated);
-        other.getIssues().add(new TurboIssue(REPO, 11, ""));
+        try {
+            other.getIssues().add(new TurboIssue(REPO, 11, ""));
+            fail();
+        } catch (UnsupportedOperationException ignored) {}
         assertEquals(modelUpdated, other);
 
-        other = new Model(modelUpdated);
-        other.getLabels().add(new TurboLabel(REPO, "aksdjl"));
+        try {
+            other.getLabels().add(new TurboLabel(REPO, "aksdjl"));
+            fail();
+        } catch (UnsupportedOperationException ignored) {}
+        assertEquals(modelUpdated, other);
+
+        try {
+            other.getMilestones().add(new TurboMilestone(REPO, 11, ""));
+            fail();
+        } catch (UnsupportedOperationException ignored) {}
         assertEquals(modelUpdated, other);
 
-        other = new Model(modelUpdated);
-        other.getMilestones().add(new TurboMilestone(REPO, 11, ""));
+        try {
+            other.getUsers().add(new TurboUser(REPO, ""));
+            fail();
+        } catch (UnsupportedOperationException ignored) {}
         assertEquals(modelUpdated, other);
 
-        other = new Model(modelUpdated);
-        other.getUsers().add(new TurboUser(REPO, ""));
+        // Changes to the lists a model was constructed from are not reflected in it
+        List<TurboIssue> issues = new ArrayList<>(modelUpdated.getIssues());
+        other = new Model(REPO, issues, modelUpdated.getLabels(), modelUpdated.getMilestones(),
+            modelUpdated.getUsers(), modelUpdated.getUpdateSignature());
+        issues.add(new TurboIssue(REPO, 11, ""));
         assertEquals(modelUpdated, other);
+
+        // Reads do not copy
+        assertSame(modelUpdated.getIssues(), modelUpdated.getIssues());
+        assertSame(modelUpdated.getIssues(), new Model(modelUpdated).getIssues());
     }
 
     @Test
@@ -267,4 +290,132 @@ public class ModelTests {
         assertEquals(Optional.<TurboUser>empty(), modelUpdated.getUserByLogin("User 11"));
         assertEquals("User 10", modelUpdated.getUserByLogin("User 10").get().getLoginName());
     }
+
+    @Test
+    public void resourcesOfIssue() {
+        TurboIssue issue = modelUpdated.getIssueById(10).get();
+        assertEquals(Arrays.asList("Label 1", "Label 11"), modelUpdated.getLabelsOfIssue(issue).stream()
+            .map(TurboLabel::getActualName)
+            .collect(Collectors.toList()));
+        assertEquals("User 10", modelUpdated.getAssigneeOfIssue(issue).get().getLoginName());
+        assertEquals(Optional.<TurboMilestone>empty(), modelUpdated.getMilestoneOfIssue(issue));
+
+        issue = modelUpdated.getIssueById(5).get();
+        assertEquals("Milestone 5", modelUpdated.getMilestoneOfIssue(issue).get().getTitle());
+
+        // Labels that are not in the model are ignored
+        TurboIssue unknownLabels = new TurboIssue(REPO, 12, "");
+        unknownLabels.addLabel("Label 12");
+        unknownLabels.addLabel("Label 2");
+        assertEquals(1, modelUpdated.getLabelsOfIssue(unknownLabels).size());
+    }
+
+    @Test
+    public void issueIndex() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "", "alice", null, false);
+        issue1.setLabels(new ArrayList<>(Arrays.asList("type.bug", "p.high")));
+        issue1.setAssignee("bob");
+        issue1.setMilestone(1);
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "", "bob", null, true);
+        issue2.setOpen(false);
+        Model model = new Model(REPO, Arrays.asList(issue1, issue2),
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        IssueIndex index = model.getIssueIndex();
+
+        assertEquals(BitSet.valueOf(new long[] {0b110}), index.getAllIssues());
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.getOpenIssues());
+        assertEquals(BitSet.valueOf(new long[] {0b100}), index.getPullRequests());
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.getIssuesWithLabel("p.high"));
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.getIssuesAssignedTo("bob"));
+        assertEquals(BitSet.valueOf(new long[] {0b100}), index.getIssuesCreatedBy("bob"));
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.getIssuesInMilestone(1));
+        assertEquals(new BitSet(), index.getIssuesWithLabel("type.feature"));
+
+        // Issues modified in place are reindexed
+        issue1.setLabels(new ArrayList<>(Arrays.asList("type.feature")));
+        index.reindex(issue1);
+        assertEquals(new BitSet(), index.getIssuesWithLabel("p.high"));
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.getIssuesWithLabel("type.feature"));
+        assertEquals(new HashSet<>(Arrays.asList("type.feature")), index.getLabels());
+    }
+
+    @Test
+    public void issueIndexUpdate() {
+        Model model = modelUpdated;
+        TurboIssue changed = new TurboIssue(model.getIssueById(1).get());
+        changed.setOpen(false);
+        changed.setLabels(new ArrayList<>(Arrays.asList("Label 3")));
+        TurboIssue added = new TurboIssue(REPO, 100, "", "someone", null, true);
+
+        List<TurboIssue> issues = new ArrayList<>(model.getIssues());
+        issues.removeIf(issue -> issue.getId() == 1 || issue.getId() == 2);
+        issues.add(changed);
+        issues.add(added);
+        ChangeSet<Integer> changes = new ChangeSet<>(new HashSet<>(Arrays.asList(100)),
+            new HashSet<>(Arrays.asList(1)), new HashSet<>(Arrays.asList(2)), new HashSet<>());
+
+        Model updated = new Model(model, issues, model.getLabels(), model.getMilestones(), model.getUsers(),
+            model.getUpdateSignature(), changes);
+        Model rebuilt = new Model(REPO, issues, model.getLabels(), model.getMilestones(), model.getUsers());
+        IssueIndex derived = updated.getIssueIndex();
+        IssueIndex expected = rebuilt.getIssueIndex();
+
+        assertEquals(expected.getAllIssues(), derived.getAllIssues());
+        assertEquals(expected.getOpenIssues(), derived.getOpenIssues());
+        assertEquals(expected.getPullRequests(), derived.getPullRequests());
+        assertEquals(expected.getLabels(), derived.getLabels());
+        expected.getLabels().forEach(label ->
+            assertEquals(expected.getIssuesWithLabel(label), derived.getIssuesWithLabel(label)));
+        assertEquals(expected.getAssignees(), derived.getAssignees());
+        expected.getAssignees().forEach(login ->
+            assertEquals(expected.getIssuesAssignedTo(login), derived.getIssuesAssignedTo(login)));
+        assertEquals(expected.getMilestones(), derived.getMilestones());
+        expected.getMilestones().forEach(id ->
+            assertEquals(expected.getIssuesInMilestone(id), derived.getIssuesInMilestone(id)));
+        assertEquals(expected.getCreators(), derived.getCreators());
+        expected.getCreators().forEach(login ->
+            assertEquals(expected.getIssuesCreatedBy(login), derived.getIssuesCreatedBy(login)));
+
+        // The previous model's index is unaffected
+        assertEquals(true, model.getIssueIndex().getAllIssues().get(2));
+        assertEquals(false, model.getIssueIndex().getAllIssues().get(100));
+    }
+
+    @Test
+    public void textIndex() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "Crash on startup");
+        issue1.setDescription("Stack trace: NullPointerException at Main.java:10");
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "Startup is slow");
+        Model model = new Model(REPO, Arrays.asList(issue1, issue2),
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        TextIndex index = model.getTextIndex();
+
+        // Text is found within words and across them, ignoring case
+        assertEquals(BitSet.valueOf(new long[] {0b110}), index.findInTitles("START").get());
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.findInTitles("h on st").get());
+        assertEquals(BitSet.valueOf(new long[] {0b010}), index.findInBodies("pointerexc").get());
+        assertEquals(new BitSet(), index.findInBodies("slow").get());
+        assertEquals(Optional.empty(), index.findInTitles(" ."));
+
+        // Derived indexes are the same as those built from scratch
+        TurboIssue changed = new TurboIssue(issue2);
+        changed.setTitle("Startup is fast");
+        TurboIssue added = new TurboIssue(REPO, 3, "Slow startup");
+        ChangeSet<Integer> changes = new ChangeSet<>(new HashSet<>(Arrays.asList(3)),
+            new HashSet<>(Arrays.asList(2)), new HashSet<>(Arrays.asList(1)), new HashSet<>());
+        Model updated = new Model(model, Arrays.asList(changed, added), model.getLabels(), model.getMilestones(),
+            model.getUsers(), model.getUpdateSignature(), changes);
+        TextIndex derived = updated.getTextIndexIfBuilt().get();
+        TextIndex rebuilt = TextIndex.of(Arrays.asList(changed, added));
+
+        assertEquals(rebuilt.getTitleWords().keySet(), derived.getTitleWords().keySet());
+        rebuilt.getTitleWords().forEach((word, ids) ->
+            assertEquals(Arrays.toString(ids), Arrays.toString(derived.getTitleWords().get(word))));
+        assertEquals(new HashSet<>(), derived.getBodyWords().keySet());
+        assertEquals(BitSet.valueOf(new long[] {0b1100}), derived.findInTitles("startup").get());
+        assertEquals(BitSet.valueOf(new long[] {0b1000}), derived.findInTitles("slow").get());
+
+        // The previous index is unaffected
+        assertEquals(BitSet.valueOf(new long[] {0b100}), index.findInTitles("slow").get());
+    }
 }
@@ -1,10 +1,30 @@
 package tests;
 
+import backend.IssueMetadata;
+import backend.resource.ChangeSet;
+import backend.resource.Model;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.stub.DummyRepo;
 import org.junit.Test;
 import prefs.Preferences;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class MultiModelTest {
 
@@ -18,4 +38,141 @@ public class MultiModelTest {
         assertEquals(new MultiModel(new Preferences(true)).hashCode(), multiModel.hashCode());
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void resourceViews() {
+        MultiModel multiModel = new MultiModel(new Preferences(true));
+        addDummyModel(multiModel, "dummy1/dummy1");
+
+        List<TurboIssue> issues = multiModel.getIssues();
+        assertEquals(10, issues.size());
+        assertSame(issues, multiModel.getIssues());
+
+        // Opening another repository invalidates the shared lists
+        addDummyModel(multiModel, "dummy2/dummy2");
+        assertNotSame(issues, multiModel.getIssues());
+        assertEquals(20, multiModel.getIssues().size());
+        assertEquals(20, multiModel.getUsers().size());
+
+        multiModel.getIssues().add(new TurboIssue("dummy1/dummy1", 11, ""));
+    }
+
+    @Test
+    public void replaceMarksChangedIssuesUnread() {
+        MultiModel multiModel = new MultiModel(new Preferences(true));
+        addDummyModel(multiModel, "dummy1/dummy1");
+        Model existing = multiModel.getModelById("dummy1/dummy1").get();
+        existing.getIssues().forEach(issue -> issue.setIsCurrentlyRead(true));
+
+        List<TurboIssue> issues = new ArrayList<>(existing.getIssues());
+        TurboIssue edited = new TurboIssue(issues.get(0));
+        edited.setTitle("Edited");
+        issues.set(0, edited);
+        Set<Integer> changed = new HashSet<>(Arrays.asList(edited.getId()));
+        Model updated = new Model(existing.getRepoId(), issues, existing.getLabels(), existing.getMilestones(),
+            existing.getUsers(), existing.getUpdateSignature(),
+            ChangeSet.of(new HashSet<>(existing.getIssueIds()), new HashSet<>(), changed));
+
+        multiModel.replace(Arrays.asList(updated));
+        assertEquals(false, multiModel.getIssues().get(0).isCurrentlyRead());
+        assertEquals(9, multiModel.getIssues().stream().filter(TurboIssue::isCurrentlyRead).count());
+
+        // Without a change set, the changes are worked out by comparing models
+        issues = new ArrayList<>(multiModel.getIssues());
+        issues.forEach(issue -> issue.setIsCurrentlyRead(true));
+        edited = new TurboIssue(issues.get(1));
+        edited.setTitle("Edited");
+        issues.set(1, edited);
+        multiModel.replace(Arrays.asList(new Model(existing.getRepoId(), issues, existing.getLabels(),
+            existing.getMilestones(), existing.getUsers())));
+        assertEquals(false, multiModel.getIssues().get(1).isCurrentlyRead());
+        assertEquals(9, multiModel.getIssues().stream().filter(TurboIssue::isCurrentlyRead).count());
+    }
+
+    @Test
+    public void replaceReturnsChanges() {
+        MultiModel multiModel = new MultiModel(new Preferences(true));
+        addDummyModel(multiModel, "dummy1/dummy1");
+        Model existing = multiModel.getModelById("dummy1/dummy1").get();
+
+        // Nothing changes
+        List<ModelDelta> changes = multiModel.replace(Arrays.asList(new Model(existing)));
+        assertEquals(1, changes.size());
+        assertFalse(changes.get(0).hasChanges());
+
+        // An issue is removed, another is edited, and a label is added
+        List<TurboIssue> issues = new ArrayList<>(existing.getIssues());
+        issues.remove(0);
+        TurboIssue edited = new TurboIssue(issues.get(0));
+        edited.setTitle("Edited");
+        issues.set(0, edited);
+        List<TurboLabel> labels = new ArrayList<>(existing.getLabels());
+        labels.add(new TurboLabel("dummy1/dummy1", "type.new"));
+
+        changes = multiModel.replace(Arrays.asList(new Model(existing.getRepoId(), issues, labels,
+            existing.getMilestones(), existing.getUsers())));
+        ModelDelta delta = changes.get(0);
+        assertEquals("dummy1/dummy1", delta.getRepoId());
+        assertTrue(delta.hasChanges());
+        assertFalse(delta.hasIssueChangesOnly());
+        assertEquals(new HashSet<>(Arrays.asList(existing.getIssues().get(0).getId())),
+            delta.getIssues().getRemoved());
+        assertEquals(new HashSet<>(Arrays.asList(edited.getId())), delta.getIssues().getChanged());
+        assertTrue(delta.getIssues().getAdded().isEmpty());
+        assertEquals(8, delta.getIssues().getUnchanged().size());
+        assertEquals(new HashSet<>(Arrays.asList("type.new")), delta.getLabels().getAdded());
+        assertFalse(delta.getMilestones().hasChanges());
+        assertFalse(delta.getUsers().hasChanges());
+    }
+
+    @Test
+    public void relabelReachesRefreshedModel() {
+        MultiModel multiModel = new MultiModel(new Preferences(true));
+        addDummyModel(multiModel, "dummy1/dummy1");
+        Model existing = multiModel.getModelById("dummy1/dummy1").get();
+        TurboIssue issue = existing.getIssues().get(0);
+
+        // Before the relabel completes, a refresh in which another issue changed builds the next model,
+        // sharing the unchanged issue and copying the index
+        List<TurboIssue> issues = new ArrayList<>(existing.getIssues());
+        TurboIssue edited = new TurboIssue(issues.get(1));
+        edited.setTitle("Edited");
+        issues.set(1, edited);
+        Model refreshed = new Model(existing, issues, existing.getLabels(),
+            existing.getMilestones(), existing.getUsers(), existing.getUpdateSignature(),
+            ChangeSet.of(new HashSet<>(existing.getIssueIds()), new HashSet<>(),
+                new HashSet<>(Arrays.asList(edited.getId()))));
+        multiModel.replaceIssueLabels(new TurboIssue(issue), Arrays.asList("type.relabelled"));
+        assertEquals(Arrays.asList("type.relabelled"), issue.getLabels());
+        assertTrue(existing.getIssueIndex().getIssuesWithLabel("type.relabelled").get(issue.getId()));
+        assertFalse(refreshed.getIssueIndex().getIssuesWithLabel("type.relabelled").get(issue.getId()));
+
+        multiModel.replace(Arrays.asList(refreshed));
+        assertTrue(refreshed.getIssueIndex().getIssuesWithLabel("type.relabelled").get(issue.getId()));
+    }
+
+    @Test
+    public void insertMetadataReturnsChanges() {
+        MultiModel multiModel = new MultiModel(new Preferences(true));
+        addDummyModel(multiModel, "dummy1/dummy1");
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        metadata.put(1, new IssueMetadata());
+        metadata.put(100, new IssueMetadata());
+
+        // Only the issues of the repository given metadata are changed
+        ModelDelta delta = multiModel.insertMetadata("dummy1/dummy1", metadata, "user").get();
+        assertEquals(Collections.singleton(1), delta.getIssues().getChanged());
+        assertEquals(9, delta.getIssues().getUnchanged().size());
+        assertTrue(delta.hasIssueChangesOnly());
+
+        // Metadata for a repository which has been closed is dropped
+        assertFalse(multiModel.insertMetadata("dummy2/dummy2", metadata, "user").isPresent());
+    }
+
+    private static void addDummyModel(MultiModel multiModel, String repoId) {
+        DummyRepo dummy = new DummyRepo();
+        multiModel.queuePendingRepository(repoId);
+        multiModel.addPending(new Model(repoId, dummy.getIssues(repoId), dummy.getLabels(repoId),
+            dummy.getMilestones(repoId), dummy.getCollaborators(repoId)));
+    }
+
 }
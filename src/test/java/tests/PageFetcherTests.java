@@ -0,0 +1,171 @@
+package tests;
+
+import backend.github.GitHubRepo;
+import backend.resource.IssuePage;
+import backend.resource.TurboLabel;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.UI;
+import ui.components.StatusUIStub;
+import util.events.EventDispatcherStub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fetches the resources of a repository from a stub server which answers each request after a delay.
+ */
+public class PageFetcherTests {
+
+    private static final String REPO = "owner/repo";
+    private static final int PAGES = 6;
+    private static final int PER_PAGE = 100;
+    private static final int LATENCY = 200;
+    private static final int RATE_LIMIT_RESET = 1; // seconds
+
+    private static final String ISSUE = "{\"number\":%d,\"title\":\"Issue %d\",\"state\":\"open\","
+        + "\"user\":{\"login\":\"user\"},\"labels\":[],"
+        + "\"created_at\":\"2015-01-01T00:00:00Z\",\"updated_at\":\"2015-01-01T00:00:00Z\"}";
+    private static final String LABEL = "{\"name\":\"label%d\",\"color\":\"ffffff\"}";
+
+    private HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int remainingRequests = 5000;
+
+    @BeforeClass
+    public static void setup() {
+        UI.events = new EventDispatcherStub();
+        UI.status = new StatusUIStub();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::respond);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private GitHubRepo createRepo(int maxConcurrentRequests) {
+        GitHubClientExtended client = new GitHubClientExtended("localhost", server.getAddress().getPort(), "http");
+        return new GitHubRepo(client, maxConcurrentRequests);
+    }
+
+    /**
+     * Serves PAGES pages of labels or issues, numbered consecutively.
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(LATENCY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        Matcher matcher = Pattern.compile("(?:^|&)page=(\\d+)").matcher(exchange.getRequestURI().getQuery());
+        int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+
+        List<String> items = new ArrayList<>();
+        for (int i = (page - 1) * PER_PAGE + 1; i <= page * PER_PAGE; i++) {
+            items.add(path.endsWith("/issues") ? String.format(ISSUE, i, i) : String.format(LABEL, i));
+        }
+        byte[] body = ("[" + String.join(",", items) + "]").getBytes(StandardCharsets.UTF_8);
+
+        String uri = "http://localhost:" + server.getAddress().getPort() + path + "?page=";
+        if (page < PAGES) {
+            exchange.getResponseHeaders().add("Link",
+                String.format("<%s%d>; rel=\"next\", <%s%d>; rel=\"last\"", uri, page + 1, uri, PAGES));
+        }
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(remainingRequests));
+        // The rate limit resets shortly, so that requests are not held back for long
+        exchange.getResponseHeaders().add("X-RateLimit-Reset",
+            String.valueOf(System.currentTimeMillis() / 1000 + RATE_LIMIT_RESET));
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static List<String> expectedLabels() {
+        List<String> result = new ArrayList<>();
+        for (int i = 1; i <= PAGES * PER_PAGE; i++) {
+            result.add("label" + i);
+        }
+        return result;
+    }
+
+    @Test
+    public void concurrentFetchTest() {
+        long start = System.currentTimeMillis();
+        List<TurboLabel> labels = createRepo(4).getLabels(REPO);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(expectedLabels(), labels.stream().map(TurboLabel::getActualName).collect(Collectors.toList()));
+        assertEquals(PAGES, requests.get());
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(maxInFlight.get() <= 4);
+        // The first page, then the other five, four at a time
+        assertTrue(elapsed < PAGES * LATENCY);
+    }
+
+    @Test
+    public void serialFetchTest() {
+        List<TurboLabel> labels = createRepo(1).getLabels(REPO);
+
+        assertEquals(expectedLabels(), labels.stream().map(TurboLabel::getActualName).collect(Collectors.toList()));
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    public void rateLimitTest() {
+        remainingRequests = 1;
+        List<TurboLabel> labels = createRepo(4).getLabels(REPO);
+
+        assertEquals(expectedLabels(), labels.stream().map(TurboLabel::getActualName).collect(Collectors.toList()));
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    public void issuePagesTest() {
+        List<IssuePage> pages = new ArrayList<>();
+        assertTrue(createRepo(4).getIssues(REPO, 2, pages::add));
+
+        // Pages are handed over in order from the given page
+        assertEquals(PAGES - 1, pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            IssuePage page = pages.get(i);
+            assertEquals(i + 2, page.getNumber());
+            assertEquals(PER_PAGE, page.getIssues().size());
+            assertEquals((i + 1) * PER_PAGE + 1, page.getIssues().get(0).getId());
+        }
+        assertTrue(maxInFlight.get() > 1);
+    }
+}
@@ -0,0 +1,165 @@
+package tests;
+
+import github.RequestScheduler;
+import github.RequestScheduler.Priority;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RequestSchedulerTests {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    /**
+     * Makes a request through the scheduler from another thread, with the given priority.
+     */
+    private <T> Future<T> request(RequestScheduler scheduler, Priority priority, RequestScheduler.Request<T> request) {
+        return pool.submit(() -> RequestScheduler.callWithPriority(priority, () -> scheduler.schedule(request)));
+    }
+
+    private static void awaitQueueDepth(RequestScheduler scheduler, int depth) throws InterruptedException {
+        for (int i = 0; i < 100 && scheduler.getQueueDepth() != depth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void concurrencyTest() throws InterruptedException, ExecutionException {
+        RequestScheduler scheduler = new RequestScheduler(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<Future<Integer>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(request(scheduler, Priority.MODEL_UPDATE, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return inFlight.decrementAndGet();
+            }));
+        }
+        for (Future<Integer> request : requests) {
+            request.get();
+        }
+
+        assertEquals(3, maxInFlight.get());
+        assertEquals(20, scheduler.getCompletedRequests());
+        assertEquals(0, scheduler.getActiveRequests());
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(20 / 60.0, scheduler.getThroughput(), 0.001);
+    }
+
+    @Test
+    public void priorityTest() throws InterruptedException, ExecutionException {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        CountDownLatch blocking = new CountDownLatch(1);
+        List<Priority> order = Collections.synchronizedList(new ArrayList<>());
+
+        Future<Boolean> first = request(scheduler, Priority.MODEL_UPDATE, () -> {
+            try {
+                return blocking.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        });
+        awaitQueueDepth(scheduler, 0);
+        while (scheduler.getActiveRequests() == 0) {
+            Thread.sleep(10);
+        }
+
+        List<Future<Boolean>> queued = new ArrayList<>();
+        for (Priority priority : Arrays.asList(Priority.METADATA_PREFETCH, Priority.MODEL_UPDATE,
+            Priority.INTERACTIVE, Priority.METADATA_PREFETCH)) {
+            queued.add(request(scheduler, priority, () -> order.add(priority)));
+            awaitQueueDepth(scheduler, queued.size());
+        }
+        assertEquals(2, scheduler.getQueueDepth(Priority.METADATA_PREFETCH));
+        assertEquals(1, scheduler.getQueueDepth(Priority.INTERACTIVE));
+
+        // Once the request in flight completes, the rest are made in order of priority
+        blocking.countDown();
+        assertTrue(first.get());
+        for (Future<Boolean> request : queued) {
+            request.get();
+        }
+        assertEquals(Arrays.asList(Priority.INTERACTIVE, Priority.MODEL_UPDATE,
+            Priority.METADATA_PREFETCH, Priority.METADATA_PREFETCH), order);
+    }
+
+    @Test
+    public void pacingTest() throws InterruptedException, ExecutionException {
+        RequestScheduler scheduler = new RequestScheduler(4);
+
+        // Requests are not paced until the rate limit is known
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            request(scheduler, Priority.INTERACTIVE, () -> true).get();
+        }
+        assertTrue(System.currentTimeMillis() - start < 500);
+
+        // 20 requests over 2 seconds, of which 2 may be made at once
+        scheduler.updateRateLimit(20, 20, System.currentTimeMillis() + 2000);
+        start = System.currentTimeMillis();
+        for (int i = 0; i < 12; i++) {
+            request(scheduler, Priority.INTERACTIVE, () -> true).get();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("Took " + elapsed + " ms", elapsed >= 800);
+        assertTrue("Took " + elapsed + " ms", elapsed < 2000);
+    }
+
+    @Test
+    public void reserveTest() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(4);
+        scheduler.updateRateLimit(100, 5, System.currentTimeMillis() + HOUR);
+
+        // Metadata prefetches leave the last tenth of the rate limit to other requests
+        Future<Boolean> prefetch = request(scheduler, Priority.METADATA_PREFETCH, () -> true);
+        assertTrue(request(scheduler, Priority.MODEL_UPDATE, () -> true).get(1, TimeUnit.SECONDS));
+        assertTrue(request(scheduler, Priority.INTERACTIVE, () -> true).get(1, TimeUnit.SECONDS));
+        assertFalse(prefetch.isDone());
+        assertEquals(1, scheduler.getQueueDepth(Priority.METADATA_PREFETCH));
+
+        // They resume once the rate limit resets
+        scheduler.updateRateLimit(100, 100, System.currentTimeMillis() + 2 * HOUR);
+        assertTrue(prefetch.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void notCountedTest() throws InterruptedException, ExecutionException, TimeoutException {
+        RequestScheduler scheduler = new RequestScheduler(4);
+        scheduler.updateRateLimit(10, 1, System.currentTimeMillis() + HOUR);
+        request(scheduler, Priority.INTERACTIVE, () -> {
+            scheduler.updateRateLimit(10, 1, System.currentTimeMillis() + HOUR);
+            scheduler.notCounted();
+            return true;
+        }).get(1, TimeUnit.SECONDS);
+
+        // The request answered with a 304 left the rate limit as it was
+        assertTrue(request(scheduler, Priority.INTERACTIVE, () -> true).get(1, TimeUnit.SECONDS));
+        Future<Boolean> blocked = request(scheduler, Priority.INTERACTIVE, () -> true);
+        Thread.sleep(200);
+        assertFalse(blocked.isDone());
+        blocked.cancel(true);
+    }
+}
@@ -5,9 +5,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.eclipse.egit.github.core.Issue;
@@ -16,9 +18,11 @@ import org.eclipse.egit.github.core.Milestone;
 import org.eclipse.egit.github.core.User;
 import org.junit.Before;
 import org.junit.Test;
+import com.google.gson.Gson;
 
 import backend.UpdateSignature;
 import backend.resource.Model;
+import backend.resource.TextIndex;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
@@ -27,6 +31,7 @@ import backend.resource.serialization.SerializableIssue;
 import backend.resource.serialization.SerializableLabel;
 import backend.resource.serialization.SerializableMilestone;
 import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableTextIndex;
 import backend.resource.serialization.SerializableUser;
 
 public class SerializationTests {
@@ -229,4 +234,36 @@ public class SerializationTests {
         assertTrue(serializedModelString.contains("milestones:"));
         assertTrue(serializedModelString.contains("users:"));
     }
+
+    @Test
+    public void testSerializableTextIndex() {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            TurboIssue issue = new TurboIssue(TEST_REPO_ID, i * 7, "Issue " + i);
+            issue.setDescription(i % 2 == 0 ? "even description" : "odd description " + i);
+            issues.add(issue);
+        }
+        Model model = new Model(TEST_REPO_ID, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        // The text index is only stored once it has been built
+        assertEquals(null, new SerializableModel(model).textIndex);
+
+        TextIndex index = model.getTextIndex();
+        String json = new Gson().toJson(new SerializableModel(model));
+        TextIndex loaded = new Model(new Gson().fromJson(json, SerializableModel.class)).getTextIndexIfBuilt().get();
+
+        assertPostingsEqual(index.getTitleWords(), loaded.getTitleWords());
+        assertPostingsEqual(index.getBodyWords(), loaded.getBodyWords());
+        assertEquals(index.findInBodies("odd"), loaded.findInBodies("odd"));
+
+        // A corrupted index is discarded
+        String corrupted = json.replaceFirst("(\"bodyWords\":\\{\"[^\"]*\":\")", "$1*");
+        assertEquals(Optional.empty(),
+            new Model(new Gson().fromJson(corrupted, SerializableModel.class)).getTextIndexIfBuilt());
+    }
+
+    private static void assertPostingsEqual(Map<String, int[]> expected, Map<String, int[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((word, ids) -> assertTrue(Arrays.equals(ids, actual.get(word))));
+    }
 }
@@ -0,0 +1,125 @@
+package tests;
+
+import backend.resource.ChangeSet;
+import backend.resource.TurboIssue;
+import org.junit.Test;
+import ui.issuepanel.SortedIssueList;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortedIssueListTest {
+
+    private static final String REPO = "test/test";
+
+    private static final Predicate<TurboIssue> IS_OPEN = TurboIssue::isOpen;
+    private static final Comparator<TurboIssue> BY_TITLE = (a, b) -> a.getTitle().compareTo(b.getTitle());
+
+    private static List<TurboIssue> createIssues() {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            TurboIssue issue = new TurboIssue(REPO, i, "Issue " + (char) ('a' + i));
+            issue.setOpen(i % 3 != 0);
+            issues.add(issue);
+        }
+        return issues;
+    }
+
+    @Test
+    public void filterAndSort() {
+        List<TurboIssue> issues = createIssues();
+        SortedIssueList list = new SortedIssueList(issues, IS_OPEN, BY_TITLE.reversed());
+
+        assertEquals(7, list.size());
+        assertEquals(10, list.getIssues().get(0).getId());
+        assertEquals(1, list.getIssues().get(6).getId());
+        assertTrue(list.getIssues().stream().allMatch(TurboIssue::isOpen));
+    }
+
+    @Test
+    public void ties() {
+        // Issues with the same sort key are ordered by repository and id
+        List<TurboIssue> issues = Arrays.asList(
+            new TurboIssue("b/b", 1, "Same"), new TurboIssue("a/a", 2, "Same"), new TurboIssue("a/a", 1, "Same"));
+        SortedIssueList list = new SortedIssueList(issues, i -> true, BY_TITLE);
+
+        assertEquals(Arrays.asList(issues.get(2), issues.get(1), issues.get(0)), list.getIssues());
+    }
+
+    @Test
+    public void update() {
+        List<TurboIssue> issues = createIssues();
+        SortedIssueList list = new SortedIssueList(issues, IS_OPEN, BY_TITLE);
+
+        Map<Integer, TurboIssue> updated = new HashMap<>();
+        issues.forEach(issue -> updated.put(issue.getId(), issue));
+
+        // Moves to the front
+        TurboIssue moved = new TurboIssue(updated.get(5));
+        moved.setTitle("A");
+        updated.put(5, moved);
+        // No longer satisfies the predicate
+        TurboIssue closed = new TurboIssue(updated.get(2));
+        closed.setOpen(false);
+        updated.put(2, closed);
+        // Now satisfies the predicate
+        TurboIssue reopened = new TurboIssue(updated.get(6));
+        reopened.setOpen(true);
+        updated.put(6, reopened);
+        // Added in the middle
+        TurboIssue added = new TurboIssue(REPO, 11, "Issue e2");
+        updated.put(11, added);
+        // Removed
+        updated.remove(7);
+
+        Set<Integer> changed = new HashSet<>(Arrays.asList(2, 5, 6));
+        list.update(REPO, new ChangeSet<>(new HashSet<>(Arrays.asList(11)), changed,
+            new HashSet<>(Arrays.asList(7)), new HashSet<>()), id -> Optional.ofNullable(updated.get(id)));
+
+        SortedIssueList expected = new SortedIssueList(updated.values(), IS_OPEN, BY_TITLE);
+        assertEquals(expected.getIssues(), list.getIssues());
+        assertEquals(moved, list.getIssues().get(0));
+
+        // Changes to other repositories are ignored
+        list.update("other/other", new ChangeSet<>(new HashSet<>(), changed, new HashSet<>(), new HashSet<>()),
+            id -> Optional.empty());
+        assertEquals(expected.getIssues(), list.getIssues());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnly() {
+        new SortedIssueList(createIssues(), IS_OPEN, BY_TITLE).getIssues().clear();
+    }
+
+    @Test
+    public void parallelCompute() {
+        // Enough issues to be split into several chunks, with ties between them
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= 10000; i++) {
+            TurboIssue issue = new TurboIssue(i % 2 == 0 ? "a/a" : "b/b", i, "Issue " + i % 97);
+            issue.setOpen(i % 3 != 0);
+            issues.add(issue);
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SortedIssueList list = SortedIssueList.compute(pool, issues, IS_OPEN, BY_TITLE, () -> false);
+        SortedIssueList expected = new SortedIssueList(issues, IS_OPEN, BY_TITLE);
+
+        assertEquals(expected.getIssues(), list.getIssues());
+        pool.shutdown();
+    }
+
+    @Test(expected = CancellationException.class)
+    public void parallelComputeCancelled() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SortedIssueList.compute(pool, createIssues(), IS_OPEN, BY_TITLE, () -> true);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,10 +1,26 @@
 package tests;
 
+import backend.CachedMetadata;
+import backend.IssueMetadata;
 import backend.RepoIO;
+import backend.UpdateSignature;
+import backend.binary.BinaryStore;
 import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
 import backend.json.JSONStore;
+import backend.resource.ChangeSet;
+import backend.resource.IssuePage;
 import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import backend.resource.serialization.SerializableMetadata;
+import backend.resource.serialization.SerializableModel;
+import com.google.gson.Gson;
+import github.TurboIssueEvent;
 import guitests.UITest;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -15,10 +31,19 @@ import util.events.EventDispatcherStub;
 import util.events.testevents.UpdateDummyRepoEvent;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class StoreTests {
 
@@ -99,6 +124,120 @@ public class StoreTests {
         jsonStore.loadRepository("nonexist/nonexist").get();
     }
 
+    @Test
+    public void testRestorePreviousJSON() throws InterruptedException, ExecutionException, IOException {
+        Model previous = sampleModel("testrepo/testrepo");
+        Model latest = updatedModel(previous, issue(3, "Third issue"));
+        RepoStore.write("testrepo/testrepo", new Gson().toJson(new SerializableModel(previous)));
+        RepoStore.write("testrepo/testrepo", new Gson().toJson(new SerializableModel(latest)));
+        JSONStore jsonStore = new JSONStore();
+        assertEquals(latest, jsonStore.loadRepository("testrepo/testrepo").get());
+
+        // The file is cut short, so the version it replaced is restored
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "json");
+        Files.write(file.toPath(), Arrays.copyOf(Files.readAllBytes(file.toPath()), (int) file.length() / 2));
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(Collections.singletonList("testrepo/testrepo"), jsonStore.getStoredRepos());
+
+        // The file is corrupted from its beginning, so the repository is listed from the version it replaced
+        Files.write(file.toPath(), "abcde".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList("testrepo/testrepo"), jsonStore.getStoredRepos());
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+
+        // Files written before files had checksums are still read
+        Files.write(file.toPath(), new Gson().toJson(new SerializableModel(latest)).getBytes(StandardCharsets.UTF_8));
+        assertEquals(latest, jsonStore.loadRepository("testrepo/testrepo").get());
+    }
+
+    @Test
+    public void testCompressedJSON() throws InterruptedException, ExecutionException, IOException {
+        Model previous = sampleModel("testrepo/testrepo");
+        Model latest = updatedModel(previous, issue(3, "Third issue"));
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "json");
+
+        // Stored uncompressed, then compressed when next written
+        JSONStore uncompressedStore = new JSONStore(RepoStore.Compression.NONE);
+        uncompressedStore.saveRepository("testrepo/testrepo", new SerializableModel(previous));
+        assertEquals(previous, uncompressedStore.loadRepository("testrepo/testrepo").get());
+        assertFalse(isGzip(file));
+        JSONStore jsonStore = new JSONStore();
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+        jsonStore.saveRepository("testrepo/testrepo", new SerializableModel(latest));
+        assertEquals(latest, jsonStore.loadRepository("testrepo/testrepo").get());
+        assertTrue(isGzip(file));
+        assertEquals(latest, new JSONStore(RepoStore.Compression.GZIP).loadRepository("testrepo/testrepo").get());
+        assertEquals(Collections.singletonList("testrepo/testrepo"), jsonStore.getStoredRepos());
+
+        // The compressed file is cut short, so the version it replaced is restored
+        Files.write(file.toPath(), Arrays.copyOf(Files.readAllBytes(file.toPath()), (int) file.length() - 4));
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(previous, jsonStore.loadRepository("testrepo/testrepo").get());
+    }
+
+    @Test
+    public void testCompressedJSONSize() throws InterruptedException, ExecutionException {
+        Model model = sampleModel("testrepo/testrepo");
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "json");
+        JSONStore uncompressedStore = new JSONStore(RepoStore.Compression.NONE);
+        uncompressedStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+        assertEquals(model, uncompressedStore.loadRepository("testrepo/testrepo").get());
+        long uncompressedSize = file.length();
+
+        for (RepoStore.Compression compression : Arrays.asList(RepoStore.Compression.FAST,
+                                                               RepoStore.Compression.GZIP)) {
+            JSONStore jsonStore = new JSONStore(compression);
+            jsonStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+            assertEquals(model, jsonStore.loadRepository("testrepo/testrepo").get());
+            assertTrue(file.length() < uncompressedSize);
+        }
+    }
+
+    @Test
+    public void testStreamingJSONLoad() throws InterruptedException, ExecutionException {
+        Model model = sampleModel("testrepo/testrepo");
+        model.getTextIndex();
+        String json = new Gson().toJson(new SerializableModel(model));
+        Model expected = new Model(new Gson().fromJson(json, SerializableModel.class));
+        RepoStore.write("testrepo/testrepo", json);
+
+        // Built as they are read, the same as when read into a SerializableModel
+        JSONStore jsonStore = new JSONStore();
+        Model loaded = jsonStore.loadRepository("testrepo/testrepo").get();
+        assertEquals(expected, loaded);
+        assertEquals(new SerializableModel(expected).toString(), new SerializableModel(loaded).toString());
+        assertTrue(loaded.getTextIndexIfBuilt().isPresent());
+        assertEquals(Collections.singletonList("testrepo/testrepo"), jsonStore.getStoredRepos());
+
+        // Unknown fields are skipped
+        RepoStore.write("testrepo/testrepo", "{\"repoId\":\"testrepo/testrepo\",\"unknown\":[1,{\"a\":null}],"
+            + "\"issues\":[{\"id\":4,\"title\":\"Fourth issue\",\"unknown\":\"\"}],"
+            + "\"labels\":[],\"milestones\":[],\"users\":[]}");
+        loaded = jsonStore.loadRepository("testrepo/testrepo").get();
+        assertEquals(1, loaded.getIssues().size());
+        assertEquals("Fourth issue", loaded.getIssues().get(0).getTitle());
+    }
+
+    private static boolean isGzip(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        return bytes.length >= 2 && (bytes[0] & 0xff) == 0x1f && (bytes[1] & 0xff) == 0x8b;
+    }
+
+    @Test
+    public void testRestorePreviousBinary() throws InterruptedException, ExecutionException, IOException {
+        Model previous = sampleModel("testrepo/testrepo");
+        Model latest = updatedModel(previous, issue(3, "Third issue"));
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(previous));
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(latest));
+        assertEquals(latest, binaryStore.loadRepository("testrepo/testrepo").get());
+
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "bin");
+        Files.write(file.toPath(), Arrays.copyOf(Files.readAllBytes(file.toPath()), (int) file.length() / 2));
+        assertEquals(previous, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(previous, binaryStore.loadRepository("testrepo/testrepo").get());
+    }
+
     @Test
     public void testLoadCorruptedRepository() throws InterruptedException, ExecutionException {
         RepoStore.write("testrepo/testrepo", "abcde");
@@ -118,6 +257,412 @@ public class StoreTests {
         assertEquals(10, model.getIssues().size());
     }
 
+    @Test
+    public void testIssuePages() throws InterruptedException, ExecutionException, IOException {
+        JSONStore jsonStore = new JSONStore();
+        jsonStore.saveIssuePage(new IssuePage("testrepo/testrepo", 1,
+            Arrays.asList(new TurboIssue("testrepo/testrepo", 1, "First"),
+                new TurboIssue("testrepo/testrepo", 2, ""))));
+        jsonStore.saveIssuePage(new IssuePage("testrepo/testrepo", 2,
+            Collections.singletonList(new TurboIssue("testrepo/testrepo", 3, "Line\nbreak"))));
+
+        List<IssuePage> pages = jsonStore.loadIssuePages("testrepo/testrepo").get();
+        assertEquals(2, pages.size());
+        assertEquals(1, pages.get(0).getNumber());
+        assertEquals("First", pages.get(0).getIssues().get(0).getTitle());
+        assertEquals("Line\nbreak", pages.get(1).getIssues().get(0).getTitle());
+
+        // A page cut short, or out of place, is ignored along with the pages after it
+        RepoStore.appendPage("testrepo/testrepo", "{\"repoId\":\"testrepo/testrepo\",\"number\":3,\"iss");
+        jsonStore.saveIssuePage(new IssuePage("testrepo/testrepo", 4, new ArrayList<>()));
+        assertEquals(2, jsonStore.loadIssuePages("testrepo/testrepo").get().size());
+
+        jsonStore.removeIssuePages("testrepo/testrepo");
+        assertTrue(jsonStore.loadIssuePages("testrepo/testrepo").get().isEmpty());
+    }
+
+    @Test
+    public void testResumeDownload() throws InterruptedException, ExecutionException {
+        // The first page of an earlier download of the repository was stored
+        JSONStore jsonStore = new JSONStore();
+        jsonStore.saveIssuePage(new IssuePage("dummy1/dummy1", 1,
+            Collections.singletonList(new TurboIssue("dummy1/dummy1", 1, "Downloaded earlier"))));
+        // Wait for the page to be written, as the store writes on its own thread
+        assertEquals(1, jsonStore.loadIssuePages("dummy1/dummy1").get().size());
+
+        RepoIO repoIO = new RepoIO(true, true);
+        List<Model> partialModels = new ArrayList<>();
+        Model model = repoIO.openRepository("dummy1/dummy1", partialModels::add).get();
+
+        // The stored issues are shown first, and the download resumes after them
+        assertEquals("Downloaded earlier", partialModels.get(0).getIssues().get(0).getTitle());
+        assertEquals("dummy1/dummy1", model.getRepoId());
+
+        // Once the repository is downloaded, its pages are no longer stored
+        TestUtils.delay(1);
+        assertFalse(new File("store/test/dummy1-dummy1.json.pages").exists());
+    }
+
+    @Test
+    public void testRefreshInterruptedDownload() throws InterruptedException, ExecutionException {
+        RepoIO repoIO = new RepoIO(true, true);
+        // The download is interrupted once its first page has been stored
+        Model partialModel = repoIO.openRepository("dummy1/dummy1", model -> {
+            throw new RuntimeException("Download interrupted");
+        }).get();
+        assertEquals(10, partialModel.getIssues().size());
+        TestUtils.delay(1);
+        assertTrue(new File("store/test/dummy1-dummy1.json.pages").exists());
+        assertFalse(repoIO.getStoredRepos().contains("dummy1/dummy1"));
+
+        // Once the issues downloaded so far have been refreshed, the repository is stored in full
+        Model model = repoIO.updateModel(partialModel).get();
+        TestUtils.delay(1);
+        assertFalse(new File("store/test/dummy1-dummy1.json.pages").exists());
+        assertTrue(repoIO.getStoredRepos().contains("dummy1/dummy1"));
+        assertEquals(model.getIssues().size(),
+            new JSONStore().loadRepository("dummy1/dummy1").get().getIssues().size());
+    }
+
+    private static CachedMetadata metadata(String eventsETag, LocalDateTime updatedAt) {
+        return new CachedMetadata(new IssueMetadata(new ArrayList<TurboIssueEvent>(), new ArrayList<>()),
+            eventsETag, null, updatedAt);
+    }
+
+    @Test
+    public void testMetadata() throws InterruptedException, ExecutionException, IOException {
+        LocalDateTime updatedAt = LocalDateTime.of(2015, 1, 1, 0, 0);
+        JSONStore jsonStore = new JSONStore();
+        Map<Integer, CachedMetadata> toSave = new HashMap<>();
+        toSave.put(1, metadata("\"abc\"", updatedAt));
+        toSave.put(2, metadata(null, updatedAt));
+        jsonStore.saveMetadata("testrepo/testrepo", toSave);
+
+        Map<Integer, CachedMetadata> stored = jsonStore.loadMetadata("testrepo/testrepo", Arrays.asList(1, 2, 3)).get();
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), stored.keySet());
+        assertEquals("\"abc\"", stored.get(1).getEventsETag().get());
+        assertFalse(stored.get(1).getCommentsETag().isPresent());
+        assertFalse(stored.get(2).getEventsETag().isPresent());
+        assertTrue(stored.get(1).isCurrent(updatedAt));
+        assertTrue(stored.get(1).getMetadata().getComments().isEmpty());
+
+        // Metadata which is corrupted, or stored for another issue, is ignored
+        RepoStore.writeMetadata(RepoStore.getMetadataFile("testrepo/testrepo", 1), "{\"repoId\":\"testr");
+        RepoStore.writeMetadata(RepoStore.getMetadataFile("testrepo/testrepo", 3),
+            RepoStore.readMetadata(RepoStore.getMetadataFile("testrepo/testrepo", 2)).get());
+        stored = jsonStore.loadMetadata("testrepo/testrepo", Arrays.asList(1, 2, 3)).get();
+        assertEquals(Collections.singleton(2), stored.keySet());
+    }
+
+    @Test
+    public void testMetadataEviction() throws InterruptedException, ExecutionException {
+        LocalDateTime updatedAt = LocalDateTime.of(2015, 1, 1, 0, 0);
+        long size = new Gson().toJson(new SerializableMetadata("testrepo/testrepo", 1, metadata(null, updatedAt)))
+            .length();
+
+        // There is only room for the metadata of two issues
+        JSONStore jsonStore = new JSONStore(size * 5 / 2);
+        jsonStore.saveMetadata("testrepo/testrepo", Collections.singletonMap(1, metadata(null, updatedAt)));
+        jsonStore.saveMetadata("testrepo/testrepo", Collections.singletonMap(2, metadata(null, updatedAt)));
+        jsonStore.loadMetadata("testrepo/testrepo", Collections.singletonList(1)).get();
+        jsonStore.saveMetadata("testrepo/testrepo", Collections.singletonMap(3, metadata(null, updatedAt)));
+
+        // The metadata used least recently is evicted
+        assertEquals(new HashSet<>(Arrays.asList(1, 3)),
+            jsonStore.loadMetadata("testrepo/testrepo", Arrays.asList(1, 2, 3)).get().keySet());
+        assertFalse(RepoStore.getMetadataFile("testrepo/testrepo", 2).exists());
+    }
+
+    /**
+     * @return a model of a repository with every kind of resource, and its text index built
+     */
+    private static Model sampleModel(String repoId) {
+        TurboIssue first = new TurboIssue(repoId, 1, "First issue", "alice",
+            LocalDateTime.of(2015, 1, 1, 0, 0), false);
+        first.setDescription("Description of the first issue");
+        first.setUpdatedAt(LocalDateTime.of(2015, 1, 2, 3, 4, 5, 6000000));
+        first.setCommentCount(3);
+        first.setAssignee("bob");
+        first.setLabels(new ArrayList<>(Arrays.asList("type.bug", "priority.high")));
+        first.setMilestone(1);
+        TurboIssue second = new TurboIssue(repoId, 2, "Second issue", "bob",
+            LocalDateTime.of(2015, 2, 1, 0, 0), true);
+        second.setOpen(false);
+        second.setLabels(new ArrayList<>(Collections.singletonList("type.bug")));
+
+        TurboMilestone milestone = new TurboMilestone(repoId, 1, "V1.0");
+        milestone.setDueDate(Optional.of(LocalDate.of(2015, 3, 1)));
+        milestone.setOpenIssues(1);
+
+        Model model = new Model(repoId, Arrays.asList(first, second),
+            Arrays.asList(new TurboLabel(repoId, "ff0000", "type.bug"), new TurboLabel(repoId, "priority.high")),
+            Collections.singletonList(milestone),
+            Arrays.asList(new TurboUser(repoId, "alice", "Alice"), new TurboUser(repoId, "bob")),
+            new UpdateSignature("\"issues\"", null, "\"milestones\"", null, new Date()));
+        model.getTextIndex();
+        return model;
+    }
+
+    @Test
+    public void testBinaryStore() throws InterruptedException, ExecutionException {
+        Model model = sampleModel("testrepo/testrepo");
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+
+        Model loaded = binaryStore.loadRepository("testrepo/testrepo").get();
+        assertEquals(model, loaded);
+        assertEquals(LocalDateTime.of(2015, 1, 2, 3, 4, 5, 6000000), loaded.getIssues().get(0).getUpdatedAt());
+        assertEquals("Description of the first issue", loaded.getIssues().get(0).getDescription());
+        assertEquals("Alice", loaded.getUsers().get(0).getRealName());
+        assertEquals(Optional.of(LocalDate.of(2015, 3, 1)), loaded.getMilestones().get(0).getDueDate());
+        assertArrayEquals(new int[] {1, 2}, loaded.getTextIndexIfBuilt().get().getTitleWords().get("issue"));
+
+        // Recurring strings are shared between the loaded resources
+        assertSame(loaded.getIssues().get(0).getLabels().get(0), loaded.getIssues().get(1).getLabels().get(0));
+
+        assertEquals(Collections.singletonList("testrepo/testrepo"), new BinaryStore().getStoredRepos());
+    }
+
+    @Test
+    public void testBinaryStoreResave() throws InterruptedException, ExecutionException, IOException {
+        Model model = sampleModel("testrepo/testrepo");
+        Model latest = updatedModel(sampleModel("testrepo/testrepo"), issue(3, "Third issue"));
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+
+        // The file is saved over, twice, while the descriptions loaded from it have not been decoded
+        Model loaded = binaryStore.loadRepository("testrepo/testrepo").get();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(latest));
+        assertEquals(latest, binaryStore.loadRepository("testrepo/testrepo").get());
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+        assertEquals(model, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(model, loaded);
+
+        // The descriptions do not depend on the file once it has been loaded, even if it is changed in place
+        loaded = binaryStore.loadRepository("testrepo/testrepo").get();
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "bin");
+        Files.write(file.toPath(), new byte[(int) file.length()]);
+        assertEquals("Description of the first issue", loaded.getIssues().get(0).getDescription());
+    }
+
+    @Test
+    public void testBinaryStoreSize() throws InterruptedException, ExecutionException {
+        Model model = sampleModel("testrepo/testrepo");
+        JSONStore jsonStore = new JSONStore(RepoStore.Compression.NONE);
+        jsonStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+
+        // Loaded to wait for the saves
+        assertEquals(model, jsonStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(model, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertTrue(RepoStore.getRepoFile("testrepo/testrepo", "bin").length()
+            < RepoStore.getRepoFile("testrepo/testrepo", "json").length());
+    }
+
+    @Test
+    public void testBinaryStoreMigration() throws InterruptedException, ExecutionException {
+        // Repositories stored as JSON are loaded from there until they are stored in binary
+        Model model = sampleModel("testrepo/testrepo");
+        RepoStore.write("testrepo/testrepo", new Gson().toJson(new SerializableModel(model)));
+        BinaryStore binaryStore = new BinaryStore();
+        assertEquals(Collections.singletonList("testrepo/testrepo"), binaryStore.getStoredRepos());
+        assertEquals(model, binaryStore.loadRepository("testrepo/testrepo").get());
+
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(model));
+        assertEquals(model, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(Collections.singletonList("testrepo/testrepo"), binaryStore.getStoredRepos());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testCorruptedBinary() throws InterruptedException, ExecutionException, IOException {
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(sampleModel("testrepo/testrepo")));
+        binaryStore.loadRepository("testrepo/testrepo").get();
+
+        // The file is cut short
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "bin");
+        Files.write(file.toPath(), Arrays.copyOf(Files.readAllBytes(file.toPath()), (int) file.length() / 2));
+        binaryStore.loadRepository("testrepo/testrepo").get();
+    }
+
+    /**
+     * @return the model produced by an update of the given one which brought in the given issue
+     */
+    private static Model updatedModel(Model previous, TurboIssue issue) {
+        ImmutablePair<List<TurboIssue>, ChangeSet<Integer>> reconciled = TurboIssue.reconcileWithChanges(
+            previous.getRepoId(), previous.getIssues(), Collections.singletonList(issue));
+        return new Model(previous, reconciled.getLeft(), previous.getLabels(), previous.getMilestones(),
+            previous.getUsers(), previous.getUpdateSignature(), reconciled.getRight());
+    }
+
+    private static TurboIssue issue(int id, String title) {
+        return new TurboIssue("testrepo/testrepo", id, title, "alice", LocalDateTime.of(2015, 4, 1, 0, 0), false);
+    }
+
+    @Test
+    public void testJournaledUpdates() throws InterruptedException, ExecutionException {
+        BinaryStore binaryStore = new BinaryStore(true);
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(sampleModel("testrepo/testrepo")));
+        Model loaded = binaryStore.loadRepository("testrepo/testrepo").get();
+        File file = RepoStore.getRepoFile("testrepo/testrepo", "bin");
+        File journal = RepoStore.getRepoFile("testrepo/testrepo", "bin.journal");
+        long fileSize = file.length();
+
+        // Only the changes are appended
+        Model first = updatedModel(loaded, issue(1, "First issue, renamed"));
+        binaryStore.saveRepositoryUpdate(loaded, first);
+        Model second = updatedModel(first, issue(3, "Third issue"));
+        binaryStore.saveRepositoryUpdate(first, second);
+        assertEquals(second, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertEquals(fileSize, file.length());
+        assertTrue(journal.length() > 0 && journal.length() < fileSize);
+
+        Model reloaded = new BinaryStore(true).loadRepository("testrepo/testrepo").get();
+        assertEquals(second, reloaded);
+        assertEquals("First issue, renamed", reloaded.getIssues().get(0).getTitle());
+        assertEquals(3, reloaded.getIssues().get(2).getId());
+
+        // Updates of a model which is not the one stored are written in full
+        Model other = updatedModel(first, issue(4, "Fourth issue"));
+        binaryStore.saveRepositoryUpdate(first, other);
+        assertEquals(other, binaryStore.loadRepository("testrepo/testrepo").get());
+        assertFalse(journal.exists());
+    }
+
+    @Test
+    public void testJournalCompaction() throws InterruptedException, ExecutionException {
+        BinaryStore binaryStore = new BinaryStore(true);
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(sampleModel("testrepo/testrepo")));
+        Model model = binaryStore.loadRepository("testrepo/testrepo").get();
+        File journal = RepoStore.getRepoFile("testrepo/testrepo", "bin.journal");
+
+        // Each update appends a large record, so the journal soon outgrows the file
+        boolean compacted = false;
+        for (int i = 0; i < 20; i++) {
+            TurboIssue issue = issue(1, "Renamed " + i);
+            issue.setDescription(String.join("", Collections.nCopies(4000, String.valueOf(i % 10))));
+            Model updated = updatedModel(model, issue);
+            binaryStore.saveRepositoryUpdate(model, updated);
+            model = binaryStore.loadRepository("testrepo/testrepo").get();
+            assertEquals(updated, model);
+            compacted |= !journal.exists();
+        }
+        assertTrue(compacted);
+        assertEquals(model, new BinaryStore(true).loadRepository("testrepo/testrepo").get());
+    }
+
+    @Test
+    public void testIncompleteJournal() throws InterruptedException, ExecutionException, IOException {
+        BinaryStore binaryStore = new BinaryStore(true);
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(sampleModel("testrepo/testrepo")));
+        Model loaded = binaryStore.loadRepository("testrepo/testrepo").get();
+        File journal = RepoStore.getRepoFile("testrepo/testrepo", "bin.journal");
+
+        Model first = updatedModel(loaded, issue(1, "First issue, renamed"));
+        binaryStore.saveRepositoryUpdate(loaded, first);
+        binaryStore.loadRepository("testrepo/testrepo").get();
+        long firstSize = journal.length();
+        Model second = updatedModel(first, issue(3, "Third issue"));
+        binaryStore.saveRepositoryUpdate(first, second);
+        binaryStore.loadRepository("testrepo/testrepo").get();
+
+        // The last record is cut short, so the repository is loaded as of the update before it
+        byte[] records = Files.readAllBytes(journal.toPath());
+        Files.write(journal.toPath(), Arrays.copyOf(records, records.length - 1));
+        assertEquals(first, new BinaryStore(true).loadRepository("testrepo/testrepo").get());
+        assertEquals(firstSize, journal.length());
+
+        // Records of an earlier generation of the file are ignored
+        binaryStore.saveRepository("testrepo/testrepo", new SerializableModel(loaded));
+        binaryStore.loadRepository("testrepo/testrepo").get();
+        Files.write(journal.toPath(), records);
+        assertEquals(loaded, new BinaryStore(true).loadRepository("testrepo/testrepo").get());
+        assertEquals(0, journal.length());
+    }
+
+    /**
+     * Runs the tasks given to it, like those of a store.
+     */
+    private static class TaskStore extends JSONStore {
+        void run(String repoId, boolean isReadOnly, Runnable runnable) {
+            addTask(new StoreTask(repoId) {
+                @Override
+                public void run() {
+                    runnable.run();
+                }
+
+                @Override
+                public boolean isReadOnly() {
+                    return isReadOnly;
+                }
+            });
+        }
+
+        @Override
+        protected boolean hasPendingTasks(String repoId) {
+            return super.hasPendingTasks(repoId);
+        }
+    }
+
+    @Test
+    public void testTaskOrdering() throws InterruptedException, ExecutionException, TimeoutException {
+        TaskStore store = new TaskStore();
+        CountDownLatch writing = new CountDownLatch(1);
+        List<String> done = Collections.synchronizedList(new ArrayList<>());
+        store.run("first/first", false, () -> {
+            try {
+                writing.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.add("first write");
+        });
+        CompletableFuture<Void> firstRead = new CompletableFuture<>();
+        store.run("first/first", true, () -> {
+            done.add("first read");
+            firstRead.complete(null);
+        });
+        store.run("first/first", false, () -> done.add("second write"));
+
+        // Reads of other repositories do not wait for the write, and may run together
+        CompletableFuture<Void> otherReads = new CompletableFuture<>();
+        CountDownLatch reading = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            store.run("second/second", true, () -> {
+                reading.countDown();
+                try {
+                    if (reading.await(5, TimeUnit.SECONDS)) {
+                        otherReads.complete(null);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        otherReads.get(5, TimeUnit.SECONDS);
+        assertFalse(firstRead.isDone());
+
+        // The tasks of a repository take effect in the order they were added
+        writing.countDown();
+        firstRead.get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> lastRead = new CompletableFuture<>();
+        store.run("first/first", true, () -> lastRead.complete(null));
+        lastRead.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("first write", "first read", "second write"), done);
+
+        // Repositories are forgotten once their tasks have all run
+        awaitNoPendingTasks(store, "first/first");
+        awaitNoPendingTasks(store, "second/second");
+    }
+
+    private static void awaitNoPendingTasks(TaskStore store, String repoId) throws InterruptedException {
+        for (int i = 0; i < 100 && store.hasPendingTasks(repoId); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(store.hasPendingTasks(repoId));
+    }
+
     @After
     public void cleanup() {
         UITest.clearTestFolder();
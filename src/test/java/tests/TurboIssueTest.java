@@ -1,15 +1,29 @@
 package tests;
 
+import backend.resource.ChangeSet;
 import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableIssue;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
+import org.eclipse.egit.github.core.Milestone;
 import org.eclipse.egit.github.core.User;
 import org.junit.Test;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class TurboIssueTest {
 
@@ -31,4 +45,123 @@ public class TurboIssueTest {
         assertEquals("test label", turboIssue.getLabels().get(0));
     }
 
+    @Test
+    public void reconcileTest() {
+        String repoId = "dummy/dummy";
+        List<TurboIssue> existing = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            existing.add(new TurboIssue(repoId, i, "Issue " + i));
+        }
+        existing.get(1).setIsCurrentlyRead(true);
+
+        TurboIssue edited = new TurboIssue(existing.get(1));
+        edited.setTitle("Edited");
+        edited.setIsCurrentlyRead(false);
+        TurboIssue untouched = new TurboIssue(existing.get(3));
+        TurboIssue added = new TurboIssue(repoId, 6, "Issue 6");
+
+        ImmutablePair<List<TurboIssue>, ChangeSet<Integer>> result =
+            TurboIssue.reconcileWithChanges(repoId, existing, Arrays.asList(edited, untouched, added));
+        List<TurboIssue> issues = result.left;
+        ChangeSet<Integer> changes = result.right;
+
+        // Order is preserved, with new issues at the end
+        assertEquals(6, issues.size());
+        assertEquals(6, issues.get(5).getId());
+        assertEquals("Edited", issues.get(1).getTitle());
+        assertSame(existing.get(3), issues.get(3));
+        // Transient state is carried over from the existing issue
+        assertTrue(issues.get(1).isCurrentlyRead());
+
+        assertEquals(new HashSet<>(Arrays.asList(6)), changes.getAdded());
+        assertEquals(new HashSet<>(Arrays.asList(2)), changes.getChanged());
+        assertEquals(new HashSet<>(Arrays.asList(1, 3, 4, 5)), changes.getUnchanged());
+        assertTrue(changes.hasChanges());
+
+        // The input list is not modified
+        assertEquals(5, existing.size());
+        assertEquals("Issue 2", existing.get(1).getTitle());
+
+        assertEquals(issues, TurboIssue.reconcile(repoId, existing, Arrays.asList(edited, untouched, added)));
+        assertFalse(TurboIssue.reconcileWithChanges(repoId, existing, Arrays.asList(untouched)).right.hasChanges());
+    }
+
+    @Test
+    public void lazyDescriptionTest() {
+        AtomicInteger decoded = new AtomicInteger();
+        TurboIssue issue = new TurboIssue("dummy/dummy", 1, "Issue 1");
+        issue.setLazyDescription(() -> {
+            decoded.incrementAndGet();
+            return "Description";
+        });
+        TurboIssue copy = new TurboIssue(issue);
+        assertEquals(0, decoded.get());
+
+        // Decoded once, when first needed
+        assertEquals("Description", issue.getDescription());
+        assertEquals("Description", issue.getDescription());
+        assertEquals(1, decoded.get());
+        assertEquals(issue, copy);
+        assertEquals(issue.hashCode(), copy.hashCode());
+
+        copy.setDescription("Edited");
+        assertEquals("Edited", copy.getDescription());
+        assertEquals(2, decoded.get());
+    }
+
+    @Test
+    public void compactFieldsTest() {
+        LocalDateTime createdAt = LocalDateTime.of(2015, 1, 2, 3, 4, 5, 6);
+        TurboIssue issue = new TurboIssue("dummy/dummy", 1, "Issue 1", "test_user", createdAt, false);
+        assertEquals(createdAt, issue.getCreatedAt());
+        issue.setUpdatedAt(null);
+        assertEquals(null, issue.getUpdatedAt());
+        assertEquals(null, new TurboIssue("dummy/dummy", 2, "Issue 2", "test_user", null, false).getCreatedAt());
+
+        // Labels changed through the list are changed in the issue, but not in its copies
+        issue.getLabels().addAll(Arrays.asList("type.bug", "priority.high"));
+        TurboIssue copy = new TurboIssue(issue);
+        issue.addLabel("status.ongoing");
+        issue.getLabels().set(0, "type.feature");
+        issue.getLabels().remove("priority.high");
+        assertEquals(Arrays.asList("type.feature", "status.ongoing"), issue.getLabels());
+        assertEquals(Arrays.asList("type.bug", "priority.high"), copy.getLabels());
+
+        Iterator<String> labels = copy.getLabels().iterator();
+        labels.next();
+        labels.remove();
+        assertEquals(Collections.singletonList("priority.high"), copy.getLabels());
+        copy.getLabels().clear();
+        assertTrue(copy.getLabels().isEmpty());
+    }
+
+    @Test
+    public void sharedStringsTest() {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (String repoId : Arrays.asList("dummy/dummy", "dummy/other")) {
+            // Equal strings which are separate copies, as when they are read
+            Issue issue = new Issue();
+            issue.setNumber(1);
+            issue.setUser(new User().setLogin(new String("test_user")));
+            issue.setAssignee(new User().setLogin(new String("assignee")));
+            issue.setCreatedAt(new Date());
+            issue.setUpdatedAt(new Date());
+            issue.setState("open");
+            issue.setLabels(Arrays.asList(new Label().setName(new String("test label"))));
+            issue.setMilestone(new Milestone().setNumber(1000));
+            issues.add(new TurboIssue(new String(repoId), issue));
+            issues.add(new TurboIssue(new String(repoId), new SerializableIssue(issues.get(issues.size() - 1))));
+        }
+
+        TurboIssue first = issues.get(0);
+        for (TurboIssue issue : issues) {
+            assertSame(first.getCreator(), issue.getCreator());
+            assertSame(first.getAssignee(), issue.getAssignee());
+            assertSame(first.getLabels().get(0), issue.getLabels().get(0));
+            assertSame(first.getMilestone(), issue.getMilestone());
+        }
+        assertSame(first.getRepoId(), issues.get(1).getRepoId());
+        assertEquals("dummy/other", issues.get(3).getRepoId());
+    }
+
 }
@@ -49,4 +49,15 @@ public class UtilityTest {
         assertEquals(3, parseVersionNumber("1.2.3a").get()[2]);
     }
 
+
+    @Test
+    public void containsIgnoreCaseTest() {
+        assertEquals(true, containsIgnoreCase("Stack Trace", "k tr"));
+        assertEquals(true, containsIgnoreCase("Stack Trace", ""));
+        assertEquals(true, containsIgnoreCase("[BUG] crash", "[bug]"));
+        assertEquals(false, containsIgnoreCase("Stack Trace", "stacks"));
+        assertEquals(false, containsIgnoreCase("", "a"));
+        // The Kelvin sign is a capital k
+        assertEquals(true, containsIgnoreCase("5 \u212A", "k"));
+    }
 }